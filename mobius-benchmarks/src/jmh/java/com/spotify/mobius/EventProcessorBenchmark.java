@@ -0,0 +1,89 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of passing an event through an {@link EventProcessor} and dispatching the
+ * resulting model and effects. This is in the com.spotify.mobius package since EventProcessor is
+ * package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EventProcessorBenchmark {
+
+  @Param({"0", "1", "4"})
+  public int effectCount;
+
+  private EventProcessor<Integer, Integer, Integer> eventProcessor;
+
+  @Setup
+  public void setUp(final Blackhole blackhole) {
+    final Integer[] effects = new Integer[effectCount];
+    for (int i = 0; i < effectCount; i++) {
+      effects[i] = i;
+    }
+
+    MobiusStore<Integer, Integer, Integer> store =
+        MobiusStore.create(
+            First::first, (model, event) -> Next.next(model + event, Effects.effects(effects)), 0);
+
+    eventProcessor =
+        new EventProcessor<>(
+            store,
+            new Consumer<Integer>() {
+              @Override
+              public void accept(Integer effect) {
+                blackhole.consume(effect);
+              }
+            },
+            new Consumer<Integer>() {
+              @Override
+              public void accept(Integer model) {
+                blackhole.consume(model);
+              }
+            });
+
+    eventProcessor.init();
+  }
+
+  @Benchmark
+  public void update() {
+    eventProcessor.update(1);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of {@link MobiusLoopController#postUpdateView} for a running controller, both
+ * when the view is updated on the posting thread and when updates are posted to another thread and
+ * conflated. This is in the com.spotify.mobius package since MobiusLoopController is
+ * package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PostUpdateViewBenchmark {
+
+  @Param({"immediate", "executor"})
+  public String mainThreadRunner;
+
+  private WorkRunner runner;
+  private MobiusLoopController<Integer, Integer, Integer> controller;
+  private int model;
+
+  @Setup
+  public void setUp(final Blackhole blackhole) {
+    runner =
+        "immediate".equals(mainThreadRunner)
+            ? WorkRunners.immediate()
+            : WorkRunners.from(Executors.newSingleThreadExecutor());
+
+    MobiusLoop.Factory<Integer, Integer, Integer> loopFactory =
+        Mobius.<Integer, Integer, Integer>loop(
+                (model, event) -> Next.next(model + event),
+                output ->
+                    new Connection<Integer>() {
+                      @Override
+                      public void accept(Integer value) {}
+
+                      @Override
+                      public void dispose() {}
+                    })
+            .eventRunner(WorkRunners::immediate)
+            .effectRunner(WorkRunners::immediate);
+
+    controller = new MobiusLoopController<>(loopFactory, 0, runner);
+    controller.connect(
+        output ->
+            new Connection<Integer>() {
+              @Override
+              public void accept(Integer value) {
+                blackhole.consume(value);
+              }
+
+              @Override
+              public void dispose() {}
+            });
+    controller.start();
+  }
+
+  @Benchmark
+  public void postUpdateView() {
+    controller.postUpdateView(model++);
+  }
+
+  @TearDown
+  public void tearDown() {
+    controller.stop();
+    controller.disconnect();
+    runner.dispose();
+  }
+}
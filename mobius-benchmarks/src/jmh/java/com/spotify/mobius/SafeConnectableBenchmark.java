@@ -0,0 +1,85 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the overhead that {@link SafeConnectable} adds to passing an effect to a connection,
+ * compared to calling the connection directly. This is in the com.spotify.mobius package since
+ * SafeConnectable is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SafeConnectableBenchmark {
+
+  private Connection<Integer> direct;
+  private Connection<Integer> safe;
+
+  @Setup
+  public void setUp(final Blackhole blackhole) {
+    Connectable<Integer, Integer> connectable =
+        output ->
+            new Connection<Integer>() {
+              @Override
+              public void accept(Integer value) {
+                blackhole.consume(value);
+              }
+
+              @Override
+              public void dispose() {}
+            };
+
+    direct = connectable.connect(event -> {});
+    safe = new SafeConnectable<>(connectable).connect(event -> {});
+  }
+
+  @Benchmark
+  public void directAccept() {
+    direct.accept(1);
+  }
+
+  @Benchmark
+  public void safeAccept() {
+    safe.accept(1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    direct.dispose();
+    safe.dispose();
+  }
+}
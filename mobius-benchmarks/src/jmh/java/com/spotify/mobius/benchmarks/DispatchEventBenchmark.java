@@ -0,0 +1,117 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link MobiusLoop#dispatchEvent} when events are processed on the
+ * dispatching thread and when they are processed on a background executor. Each invocation
+ * dispatches a burst of events and waits until the last one has been processed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DispatchEventBenchmark {
+
+  private static final int EVENTS_PER_INVOCATION = 1000;
+
+  private static final Connectable<Integer, Integer> NO_EFFECTS =
+      output ->
+          new Connection<Integer>() {
+            @Override
+            public void accept(Integer value) {}
+
+            @Override
+            public void dispose() {}
+          };
+
+  @Param({"immediate", "executor"})
+  public String eventRunner;
+
+  private MobiusLoop<Integer, Integer, Integer> loop;
+  private volatile int awaitedModel;
+  private volatile CountDownLatch processed;
+
+  @Setup
+  public void setUp() {
+    MobiusLoop.Builder<Integer, Integer, Integer> builder =
+        Mobius.<Integer, Integer, Integer>loop(
+                (model, event) -> Next.next(model + event), NO_EFFECTS)
+            .effectRunner(WorkRunners::immediate);
+
+    if ("immediate".equals(eventRunner)) {
+      builder = builder.eventRunner(WorkRunners::immediate);
+    } else {
+      builder = builder.eventRunner(() -> WorkRunners.from(Executors.newSingleThreadExecutor()));
+    }
+
+    loop = builder.startFrom(0);
+    loop.observe(
+        model -> {
+          CountDownLatch latch = processed;
+          if (latch != null && model == awaitedModel) {
+            latch.countDown();
+          }
+        });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+  public void dispatchEvents() throws InterruptedException {
+    awaitedModel = loop.getMostRecentModel() + EVENTS_PER_INVOCATION;
+    processed = new CountDownLatch(1);
+
+    for (int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+      loop.dispatchEvent(1);
+    }
+
+    processed.await();
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+}
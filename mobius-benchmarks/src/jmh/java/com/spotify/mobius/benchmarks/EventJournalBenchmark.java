@@ -0,0 +1,143 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.extras.journal.EventJournal;
+import com.spotify.mobius.extras.journal.EventSerializer;
+import com.spotify.mobius.extras.journal.JournalConfig;
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of an update function decorated by {@link EventJournal#journaling}, for
+ * different ways of syncing the journal: after every event, in batches of 16 or 256 events, every
+ * 10 milliseconds, or never. The results depend heavily on the storage device the temporary
+ * directory is on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EventJournalBenchmark {
+
+  private static final ModelSerializer<Integer> MODEL_SERIALIZER =
+      new ModelSerializer<Integer>() {
+        @Nonnull
+        @Override
+        public byte[] serialize(Integer model) {
+          return ByteBuffer.allocate(4).putInt(model).array();
+        }
+
+        @Nonnull
+        @Override
+        public Integer deserialize(byte[] bytes) {
+          return ByteBuffer.wrap(bytes).getInt();
+        }
+      };
+
+  private static final EventSerializer<Integer> EVENT_SERIALIZER =
+      new EventSerializer<Integer>() {
+        @Nonnull
+        @Override
+        public byte[] serialize(Integer event) {
+          return ByteBuffer.allocate(4).putInt(event).array();
+        }
+
+        @Nonnull
+        @Override
+        public Integer deserialize(byte[] bytes) {
+          return ByteBuffer.wrap(bytes).getInt();
+        }
+      };
+
+  @Param({"everyEvent", "every16", "every256", "every10ms", "never"})
+  public String sync;
+
+  private File directory;
+  private EventJournal<Integer, Integer> journal;
+  private Update<Integer, Integer, Integer> update;
+  private int model;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark").toFile();
+    journal = EventJournal.open(directory, MODEL_SERIALIZER, EVENT_SERIALIZER, config(sync));
+    update = journal.journaling((model, event) -> Next.next(model + event));
+  }
+
+  @TearDown
+  public void tearDown() {
+    journal.dispose();
+
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Benchmark
+  public Integer journaledUpdate() {
+    model = update.update(model, 1).modelUnsafe();
+    return model;
+  }
+
+  private static JournalConfig config(String sync) {
+    JournalConfig config = JournalConfig.defaults().checkpointEvery(100_000);
+
+    switch (sync) {
+      case "everyEvent":
+        return config.syncEvery(1, 0, TimeUnit.MILLISECONDS);
+      case "every16":
+        return config.syncEvery(16, 0, TimeUnit.MILLISECONDS);
+      case "every256":
+        return config.syncEvery(256, 0, TimeUnit.MILLISECONDS);
+      case "every10ms":
+        return config.syncEvery(0, 10, TimeUnit.MILLISECONDS);
+      case "never":
+        return config.syncEvery(0, 0, TimeUnit.MILLISECONDS);
+      default:
+        throw new IllegalArgumentException(sync);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.First;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-event cost of logging in a loop that processes events on the dispatching thread.
+ * {@code none} uses the builder's default logger, which the loop doesn't wrap init and update for;
+ * {@code empty} configures a logger that does nothing, which still pays for the logging wrappers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LoggerBenchmark {
+
+  private static final Connectable<Integer, Integer> NO_EFFECTS =
+      output ->
+          new Connection<Integer>() {
+            @Override
+            public void accept(Integer value) {}
+
+            @Override
+            public void dispose() {}
+          };
+
+  @Param({"none", "empty"})
+  public String logger;
+
+  private MobiusLoop<Integer, Integer, Integer> loop;
+
+  @Setup
+  public void setUp() {
+    MobiusLoop.Builder<Integer, Integer, Integer> builder =
+        Mobius.<Integer, Integer, Integer>loop(
+                (model, event) -> Next.next(model + event), NO_EFFECTS)
+            .eventRunner(WorkRunners::immediate)
+            .effectRunner(WorkRunners::immediate);
+
+    if ("empty".equals(logger)) {
+      builder = builder.logger(new EmptyLogger());
+    }
+
+    loop = builder.startFrom(0);
+  }
+
+  @Benchmark
+  public int dispatchEvent() {
+    loop.dispatchEvent(1);
+    return loop.getMostRecentModel();
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  private static class EmptyLogger implements MobiusLoop.Logger<Integer, Integer, Integer> {
+    @Override
+    public void beforeInit(Integer model) {}
+
+    @Override
+    public void afterInit(Integer model, First<Integer, Integer> result) {}
+
+    @Override
+    public void exceptionDuringInit(Integer model, Throwable exception) {}
+
+    @Override
+    public void beforeUpdate(Integer model, Integer event) {}
+
+    @Override
+    public void afterUpdate(Integer model, Integer event, Next<Integer, Integer> result) {}
+
+    @Override
+    public void exceptionDuringUpdate(Integer model, Integer event, Throwable exception) {}
+  }
+}
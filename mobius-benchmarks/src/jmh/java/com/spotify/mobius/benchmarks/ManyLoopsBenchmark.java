@@ -0,0 +1,135 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.actors.SerialExecutorActorFactory;
+import com.spotify.mobius.runners.WorkRunners;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to deliver one event to each of a large number of loops and have all
+ * of them process it, comparing a dedicated event thread per loop with loops sharing a bounded pool
+ * through a {@link SerialExecutorActorFactory}. The number of live threads is printed at the end of
+ * each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ManyLoopsBenchmark {
+
+  private static final Connectable<Integer, Integer> NO_EFFECTS =
+      output ->
+          new Connection<Integer>() {
+            @Override
+            public void accept(Integer value) {}
+
+            @Override
+            public void dispose() {}
+          };
+
+  @Param({"10000"})
+  public int loopCount;
+
+  @Param({"threadPerLoop", "sharedPool"})
+  public String eventActors;
+
+  private ExecutorService sharedPool;
+  private List<MobiusLoop<Integer, Integer, Integer>> loops;
+  private volatile CountDownLatch round;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    MobiusLoop.Builder<Integer, Integer, Integer> builder =
+        Mobius.<Integer, Integer, Integer>loop(
+                (model, event) -> Next.next(model + event), NO_EFFECTS)
+            .effectRunner(WorkRunners::immediate);
+
+    if ("sharedPool".equals(eventActors)) {
+      sharedPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+      builder = builder.eventActorFactory(new SerialExecutorActorFactory(sharedPool));
+    }
+
+    loops = new ArrayList<>(loopCount);
+    for (int i = 0; i < loopCount; i++) {
+      MobiusLoop<Integer, Integer, Integer> loop = builder.startFrom(0);
+      loop.observe(
+          model -> {
+            CountDownLatch latch = round;
+            if (latch != null) {
+              latch.countDown();
+            }
+          });
+      loops.add(loop);
+    }
+  }
+
+  @Benchmark
+  public void dispatchOneEventToEveryLoop() throws InterruptedException {
+    round = new CountDownLatch(loopCount);
+
+    for (MobiusLoop<Integer, Integer, Integer> loop : loops) {
+      loop.dispatchEvent(1);
+    }
+
+    round.await();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf(
+        "%n%s with %d loops: %d live threads%n",
+        eventActors, loopCount, ManagementFactory.getThreadMXBean().getThreadCount());
+
+    for (MobiusLoop<Integer, Integer, Integer> loop : loops) {
+      loop.dispose();
+    }
+
+    if (sharedPool != null) {
+      sharedPool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Effects;
+import com.spotify.mobius.First;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.internal_util.ImmutableUtil;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of creating {@link Next} and {@link First} instances with the small numbers of
+ * effects that are typical for update functions. {@link #copyEffectsIntoHashSet} reproduces the
+ * defensive copy that used to be made for every Next, for comparison. Run with {@code -prof gc} to
+ * see the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class NextBenchmark {
+
+  @Param({"0", "1", "2", "4"})
+  public int effectCount;
+
+  private String model;
+  private String[] effects;
+  private Set<String> immutableEffects;
+
+  @Setup
+  public void setUp() {
+    model = "model";
+    effects = new String[effectCount];
+    for (int i = 0; i < effectCount; i++) {
+      effects[i] = "effect" + i;
+    }
+    immutableEffects = ImmutableUtil.setOf(effects);
+  }
+
+  @Benchmark
+  public Next<String, String> nextWithEffects() {
+    return Next.next(model, Effects.<String, String>effects(effects));
+  }
+
+  @Benchmark
+  public Next<String, String> nextWithImmutableEffects() {
+    return Next.next(model, immutableEffects);
+  }
+
+  @Benchmark
+  public Next<String, String> dispatchEffects() {
+    return Next.dispatch(Effects.<String, String>effects(effects));
+  }
+
+  @Benchmark
+  public Next<String, String> noChange() {
+    return Next.noChange();
+  }
+
+  @Benchmark
+  public First<String, String> firstWithEffects() {
+    return First.first(model, Effects.<String, String>effects(effects));
+  }
+
+  @Benchmark
+  public Set<String> copyEffectsIntoHashSet() {
+    return Collections.unmodifiableSet(new HashSet<>(Effects.<String, String>effects(effects)));
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.actors.ForkJoinActorFactory;
+import com.spotify.mobius.actors.SerialExecutorActorFactory;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures event throughput when most events go to a few hot loops, comparing a dedicated event
+ * thread per loop, loops sharing a fixed pool through a {@link SerialExecutorActorFactory}, and
+ * loops sharing a work-stealing pool through a {@link ForkJoinActorFactory}. The shared pools have
+ * one thread per available processor. Keys are drawn from a Zipf distribution, so the hottest loop
+ * gets a large share of the events; the dispatching thread plays the part of a network thread
+ * receiving events for many sessions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SkewedKeysBenchmark {
+
+  private static final int EVENTS_PER_INVOCATION = 10_000;
+
+  private static final Connectable<Integer, Integer> NO_EFFECTS =
+      output ->
+          new Connection<Integer>() {
+            @Override
+            public void accept(Integer value) {}
+
+            @Override
+            public void dispose() {}
+          };
+
+  @Param({"256"})
+  public int loopCount;
+
+  @Param({"1.2"})
+  public double skew;
+
+  /** The amount of work each update does, in {@link Blackhole#consumeCPU} tokens. */
+  @Param({"200"})
+  public int updateCost;
+
+  @Param({"threadPerLoop", "sharedPool", "forkJoin"})
+  public String eventActors;
+
+  private ExecutorService sharedPool;
+  private ForkJoinPool forkJoinPool;
+  private List<MobiusLoop<Integer, Integer, Integer>> loops;
+  private int[] keys;
+  private volatile CountDownLatch processed;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final int cost = updateCost;
+    MobiusLoop.Builder<Integer, Integer, Integer> builder =
+        Mobius.<Integer, Integer, Integer>loop(
+                (model, event) -> {
+                  Blackhole.consumeCPU(cost);
+                  return Next.next(model + event);
+                },
+                NO_EFFECTS)
+            .effectRunner(WorkRunners::immediate);
+
+    int processors = Runtime.getRuntime().availableProcessors();
+    if ("sharedPool".equals(eventActors)) {
+      sharedPool = Executors.newFixedThreadPool(processors);
+      builder = builder.eventActorFactory(new SerialExecutorActorFactory(sharedPool));
+    } else if ("forkJoin".equals(eventActors)) {
+      forkJoinPool =
+          new ForkJoinPool(processors, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+      builder = builder.eventActorFactory(new ForkJoinActorFactory(forkJoinPool));
+    }
+
+    loops = new ArrayList<>(loopCount);
+    for (int i = 0; i < loopCount; i++) {
+      MobiusLoop<Integer, Integer, Integer> loop = builder.startFrom(0);
+      loop.observe(
+          model -> {
+            CountDownLatch latch = processed;
+            if (latch != null) {
+              latch.countDown();
+            }
+          });
+      loops.add(loop);
+    }
+
+    keys = zipfKeys(EVENTS_PER_INVOCATION, loopCount, skew, new Random(42));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+  public void dispatchSkewedEvents() throws InterruptedException {
+    processed = new CountDownLatch(EVENTS_PER_INVOCATION);
+
+    for (int key : keys) {
+      loops.get(key).dispatchEvent(1);
+    }
+
+    processed.await();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    processed = null;
+
+    for (MobiusLoop<Integer, Integer, Integer> loop : loops) {
+      loop.dispose();
+    }
+
+    if (sharedPool != null) {
+      sharedPool.shutdown();
+    }
+    if (forkJoinPool != null) {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  private static int[] zipfKeys(int count, int keyCount, double skew, Random random) {
+    double[] cumulative = new double[keyCount];
+    double sum = 0;
+    for (int i = 0; i < keyCount; i++) {
+      sum += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = sum;
+    }
+
+    int[] keys = new int[count];
+    for (int i = 0; i < count; i++) {
+      double value = random.nextDouble() * sum;
+      int key = 0;
+      while (cumulative[key] < value) {
+        key++;
+      }
+      keys[i] = key;
+    }
+
+    return keys;
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.benchmarks;
+
+import com.spotify.mobius.rx2.RxMobius;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of routing an effect to its handler through an effect handler created by {@link
+ * RxMobius#subtypeEffectHandler()}, for different numbers of registered handlers. The effect is
+ * always handled by the last handler that was added.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SubtypeEffectHandlerBenchmark {
+
+  abstract static class Effect {}
+
+  static final class Effect0 extends Effect {}
+
+  static final class Effect1 extends Effect {}
+
+  static final class Effect2 extends Effect {}
+
+  static final class Effect3 extends Effect {}
+
+  static final class Effect4 extends Effect {}
+
+  static final class Effect5 extends Effect {}
+
+  static final class Effect6 extends Effect {}
+
+  static final class Effect7 extends Effect {}
+
+  static final class Effect8 extends Effect {}
+
+  static final class Effect9 extends Effect {}
+
+  static final class Effect10 extends Effect {}
+
+  static final class Effect11 extends Effect {}
+
+  static final class Effect12 extends Effect {}
+
+  static final class Effect13 extends Effect {}
+
+  static final class Effect14 extends Effect {}
+
+  static final class Effect15 extends Effect {}
+
+  static final class Effect16 extends Effect {}
+
+  static final class Effect17 extends Effect {}
+
+  static final class Effect18 extends Effect {}
+
+  static final class Effect19 extends Effect {}
+
+  static final class Effect20 extends Effect {}
+
+  static final class Effect21 extends Effect {}
+
+  static final class Effect22 extends Effect {}
+
+  static final class Effect23 extends Effect {}
+
+  static final class Effect24 extends Effect {}
+
+  static final class Effect25 extends Effect {}
+
+  static final class Effect26 extends Effect {}
+
+  static final class Effect27 extends Effect {}
+
+  static final class Effect28 extends Effect {}
+
+  static final class Effect29 extends Effect {}
+
+  static final class Effect30 extends Effect {}
+
+  static final class Effect31 extends Effect {}
+
+  static final class Effect32 extends Effect {}
+
+  static final class Effect33 extends Effect {}
+
+  static final class Effect34 extends Effect {}
+
+  static final class Effect35 extends Effect {}
+
+  static final class Effect36 extends Effect {}
+
+  static final class Effect37 extends Effect {}
+
+  static final class Effect38 extends Effect {}
+
+  static final class Effect39 extends Effect {}
+
+  static final class Effect40 extends Effect {}
+
+  static final class Effect41 extends Effect {}
+
+  static final class Effect42 extends Effect {}
+
+  static final class Effect43 extends Effect {}
+
+  static final class Effect44 extends Effect {}
+
+  static final class Effect45 extends Effect {}
+
+  static final class Effect46 extends Effect {}
+
+  static final class Effect47 extends Effect {}
+
+  static final class Effect48 extends Effect {}
+
+  static final class Effect49 extends Effect {}
+
+  static final class Effect50 extends Effect {}
+
+  static final class Effect51 extends Effect {}
+
+  static final class Effect52 extends Effect {}
+
+  static final class Effect53 extends Effect {}
+
+  static final class Effect54 extends Effect {}
+
+  static final class Effect55 extends Effect {}
+
+  static final class Effect56 extends Effect {}
+
+  static final class Effect57 extends Effect {}
+
+  static final class Effect58 extends Effect {}
+
+  static final class Effect59 extends Effect {}
+
+  static final class Effect60 extends Effect {}
+
+  static final class Effect61 extends Effect {}
+
+  static final class Effect62 extends Effect {}
+
+  static final class Effect63 extends Effect {}
+
+  static final class Effect64 extends Effect {}
+
+  static final class Effect65 extends Effect {}
+
+  static final class Effect66 extends Effect {}
+
+  static final class Effect67 extends Effect {}
+
+  static final class Effect68 extends Effect {}
+
+  static final class Effect69 extends Effect {}
+
+  static final class Effect70 extends Effect {}
+
+  static final class Effect71 extends Effect {}
+
+  static final class Effect72 extends Effect {}
+
+  static final class Effect73 extends Effect {}
+
+  static final class Effect74 extends Effect {}
+
+  static final class Effect75 extends Effect {}
+
+  static final class Effect76 extends Effect {}
+
+  static final class Effect77 extends Effect {}
+
+  static final class Effect78 extends Effect {}
+
+  static final class Effect79 extends Effect {}
+
+  static final class Effect80 extends Effect {}
+
+  static final class Effect81 extends Effect {}
+
+  static final class Effect82 extends Effect {}
+
+  static final class Effect83 extends Effect {}
+
+  static final class Effect84 extends Effect {}
+
+  static final class Effect85 extends Effect {}
+
+  static final class Effect86 extends Effect {}
+
+  static final class Effect87 extends Effect {}
+
+  static final class Effect88 extends Effect {}
+
+  static final class Effect89 extends Effect {}
+
+  static final class Effect90 extends Effect {}
+
+  static final class Effect91 extends Effect {}
+
+  static final class Effect92 extends Effect {}
+
+  static final class Effect93 extends Effect {}
+
+  static final class Effect94 extends Effect {}
+
+  static final class Effect95 extends Effect {}
+
+  static final class Effect96 extends Effect {}
+
+  static final class Effect97 extends Effect {}
+
+  static final class Effect98 extends Effect {}
+
+  static final class Effect99 extends Effect {}
+
+  private static final List<Class<? extends Effect>> EFFECT_CLASSES =
+      Arrays.asList(
+          Effect0.class,
+          Effect1.class,
+          Effect2.class,
+          Effect3.class,
+          Effect4.class,
+          Effect5.class,
+          Effect6.class,
+          Effect7.class,
+          Effect8.class,
+          Effect9.class,
+          Effect10.class,
+          Effect11.class,
+          Effect12.class,
+          Effect13.class,
+          Effect14.class,
+          Effect15.class,
+          Effect16.class,
+          Effect17.class,
+          Effect18.class,
+          Effect19.class,
+          Effect20.class,
+          Effect21.class,
+          Effect22.class,
+          Effect23.class,
+          Effect24.class,
+          Effect25.class,
+          Effect26.class,
+          Effect27.class,
+          Effect28.class,
+          Effect29.class,
+          Effect30.class,
+          Effect31.class,
+          Effect32.class,
+          Effect33.class,
+          Effect34.class,
+          Effect35.class,
+          Effect36.class,
+          Effect37.class,
+          Effect38.class,
+          Effect39.class,
+          Effect40.class,
+          Effect41.class,
+          Effect42.class,
+          Effect43.class,
+          Effect44.class,
+          Effect45.class,
+          Effect46.class,
+          Effect47.class,
+          Effect48.class,
+          Effect49.class,
+          Effect50.class,
+          Effect51.class,
+          Effect52.class,
+          Effect53.class,
+          Effect54.class,
+          Effect55.class,
+          Effect56.class,
+          Effect57.class,
+          Effect58.class,
+          Effect59.class,
+          Effect60.class,
+          Effect61.class,
+          Effect62.class,
+          Effect63.class,
+          Effect64.class,
+          Effect65.class,
+          Effect66.class,
+          Effect67.class,
+          Effect68.class,
+          Effect69.class,
+          Effect70.class,
+          Effect71.class,
+          Effect72.class,
+          Effect73.class,
+          Effect74.class,
+          Effect75.class,
+          Effect76.class,
+          Effect77.class,
+          Effect78.class,
+          Effect79.class,
+          Effect80.class,
+          Effect81.class,
+          Effect82.class,
+          Effect83.class,
+          Effect84.class,
+          Effect85.class,
+          Effect86.class,
+          Effect87.class,
+          Effect88.class,
+          Effect89.class,
+          Effect90.class,
+          Effect91.class,
+          Effect92.class,
+          Effect93.class,
+          Effect94.class,
+          Effect95.class,
+          Effect96.class,
+          Effect97.class,
+          Effect98.class,
+          Effect99.class);
+
+  @Param({"1", "10", "100"})
+  public int handlerCount;
+
+  private PublishSubject<Effect> effects;
+  private Disposable subscription;
+  private Effect effect;
+
+  @Setup
+  public void setUp(Blackhole blackhole) throws Exception {
+    RxMobius.SubtypeEffectHandlerBuilder<Effect, Integer> builder = RxMobius.subtypeEffectHandler();
+
+    for (int i = 0; i < handlerCount; i++) {
+      addHandler(builder, EFFECT_CLASSES.get(i), blackhole);
+    }
+
+    effects = PublishSubject.create();
+    subscription = effects.compose(builder.build()).subscribe(blackhole::consume);
+    effect = EFFECT_CLASSES.get(handlerCount - 1).newInstance();
+  }
+
+  @Benchmark
+  public void routeEffect() {
+    effects.onNext(effect);
+  }
+
+  @TearDown
+  public void tearDown() {
+    subscription.dispose();
+  }
+
+  private static <G extends Effect> void addHandler(
+      RxMobius.SubtypeEffectHandlerBuilder<Effect, Integer> builder,
+      Class<G> effectClass,
+      Blackhole blackhole) {
+    builder.addConsumer(effectClass, blackhole::consume);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Consumer} that forwards values to an observer on a {@link WorkRunner}, skipping values
+ * that are replaced before the runner gets to them.
+ *
+ * <p>Each accepted value is put in a single slot, replacing any value that hasn't been delivered
+ * yet. Only one delivery is posted to the runner at a time, so a slow observer or a busy runner
+ * doesn't cause an ever-growing queue: the observer simply receives the latest value once it is
+ * ready.
+ *
+ * @param <T> value type, typically a model
+ */
+class ConflatingObserver<T> implements Consumer<T>, Disposable {
+
+  private final Consumer<T> observer;
+  private final WorkRunner runner;
+
+  // concurrency note: null when no delivery is pending. The thread that fills the slot when it is
+  // empty posts a delivery, so at most one delivery is ever posted at a time.
+  private final AtomicReference<T> latest = new AtomicReference<>();
+
+  private final Runnable deliver =
+      new Runnable() {
+        @Override
+        public void run() {
+          deliver();
+        }
+      };
+
+  private volatile boolean disposed;
+
+  ConflatingObserver(Consumer<T> observer, WorkRunner runner) {
+    this.observer = checkNotNull(observer);
+    this.runner = checkNotNull(runner);
+  }
+
+  @Override
+  public void accept(T value) {
+    if (disposed) return;
+
+    if (latest.getAndSet(checkNotNull(value)) == null) {
+      try {
+        runner.post(deliver);
+      } catch (RuntimeException e) {
+        // no delivery is pending after all, so empty the slot for later values to post their own
+        // delivery. A newer value that was stored meanwhile didn't post one, so post it again.
+        T newer = latest.getAndSet(null);
+
+        if (newer != null && newer != value) {
+          accept(newer);
+        }
+
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    latest.set(null);
+  }
+
+  private void deliver() {
+    T value = latest.getAndSet(null);
+
+    if (value != null && !disposed) {
+      observer.accept(value);
+    }
+  }
+}
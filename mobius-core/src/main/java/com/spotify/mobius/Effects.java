@@ -19,6 +19,7 @@
  */
 package com.spotify.mobius;
 
+import com.spotify.mobius.internal_util.IndexedSet;
 import com.spotify.mobius.internal_util.Preconditions;
 import java.util.Collections;
 import java.util.HashSet;
@@ -49,4 +50,25 @@ public final class Effects {
 
     return result;
   }
+
+  /**
+   * Create an immutable, insertion-ordered set of effects. Effects created this way are dispatched
+   * in the order they are supplied, and are never hashed: duplicates are detected using {@link
+   * Object#equals(Object)} only. This makes it a good fit for effects with expensive {@code
+   * hashCode} implementations, such as large value types, as long as there aren't more than a
+   * handful of them per {@link Next} or {@link First}, since every effect is compared with all
+   * previous ones. {@link Next} and {@link First} use the returned set as it is, without copying.
+   *
+   * @return an *immutable* set of effects that iterates in insertion order
+   */
+  @SafeVarargs
+  @Nonnull
+  public static <F, G extends F> Set<F> ordered(G... effects) {
+    Object[] elements = new Object[effects.length];
+    for (int i = 0; i < effects.length; i++) {
+      elements[i] = effects[i];
+    }
+
+    return IndexedSet.adopt(elements);
+  }
 }
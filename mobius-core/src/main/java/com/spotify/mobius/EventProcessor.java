@@ -22,8 +22,11 @@ package com.spotify.mobius;
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.internal_util.IndexedSet;
 import java.util.ArrayList;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Processes events and emits effects and models as a result of that.
@@ -34,6 +37,8 @@ import java.util.List;
  */
 class EventProcessor<M, E, F> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventProcessor.class);
+
   private final MobiusStore<M, E, F> store;
   private final Consumer<F> effectConsumer;
   private final Consumer<M> modelConsumer;
@@ -84,11 +89,55 @@ class EventProcessor<M, E, F> {
     dispatchEffects(next.effects());
   }
 
+  /**
+   * Applies a batch of events in order, dispatching the effects of each event as it is processed,
+   * but emitting only the last model of the batch. An event whose update or effect dispatching
+   * throws is logged and skipped, so that it doesn't take the rest of the batch down with it, just
+   * like it would fail on its own if events weren't batched.
+   */
+  synchronized void updateAll(Iterable<E> events) {
+    if (!initialised) {
+      for (E event : events) {
+        eventsReceivedBeforeInit.add(event);
+      }
+      return;
+    }
+
+    M lastModel = null;
+
+    for (E event : events) {
+      try {
+        Next<M, F> next = store.update(event);
+
+        if (next.hasModel()) {
+          lastModel = next.modelUnsafe();
+        }
+        dispatchEffects(next.effects());
+
+      } catch (Throwable throwable) {
+        LOGGER.error("Exception when processing event in batch: {}", event, throwable);
+      }
+    }
+
+    if (lastModel != null) {
+      dispatchModel(lastModel);
+    }
+  }
+
   private void dispatchModel(M model) {
     modelConsumer.accept(model);
   }
 
   private void dispatchEffects(Iterable<F> effects) {
+    if (effects instanceof IndexedSet) {
+      // avoids allocating an iterator for the most common kinds of effect sets
+      IndexedSet<F> indexedEffects = (IndexedSet<F>) effects;
+      for (int i = 0; i < indexedEffects.size(); i++) {
+        effectConsumer.accept(indexedEffects.get(i));
+      }
+      return;
+    }
+
     for (F effect : effects) {
       effectConsumer.accept(effect);
     }
@@ -26,6 +26,7 @@ import com.spotify.mobius.actors.WorkRunnerActorFactory;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Producer;
+import com.spotify.mobius.mailbox.Mailbox;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
 import java.util.Locale;
@@ -33,6 +34,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class Mobius {
   private Mobius() {
@@ -130,7 +132,10 @@ public final class Mobius {
           public WorkRunner get() {
             return WorkRunners.from(Executors.newCachedThreadPool(Builder.THREAD_FACTORY));
           }
-        }));
+        }),
+        0,
+        null,
+        null);
   }
 
   /**
@@ -148,6 +153,9 @@ public final class Mobius {
   /**
    * Create a {@link MobiusLoop.Controller} that allows you to start, stop, and restart MobiusLoops.
    *
+   * <p>Models are rendered on the supplied runner. If the loop produces models faster than the
+   * runner can render them, intermediate models are skipped and only the latest one is rendered.
+   *
    * @param loopFactory a factory for creating loops
    * @param defaultModel the model the controller should start from
    * @param modelRunner the WorkRunner to use when observing model changes
@@ -169,6 +177,9 @@ public final class Mobius {
     private final ActorFactory eventActorFactory;
     private final ActorFactory effectActorFactory;
     private final MobiusLoop.Logger<M, E, F> logger;
+    private final int eventBatchSize;
+    @Nullable private final Producer<Mailbox<E>> eventMailbox;
+    @Nullable private final MobiusLoop.Monitor<M, E, F> monitor;
 
     private Builder(
         Update<M, E, F> update,
@@ -177,7 +188,10 @@ public final class Mobius {
         EventSource<E> eventSource,
         MobiusLoop.Logger<M, E, F> logger,
         ActorFactory eventActorFactory,
-        ActorFactory effectActorFactory) {
+        ActorFactory effectActorFactory,
+        int eventBatchSize,
+        @Nullable Producer<Mailbox<E>> eventMailbox,
+        @Nullable MobiusLoop.Monitor<M, E, F> monitor) {
       this.update = checkNotNull(update);
       this.effectHandler = checkNotNull(effectHandler);
       this.init = checkNotNull(init);
@@ -185,20 +199,41 @@ public final class Mobius {
       this.eventActorFactory = checkNotNull(eventActorFactory);
       this.effectActorFactory = checkNotNull(effectActorFactory);
       this.logger = checkNotNull(logger);
+      this.eventBatchSize = eventBatchSize;
+      this.eventMailbox = eventMailbox;
+      this.monitor = monitor;
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> init(Init<M, F> init) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventActorFactory, effectActorFactory);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> eventSource(EventSource<E> eventSource) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventActorFactory, effectActorFactory);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
     }
 
     @Nonnull
@@ -207,42 +242,177 @@ public final class Mobius {
         EventSource<E> eventSource, EventSource<E>... eventSources) {
       EventSource<E> mergedSource = MergedEventSource.from(eventSource, eventSources);
       return new Builder<>(
-          update, effectHandler, init, mergedSource, logger, eventActorFactory, effectActorFactory);
+          update,
+          effectHandler,
+          init,
+          mergedSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventActorFactory, effectActorFactory);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> eventRunner(Producer<WorkRunner> eventRunner) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, new WorkRunnerActorFactory(eventRunner), effectActorFactory);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          new WorkRunnerActorFactory(eventRunner),
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventActorFactory, new WorkRunnerActorFactory(effectRunner));
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          new WorkRunnerActorFactory(effectRunner),
+          eventBatchSize,
+          eventMailbox,
+          monitor);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> eventActorFactory(ActorFactory eventActorFactory) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> effectActorFactory(ActorFactory effectActorFactory) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          monitor);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> eventBatchSize(int maxBatchSize) {
+      if (maxBatchSize < 1) {
+        throw new IllegalArgumentException("maxBatchSize must be at least 1, was: " + maxBatchSize);
+      }
+
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          maxBatchSize,
+          eventMailbox,
+          monitor);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> eventMailbox(Producer<Mailbox<E>> eventMailbox) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          checkNotNull(eventMailbox),
+          monitor);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> monitor(MobiusLoop.Monitor<M, E, F> monitor) {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          eventActorFactory,
+          effectActorFactory,
+          eventBatchSize,
+          eventMailbox,
+          checkNotNull(monitor));
     }
 
     @Override
     @Nonnull
     public MobiusLoop<M, E, F> startFrom(M startModel) {
-      LoggingInit<M, F> loggingInit = new LoggingInit<>(init, logger);
-      LoggingUpdate<M, E, F> loggingUpdate = new LoggingUpdate<>(update, logger);
+      Update<M, E, F> update =
+          monitor != null ? new MonitoringUpdate<>(this.update, monitor) : this.update;
+      MobiusStore<M, E, F> store;
+
+      if (logger == NOOP_LOGGER) {
+        // skip the logging wrappers entirely, only reporting exceptions
+        store = MobiusStore.create(init, update, checkNotNull(startModel), logger);
+      } else {
+        store =
+            MobiusStore.create(
+                new LoggingInit<>(init, logger),
+                new LoggingUpdate<>(update, logger),
+                checkNotNull(startModel));
+      }
 
       return MobiusLoop.create(
-          MobiusStore.create(loggingInit, loggingUpdate, checkNotNull(startModel)),
+          store,
           effectHandler,
           eventSource,
           checkNotNull(eventActorFactory),
-          checkNotNull(effectActorFactory));
+          checkNotNull(effectActorFactory),
+          eventBatchSize,
+          eventMailbox != null ? eventMailbox.get() : null,
+          monitor);
     }
 
     private static class MyThreadFactory implements ThreadFactory {
@@ -24,10 +24,10 @@ import com.spotify.mobius.actors.ActorFactory;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Producer;
+import com.spotify.mobius.mailbox.Mailbox;
+import com.spotify.mobius.mailbox.Mailboxes;
 import com.spotify.mobius.runners.WorkRunner;
 
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -45,17 +45,14 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 public class MobiusLoop<M, E, F> implements Disposable {
 
   @Nonnull private final Actor<E> eventDispatcher;
+  @Nullable private final QueuedEventDispatcher<E> queuedEventDispatcher;
   @Nonnull private final Actor<F> effectDispatcher;
 
   @Nonnull private final EventProcessor<M, E, F> eventProcessor;
   @Nonnull private final Connection<F> effectConsumer;
   @Nonnull private final Disposable eventSourceDisposable;
 
-  @Nonnull
-  private final List<Consumer<M>> modelObservers =
-      Collections.synchronizedList(new LinkedList<Consumer<M>>());
-
-  @Nullable private volatile M mostRecentModel;
+  @Nonnull private final ModelObservers<M> modelObservers = new ModelObservers<>();
 
   private volatile boolean disposed;
 
@@ -66,12 +63,49 @@ public class MobiusLoop<M, E, F> implements Disposable {
       ActorFactory eventActorFactory,
       ActorFactory effectActorFactory) {
 
+    return create(
+        store, effectHandler, eventSource, eventActorFactory, effectActorFactory, 0, null);
+  }
+
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      EventSource<E> eventSource,
+      ActorFactory eventActorFactory,
+      ActorFactory effectActorFactory,
+      int eventBatchSize,
+      @Nullable Mailbox<E> eventMailbox) {
+
+    return create(
+        store,
+        effectHandler,
+        eventSource,
+        eventActorFactory,
+        effectActorFactory,
+        eventBatchSize,
+        eventMailbox,
+        null);
+  }
+
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      EventSource<E> eventSource,
+      ActorFactory eventActorFactory,
+      ActorFactory effectActorFactory,
+      int eventBatchSize,
+      @Nullable Mailbox<E> eventMailbox,
+      @Nullable Monitor<M, E, F> monitor) {
+
     return new MobiusLoop<>(
         new EventProcessor.Factory<>(checkNotNull(store)),
         checkNotNull(effectHandler),
         checkNotNull(eventSource),
         checkNotNull(eventActorFactory),
-        checkNotNull(effectActorFactory));
+        checkNotNull(effectActorFactory),
+        eventBatchSize,
+        eventMailbox,
+        monitor);
   }
 
   private MobiusLoop(
@@ -79,7 +113,10 @@ public class MobiusLoop<M, E, F> implements Disposable {
       Connectable<F, E> effectHandler,
       EventSource<E> eventSource,
       ActorFactory eventActorFactory,
-      ActorFactory effectActorFactory) {
+      ActorFactory effectActorFactory,
+      int eventBatchSize,
+      @Nullable Mailbox<E> eventMailbox,
+      @Nullable final Monitor<M, E, F> monitor) {
 
     Consumer<E> onEventReceived =
         new Consumer<E>() {
@@ -89,7 +126,31 @@ public class MobiusLoop<M, E, F> implements Disposable {
           }
         };
 
-    Consumer<F> onEffectReceived =
+    Consumer<List<E>> onEventsReceived;
+
+    if (eventBatchSize > 0) {
+      onEventsReceived =
+          new Consumer<List<E>>() {
+            @Override
+            public void accept(List<E> events) {
+              eventProcessor.updateAll(events);
+            }
+          };
+    } else {
+      // without a batch size, queued events are processed one by one, and fail just like they do
+      // without a mailbox
+      onEventsReceived =
+          new Consumer<List<E>>() {
+            @Override
+            public void accept(List<E> events) {
+              for (E event : events) {
+                eventProcessor.update(event);
+              }
+            }
+          };
+    }
+
+    final Consumer<F> onEffectReceived =
         new Consumer<F>() {
           @Override
           public void accept(F effect) {
@@ -105,17 +166,59 @@ public class MobiusLoop<M, E, F> implements Disposable {
         new Consumer<M>() {
           @Override
           public void accept(M model) {
-            synchronized (modelObservers) {
-              mostRecentModel = model;
-              for (Consumer<M> observer : modelObservers) {
-                observer.accept(model);
-              }
+            if (monitor == null) {
+              modelObservers.emit(model);
+              return;
             }
+
+            long start = System.nanoTime();
+            modelObservers.emit(model);
+            monitor.modelObserved(model, System.nanoTime() - start);
           }
         };
 
-    this.eventDispatcher = eventActorFactory.create(onEventReceived);
-    this.effectDispatcher = effectActorFactory.create(onEffectReceived);
+    // a batch size of 0 means that batching is disabled
+    if (eventBatchSize > 0 || eventMailbox != null) {
+      this.queuedEventDispatcher =
+          new QueuedEventDispatcher<>(
+              eventActorFactory,
+              eventMailbox != null ? eventMailbox : Mailboxes.<E>unbounded(),
+              Math.max(eventBatchSize, 1),
+              onEventsReceived,
+              monitor);
+      this.eventDispatcher = queuedEventDispatcher;
+    } else if (monitor != null) {
+      this.queuedEventDispatcher = null;
+      this.eventDispatcher =
+          new TimestampingActor<>(
+              eventActorFactory,
+              new TimestampingActor.Receiver<E>() {
+                @Override
+                public void receive(E event, long waitNanos, int queueDepth) {
+                  monitor.eventDequeued(event, waitNanos, queueDepth);
+                  eventProcessor.update(event);
+                }
+              });
+    } else {
+      this.queuedEventDispatcher = null;
+      this.eventDispatcher = eventActorFactory.create(onEventReceived);
+    }
+
+    if (monitor != null) {
+      this.effectDispatcher =
+          new TimestampingActor<>(
+              effectActorFactory,
+              new TimestampingActor.Receiver<F>() {
+                @Override
+                public void receive(F effect, long waitNanos, int queueDepth) {
+                  long start = System.nanoTime();
+                  onEffectReceived.accept(effect);
+                  monitor.effectHandled(effect, waitNanos + System.nanoTime() - start);
+                }
+              });
+    } else {
+      this.effectDispatcher = effectActorFactory.create(onEffectReceived);
+    }
 
     this.eventProcessor = eventProcessorFactory.create(effectDispatcher, onModelChanged);
 
@@ -148,9 +251,31 @@ public class MobiusLoop<M, E, F> implements Disposable {
     eventDispatcher.accept(checkNotNull(event));
   }
 
+  /**
+   * Dispatch an event to this loop if that can be done without blocking or throwing. This only
+   * makes a difference for loops with a bounded event mailbox (see {@link
+   * Builder#eventMailbox(Producer)}): if the mailbox is full, the event is rejected instead of
+   * applying the mailbox's overflow policy, unless that policy is to drop the oldest event.
+   *
+   * @return true if the event was accepted, false if it was rejected
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public boolean tryDispatchEvent(E event) {
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot dispatch events after disposal");
+
+    if (queuedEventDispatcher == null) {
+      eventDispatcher.accept(checkNotNull(event));
+      return true;
+    }
+
+    return queuedEventDispatcher.tryAccept(event);
+  }
+
   @Nullable
   public M getMostRecentModel() {
-    return mostRecentModel;
+    return modelObservers.mostRecentModel();
   }
 
   /**
@@ -165,40 +290,63 @@ public class MobiusLoop<M, E, F> implements Disposable {
    * @throws IllegalStateException if the loop has been disposed
    */
   public Disposable observe(final Consumer<M> observer) {
-    synchronized (modelObservers) {
-      if (disposed)
-        throw new IllegalStateException(
-            "This loop has already been disposed. You cannot observe a disposed loop");
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
 
-      modelObservers.add(checkNotNull(observer));
+    // Starts by emitting the most recently received model.
+    Disposable subscription = modelObservers.add(checkNotNull(observer));
 
-      final M currentModel = mostRecentModel;
-      if (currentModel != null) {
-        // Start by emitting the most recently received model.
-        observer.accept(currentModel);
-      }
+    // the loop may have been disposed while the observer was being added, after the observers
+    // were cleared
+    if (disposed) {
+      subscription.dispose();
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
     }
 
+    return subscription;
+  }
+
+  /**
+   * Add an observer of model changes to this loop that is notified on the supplied {@link
+   * WorkRunner}, and only of the latest model.
+   *
+   * <p>Unlike {@link #observe(Consumer)}, models are not delivered one by one: each observer has a
+   * single slot holding the latest model that hasn't been delivered yet, and at most one delivery
+   * is posted to the runner at a time. If the loop produces models faster than the runner can
+   * deliver them, intermediate models are skipped, which is usually what a renderer wants. Apart
+   * from that, it behaves like {@link #observe(Consumer)}, including being notified of the most
+   * recent model, if any.
+   *
+   * @param observer a non-null observer of model changes
+   * @param runner the runner on which to notify the observer
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the observer or runner is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public Disposable observeLatest(Consumer<M> observer, WorkRunner runner) {
+    final ConflatingObserver<M> conflatingObserver = new ConflatingObserver<>(observer, runner);
+    final Disposable subscription = observe(conflatingObserver);
+
     return new Disposable() {
       @Override
       public void dispose() {
-        synchronized (modelObservers) {
-          modelObservers.remove(observer);
-        }
+        subscription.dispose();
+        conflatingObserver.dispose();
       }
     };
   }
 
   @Override
   public void dispose() {
-    synchronized (modelObservers) {
-      eventDispatcher.dispose();
-      effectDispatcher.dispose();
-      effectConsumer.dispose();
-      eventSourceDisposable.dispose();
-      modelObservers.clear();
-      disposed = true;
-    }
+    disposed = true;
+
+    eventDispatcher.dispose();
+    effectDispatcher.dispose();
+    effectConsumer.dispose();
+    eventSourceDisposable.dispose();
+    modelObservers.clear();
   }
 
   /**
@@ -254,6 +402,71 @@ public class MobiusLoop<M, E, F> implements Disposable {
      */
     @Nonnull
     Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner);
+
+    /**
+     * @return a new {@link Builder} with the supplied event actor factory, and the same values as
+     *     the current one for the other fields. This replaces any event runner set using {@link
+     *     #eventRunner(Producer)}. Unlike an event runner, an actor factory may be shared between
+     *     loops, for instance to let many loops process their events on one bounded thread pool
+     *     using a {@link com.spotify.mobius.actors.SerialExecutorActorFactory}.
+     */
+    @Nonnull
+    Builder<M, E, F> eventActorFactory(ActorFactory eventActorFactory);
+
+    /**
+     * @return a new {@link Builder} with the supplied effect actor factory, and the same values as
+     *     the current one for the other fields. This replaces any effect runner set using {@link
+     *     #effectRunner(Producer)}. Like an event actor factory, it may be shared between loops,
+     *     for instance to bound the number of threads used for effects by all loops using a {@link
+     *     com.spotify.mobius.actors.BoundedExecutorActorFactory}.
+     */
+    @Nonnull
+    Builder<M, E, F> effectActorFactory(ActorFactory effectActorFactory);
+
+    /**
+     * Process events in batches. Every time the event actor runs, it takes all queued events, up to
+     * {@code maxBatchSize}, and passes them through the update function one after the other.
+     * Effects are dispatched in order as each event is processed, but observers are only notified
+     * of the last model of the batch. This reduces the per-event overhead when events arrive in
+     * bursts, at the cost of observers not seeing intermediate models. An event whose processing
+     * throws an exception is logged and skipped, so that the rest of its batch is still processed.
+     *
+     * @return a new {@link Builder} that processes events in batches of up to {@code maxBatchSize},
+     *     and the same values as the current one for the other fields.
+     * @throws IllegalArgumentException if maxBatchSize is less than 1
+     */
+    @Nonnull
+    Builder<M, E, F> eventBatchSize(int maxBatchSize);
+
+    /**
+     * Queue events in a mailbox created by the supplied producer, one per loop. By default, events
+     * are queued without limit; a bounded mailbox (see {@link
+     * com.spotify.mobius.mailbox.Mailboxes#bounded}) protects the loop against event sources that
+     * produce events faster than they can be processed. When the mailbox is full, its overflow
+     * policy decides whether {@link MobiusLoop#dispatchEvent(Object)} blocks, discards an event, or
+     * throws. Unless a batch size is also set (see {@link #eventBatchSize(int)}), queued events are
+     * processed one at a time, just like without a mailbox.
+     *
+     * <p>Don't use {@link com.spotify.mobius.mailbox.OverflowPolicy#BLOCK} if events may be
+     * dispatched from the event thread, for instance by an effect handler running on an immediate
+     * effect runner, since the event thread would then wait for itself.
+     *
+     * @return a new {@link Builder} with the supplied event mailbox producer, and the same values
+     *     as the current one for the other fields.
+     */
+    @Nonnull
+    Builder<M, E, F> eventMailbox(Producer<Mailbox<E>> eventMailbox);
+
+    /**
+     * Report timings and queue depths of the loop to the supplied monitor. See {@link
+     * com.spotify.mobius.monitoring.HistogramMonitor} for a monitor that records them in
+     * histograms. Loops without a monitor don't measure anything.
+     *
+     * @return a new {@link Builder} with the supplied monitor, and the same values as the current
+     *     one for the other fields.
+     */
+    @Nonnull
+    Builder<M, E, F> monitor(Monitor<M, E, F> monitor);
   }
 
   public interface Factory<M, E, F> {
@@ -403,4 +616,55 @@ public class MobiusLoop<M, E, F> implements Disposable {
      */
     void exceptionDuringUpdate(M model, E event, Throwable exception);
   }
+
+  /**
+   * Receives measurements of what a loop spends its time on. All durations are in nanoseconds.
+   *
+   * <p>Methods are called on the threads where the measured work happens, and mustn't block, as
+   * that would hinder the loop from running.
+   */
+  public interface Monitor<M, E, F> {
+
+    /**
+     * Called when an event is taken from the loop's event queue to be processed.
+     *
+     * <p>If the loop has an event mailbox (see {@link Builder#eventMailbox(Producer)}) or processes
+     * events in batches, events aren't timestamped individually, and the wait is measured from the
+     * moment the queue stopped being empty. That is an upper bound of the actual wait.
+     *
+     * @param event the event that is about to be processed
+     * @param waitNanos how long the event waited in the queue
+     * @param queueDepth the number of events left in the queue
+     */
+    void eventDequeued(E event, long waitNanos, int queueDepth);
+
+    /**
+     * Called after the {@link Update#update(Object, Object)} function returns.
+     *
+     * @param event the event that was passed to update
+     * @param durationNanos how long the update function ran
+     */
+    void updateCompleted(E event, long durationNanos);
+
+    /**
+     * Called after the effect handler has accepted an effect.
+     *
+     * <p>The latency is measured from the moment the effect was dispatched, so it includes the time
+     * the effect waited for the effect runner. Effect handlers that emit their resulting events
+     * before returning from {@link Connection#accept(Object)} have those events included in the
+     * latency; events that are emitted asynchronously can't be attributed to an effect.
+     *
+     * @param effect the effect that was handled
+     * @param latencyNanos the time from dispatching the effect until the effect handler returned
+     */
+    void effectHandled(F effect, long latencyNanos);
+
+    /**
+     * Called after all observers of the loop have been notified of a new model.
+     *
+     * @param model the new model
+     * @param fanOutNanos how long it took to notify all observers
+     */
+    void modelObserved(M model, long fanOutNanos);
+  }
 }
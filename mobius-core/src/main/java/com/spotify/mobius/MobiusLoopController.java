@@ -31,7 +31,7 @@ class MobiusLoopController<M, E, F>
 
   private final MobiusLoop.Factory<M, E, F> loopFactory;
   private final M defaultModel;
-  private final WorkRunner mainThreadRunner;
+  private final ConflatingObserver<M> viewUpdater;
 
   private ControllerStateBase<M, E> currentState;
 
@@ -40,7 +40,15 @@ class MobiusLoopController<M, E, F>
 
     this.loopFactory = checkNotNull(loopFactory);
     this.defaultModel = checkNotNull(defaultModel);
-    this.mainThreadRunner = checkNotNull(mainThreadRunner);
+    this.viewUpdater =
+        new ConflatingObserver<>(
+            new Consumer<M>() {
+              @Override
+              public void accept(M model) {
+                updateView(model);
+              }
+            },
+            checkNotNull(mainThreadRunner));
     goToStateInit(defaultModel);
   }
 
@@ -89,14 +97,12 @@ class MobiusLoopController<M, E, F>
     return currentState.onGetModel();
   }
 
-  public void postUpdateView(final M model) {
-    mainThreadRunner.post(
-        new Runnable() {
-          @Override
-          public void run() {
-            updateView(model);
-          }
-        });
+  /**
+   * Post a model to be rendered on the main thread runner. Models are conflated: if a model is
+   * posted before the previous one has been rendered, only the latest is rendered.
+   */
+  public void postUpdateView(M model) {
+    viewUpdater.accept(model);
   }
 
   @Override
@@ -21,38 +21,81 @@ package com.spotify.mobius;
 
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
+import com.spotify.mobius.internal_util.Throwables;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
-/** Responsible for holding and updating the current model. */
+/**
+ * Responsible for holding and updating the current model.
+ *
+ * <p>If an exception logger is supplied, exceptions thrown by {@link Init} and {@link Update} are
+ * reported to it before being propagated. This lets a loop without a logger report errors without
+ * having to wrap its init and update functions.
+ */
 class MobiusStore<M, E, F> {
 
   @Nonnull private final Init<M, F> init;
   @Nonnull private final Update<M, E, F> update;
+  @Nullable private final MobiusLoop.Logger<M, E, F> exceptionLogger;
 
   @Nonnull private volatile M currentModel;
 
-  private MobiusStore(Init<M, F> init, Update<M, E, F> update, M startModel) {
+  private MobiusStore(
+      Init<M, F> init,
+      Update<M, E, F> update,
+      M startModel,
+      @Nullable MobiusLoop.Logger<M, E, F> exceptionLogger) {
     this.init = checkNotNull(init);
     this.update = checkNotNull(update);
     this.currentModel = checkNotNull(startModel);
+    this.exceptionLogger = exceptionLogger;
   }
 
   @Nonnull
   public static <M, E, F> MobiusStore<M, E, F> create(
       Init<M, F> init, Update<M, E, F> update, M startModel) {
-    return new MobiusStore<>(init, update, startModel);
+    return new MobiusStore<>(init, update, startModel, null);
+  }
+
+  @Nonnull
+  static <M, E, F> MobiusStore<M, E, F> create(
+      Init<M, F> init,
+      Update<M, E, F> update,
+      M startModel,
+      MobiusLoop.Logger<M, E, F> exceptionLogger) {
+    return new MobiusStore<>(init, update, startModel, checkNotNull(exceptionLogger));
   }
 
   @Nonnull
   synchronized First<M, F> init() {
-    First<M, F> first = init.init(currentModel);
+    First<M, F> first;
+    try {
+      first = init.init(currentModel);
+    } catch (Exception e) {
+      if (exceptionLogger != null) {
+        exceptionLogger.exceptionDuringInit(currentModel, e);
+      }
+      throw Throwables.propagate(e);
+    }
+
     currentModel = first.model();
     return first;
   }
 
   @Nonnull
   synchronized Next<M, F> update(E event) {
-    Next<M, F> next = update.update(currentModel, checkNotNull(event));
+    checkNotNull(event);
+
+    Next<M, F> next;
+    try {
+      next = update.update(currentModel, event);
+    } catch (Exception e) {
+      if (exceptionLogger != null) {
+        exceptionLogger.exceptionDuringUpdate(currentModel, event, e);
+      }
+      throw Throwables.propagate(e);
+    }
+
     currentModel = next.modelOrElse(currentModel);
     return next;
   }
@@ -0,0 +1,176 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A registry of model observers that notifies them without holding any lock.
+ *
+ * <p>Observers are kept in a copy-on-write list, so adding and removing observers never blocks an
+ * emission, and an emission never blocks adding or removing observers. Each observer is wrapped in
+ * a subscription that serialises the calls to it: the most recent model emitted when the observer
+ * is added and any models emitted concurrently are delivered one at a time, in order, and a model
+ * is never delivered after a newer one.
+ *
+ * <p>Models must be emitted by one thread at a time, which is guaranteed by the {@link
+ * EventProcessor}.
+ *
+ * @param <M> model type
+ */
+class ModelObservers<M> {
+
+  private final List<Subscription<M>> subscriptions = new CopyOnWriteArrayList<>();
+
+  @Nullable private volatile VersionedModel<M> mostRecent;
+
+  /** Notify all current observers of a new model. */
+  void emit(M model) {
+    VersionedModel<M> previous = mostRecent;
+    VersionedModel<M> current =
+        new VersionedModel<>(checkNotNull(model), previous == null ? 1 : previous.version + 1);
+
+    mostRecent = current;
+
+    for (Subscription<M> subscription : subscriptions) {
+      subscription.deliver(current);
+    }
+  }
+
+  /**
+   * Add an observer, and immediately notify it of the most recently emitted model, if any.
+   *
+   * @return a {@link Disposable} that removes the observer
+   */
+  Disposable add(Consumer<M> observer) {
+    final Subscription<M> subscription = new Subscription<>(checkNotNull(observer));
+
+    // register before reading the most recent model, so that any model emitted after the read is
+    // guaranteed to reach the subscription too
+    subscriptions.add(subscription);
+
+    VersionedModel<M> current = mostRecent;
+    if (current != null) {
+      subscription.deliver(current);
+    }
+
+    return new Disposable() {
+      @Override
+      public void dispose() {
+        subscription.dispose();
+        subscriptions.remove(subscription);
+      }
+    };
+  }
+
+  /** Remove all observers. */
+  void clear() {
+    for (Subscription<M> subscription : subscriptions) {
+      subscription.dispose();
+    }
+    subscriptions.clear();
+  }
+
+  @Nullable
+  M mostRecentModel() {
+    VersionedModel<M> current = mostRecent;
+    return current == null ? null : current.model;
+  }
+
+  private static final class VersionedModel<M> {
+    private final M model;
+    private final long version;
+
+    private VersionedModel(M model, long version) {
+      this.model = model;
+      this.version = version;
+    }
+  }
+
+  private static final class Subscription<M> implements Disposable {
+
+    private final Consumer<M> observer;
+    private final Queue<VersionedModel<M>> queue = new ConcurrentLinkedQueue<>();
+
+    // concurrency note: the thread that increments this from 0 delivers the queued models, until it
+    // has delivered as many as it and other threads have queued. Delivery is therefore serialised
+    // without blocking, and 'lastDeliveredVersion' is only accessed by the delivering thread.
+    private final AtomicInteger wip = new AtomicInteger();
+    private long lastDeliveredVersion;
+
+    private volatile boolean disposed;
+
+    private Subscription(Consumer<M> observer) {
+      this.observer = observer;
+    }
+
+    void deliver(VersionedModel<M> model) {
+      if (disposed) return;
+
+      queue.offer(model);
+
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      Throwable failure = null;
+
+      do {
+        VersionedModel<M> next = queue.poll();
+
+        // skip models that are older than one already delivered; this happens when the model read
+        // while adding the observer is queued after a newer one emitted concurrently
+        if (disposed || next.version <= lastDeliveredVersion) {
+          continue;
+        }
+
+        lastDeliveredVersion = next.version;
+
+        try {
+          observer.accept(next.model);
+        } catch (RuntimeException | Error e) {
+          if (failure == null) {
+            failure = e;
+          }
+        }
+      } while (wip.decrementAndGet() != 0);
+
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure != null) {
+        throw (Error) failure;
+      }
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+    }
+  }
+}
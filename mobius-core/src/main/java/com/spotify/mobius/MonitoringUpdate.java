@@ -0,0 +1,44 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import javax.annotation.Nonnull;
+
+class MonitoringUpdate<M, E, F> implements Update<M, E, F> {
+
+  private final Update<M, E, F> actualUpdate;
+  private final MobiusLoop.Monitor<M, E, F> monitor;
+
+  MonitoringUpdate(Update<M, E, F> actualUpdate, MobiusLoop.Monitor<M, E, F> monitor) {
+    this.actualUpdate = checkNotNull(actualUpdate);
+    this.monitor = checkNotNull(monitor);
+  }
+
+  @Nonnull
+  @Override
+  public Next<M, F> update(M model, E event) {
+    long start = System.nanoTime();
+    Next<M, F> result = actualUpdate.update(model, event);
+    monitor.updateCompleted(event, System.nanoTime() - start);
+    return result;
+  }
+}
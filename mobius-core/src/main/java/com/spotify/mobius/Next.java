@@ -39,6 +39,9 @@ import javax.annotation.Nullable;
 @AutoValue
 public abstract class Next<M, F> {
 
+  private static final Next<Object, Object> NO_CHANGE =
+      new AutoValue_Next<>(null, ImmutableUtil.emptySet());
+
   protected Next() {}
 
   /** Get the model of this Next, if it has one. Might return null. */
@@ -53,7 +56,9 @@ public abstract class Next<M, F> {
   /**
    * Get the effects of this Next.
    *
-   * <p>Will return an empty set if there are no effects.
+   * <p>Will return an empty set if there are no effects. The effects are dispatched in the
+   * iteration order of this set, which is insertion order if it was created using {@link
+   * Effects#ordered}.
    */
   @Nonnull
   public abstract Set<F> effects();
@@ -127,7 +132,9 @@ public abstract class Next<M, F> {
 
   /** Create an empty Next that doesn't update the model or dispatch effects. */
   @Nonnull
+  @SuppressWarnings("unchecked")
   public static <M, F> Next<M, F> noChange() {
-    return new AutoValue_Next<>(null, ImmutableUtil.<F>emptySet());
+    // safe since the instance has neither a model nor effects
+    return (Next<M, F>) NO_CHANGE;
   }
 }
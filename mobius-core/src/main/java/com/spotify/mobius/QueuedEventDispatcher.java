@@ -0,0 +1,156 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.actors.Actor;
+import com.spotify.mobius.actors.ActorFactory;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.mailbox.Mailbox;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link Actor} for events that queues them in a {@link Mailbox} and hands them over in batches.
+ *
+ * <p>Instead of posting one message per event to the underlying actor, this posts a single drain
+ * request whenever the mailbox goes from empty to non-empty. The drain takes everything that is
+ * queued at that point, up to {@code maxBatchSize} events, and passes it to the batch consumer in
+ * one call. If more events are left after that, another drain is requested.
+ *
+ * @param <E> the event type
+ */
+class QueuedEventDispatcher<E> implements Actor<E> {
+
+  private static final Object DRAIN = new Object();
+
+  private final int maxBatchSize;
+  private final Consumer<List<E>> batchConsumer;
+  private final Actor<Object> drainActor;
+
+  private final Mailbox<E> mailbox;
+  @Nullable private final MobiusLoop.Monitor<?, E, ?> monitor;
+
+  // concurrency note: counts events that have been accepted by the mailbox but not yet drained.
+  // Events are always added to the mailbox before being counted. A mailbox may evict or coalesce
+  // events after they were counted, so a drain may find fewer events than 'pending' says, but never
+  // more than have been counted in total.
+  private final AtomicInteger pending = new AtomicInteger();
+
+  // when 'pending' last went from 0 to 1; every pending event was added after this
+  private volatile long nonEmptySinceNanos;
+
+  QueuedEventDispatcher(
+      ActorFactory actorFactory,
+      Mailbox<E> mailbox,
+      int maxBatchSize,
+      Consumer<List<E>> batchConsumer,
+      @Nullable MobiusLoop.Monitor<?, E, ?> monitor) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1, was: " + maxBatchSize);
+    }
+
+    this.mailbox = checkNotNull(mailbox);
+    this.maxBatchSize = maxBatchSize;
+    this.batchConsumer = checkNotNull(batchConsumer);
+    this.monitor = monitor;
+    this.drainActor =
+        actorFactory.create(
+            new Consumer<Object>() {
+              @Override
+              public void accept(Object value) {
+                drain();
+              }
+            });
+  }
+
+  /**
+   * Put an event in the mailbox, applying its overflow policy if it is full. This may block, throw
+   * or discard the event.
+   */
+  @Override
+  public void accept(E event) {
+    if (mailbox.put(checkNotNull(event))) {
+      onEventAdded();
+    }
+  }
+
+  /**
+   * Put an event in the mailbox if that can be done without blocking or throwing.
+   *
+   * @return true if the event was accepted
+   */
+  boolean tryAccept(E event) {
+    if (!mailbox.offer(checkNotNull(event))) {
+      return false;
+    }
+
+    onEventAdded();
+    return true;
+  }
+
+  @Override
+  public void dispose() {
+    drainActor.dispose();
+    mailbox.clear();
+  }
+
+  private void onEventAdded() {
+    if (pending.getAndIncrement() == 0) {
+      if (monitor != null) {
+        nonEmptySinceNanos = System.nanoTime();
+      }
+      drainActor.accept(DRAIN);
+    }
+  }
+
+  private void drain() {
+    int batchSize = Math.min(pending.get(), maxBatchSize);
+    List<E> batch = new ArrayList<>(batchSize);
+    long nonEmptySince = nonEmptySinceNanos;
+
+    for (int i = 0; i < batchSize; i++) {
+      E event = mailbox.poll();
+
+      // the mailbox has evicted or coalesced some of the counted events
+      if (event == null) {
+        break;
+      }
+
+      batch.add(event);
+
+      if (monitor != null) {
+        monitor.eventDequeued(event, System.nanoTime() - nonEmptySince, mailbox.size());
+      }
+    }
+
+    try {
+      batchConsumer.accept(batch);
+
+    } finally {
+      if (pending.addAndGet(-batchSize) > 0) {
+        drainActor.accept(DRAIN);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.actors.Actor;
+import com.spotify.mobius.actors.ActorFactory;
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Actor} that records when each message was sent to it, so that the receiver can find out
+ * how long the message waited before it was processed, and how many messages were still waiting at
+ * that point.
+ *
+ * @param <T> message type
+ */
+class TimestampingActor<T> implements Actor<T> {
+
+  interface Receiver<T> {
+    void receive(T message, long waitNanos, int queueDepth);
+  }
+
+  private final Actor<Timestamped<T>> actor;
+  private final AtomicInteger queueDepth = new AtomicInteger();
+
+  TimestampingActor(ActorFactory actorFactory, final Receiver<T> receiver) {
+    checkNotNull(receiver);
+
+    this.actor =
+        actorFactory.create(
+            new Consumer<Timestamped<T>>() {
+              @Override
+              public void accept(Timestamped<T> timestamped) {
+                receiver.receive(
+                    timestamped.message,
+                    System.nanoTime() - timestamped.sentNanos,
+                    queueDepth.decrementAndGet());
+              }
+            });
+  }
+
+  @Override
+  public void accept(T message) {
+    queueDepth.incrementAndGet();
+    actor.accept(new Timestamped<>(checkNotNull(message), System.nanoTime()));
+  }
+
+  @Override
+  public void dispose() {
+    actor.dispose();
+  }
+
+  private static final class Timestamped<T> {
+    private final T message;
+    private final long sentNanos;
+
+    private Timestamped(T message, long sentNanos) {
+      this.message = message;
+      this.sentNanos = sentNanos;
+    }
+  }
+}
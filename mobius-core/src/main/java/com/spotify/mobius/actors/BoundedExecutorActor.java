@@ -0,0 +1,181 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.actors.BoundedExecutorActorFactory.RejectionPolicy;
+import com.spotify.mobius.functions.Consumer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link Actor} that consumes messages concurrently on a shared {@link Executor}, with at most
+ * {@code maxConcurrency} messages in flight at a time.
+ *
+ * @param <T> message type (typically an effect descriptor type)
+ */
+class BoundedExecutorActor<T> implements Actor<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BoundedExecutorActor.class);
+
+  @Nonnull private final Executor executor;
+  @Nonnull private final Consumer<T> consumer;
+  private final int maxConcurrency;
+  @Nonnull private final RejectionPolicy rejectionPolicy;
+  @Nonnull private final AtomicInteger activeCount;
+  @Nonnull private final AtomicInteger queuedCount;
+
+  private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+  // concurrency note: the number of permits taken, i.e. messages submitted to the executor and not
+  // yet consumed. Never exceeds maxConcurrency. Messages run by the caller don't take a permit.
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile boolean disposed;
+
+  BoundedExecutorActor(
+      Executor executor,
+      Consumer<T> consumer,
+      int maxConcurrency,
+      RejectionPolicy rejectionPolicy,
+      AtomicInteger activeCount,
+      AtomicInteger queuedCount) {
+    this.executor = checkNotNull(executor);
+    this.consumer = checkNotNull(consumer);
+    this.maxConcurrency = maxConcurrency;
+    this.rejectionPolicy = checkNotNull(rejectionPolicy);
+    this.activeCount = checkNotNull(activeCount);
+    this.queuedCount = checkNotNull(queuedCount);
+  }
+
+  @Override
+  public void accept(T message) {
+    checkNotNull(message);
+
+    if (disposed) return;
+
+    if (tryAcquire()) {
+      submit(message);
+      return;
+    }
+
+    switch (rejectionPolicy) {
+      case CALLER_RUNS:
+        consume(message);
+        break;
+
+      case QUEUE:
+        queue.offer(message);
+        queuedCount.incrementAndGet();
+        // a permit may have been released after the tryAcquire above
+        submitQueued();
+        break;
+
+      case FAIL:
+        throw new ConnectionException(
+            message,
+            new RejectedExecutionException(
+                "Effect quota of " + maxConcurrency + " concurrent effects used up"));
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+
+    while (queue.poll() != null) {
+      queuedCount.decrementAndGet();
+    }
+  }
+
+  private boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+
+      if (current >= maxConcurrency) {
+        return false;
+      }
+
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void submitQueued() {
+    while (!disposed && !queue.isEmpty() && tryAcquire()) {
+      T message = queue.poll();
+
+      if (message == null) {
+        // another thread took the message after our isEmpty check; retry
+        inFlight.decrementAndGet();
+        continue;
+      }
+
+      queuedCount.decrementAndGet();
+      submit(message);
+    }
+  }
+
+  private void submit(final T message) {
+    try {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                if (!disposed) {
+                  consume(message);
+                }
+              } finally {
+                inFlight.decrementAndGet();
+                submitQueued();
+              }
+            }
+          });
+
+    } catch (RejectedExecutionException e) {
+      inFlight.decrementAndGet();
+      LOGGER.error("Executor rejected task; discarding message: {}", message, e);
+    }
+  }
+
+  private void consume(T message) {
+    activeCount.incrementAndGet();
+
+    try {
+      consumer.accept(message);
+
+    } catch (Throwable throwable) {
+      LOGGER.error("Consumer threw an exception when accepting message: {}", message, throwable);
+
+    } finally {
+      activeCount.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link ActorFactory} for effects that runs them on a shared, bounded {@link Executor}, while
+ * limiting how many effects each actor may have in flight at the same time.
+ *
+ * <p>Use this instead of the default per-loop cached thread pool when running many loops, or loops
+ * whose effects may be slow: the number of threads is bounded by the executor, and the per-actor
+ * quota prevents a single loop from occupying all of them. What happens to an effect that arrives
+ * when its actor's quota is used up is decided by the {@link RejectionPolicy}.
+ *
+ * <p>The executor is not owned by the factory, and should be sized and shut down by the caller. It
+ * should not reject tasks; if it does, the effect is logged and discarded.
+ */
+public class BoundedExecutorActorFactory implements ActorFactory {
+
+  /** Decides what to do with an effect that arrives when its actor's quota is used up. */
+  public enum RejectionPolicy {
+    /** Run the effect on the thread that dispatched it, typically the loop's event thread. */
+    CALLER_RUNS,
+
+    /** Queue the effect, and run it on the executor as soon as the actor is below its quota. */
+    QUEUE,
+
+    /**
+     * Throw a {@link com.spotify.mobius.ConnectionException} wrapping a {@link
+     * java.util.concurrent.RejectedExecutionException} from the dispatching thread.
+     */
+    FAIL
+  }
+
+  private final Executor executor;
+  private final int maxConcurrency;
+  private final RejectionPolicy rejectionPolicy;
+
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final AtomicInteger queuedCount = new AtomicInteger();
+
+  /**
+   * @param executor the executor shared by all actors created by this factory
+   * @param maxConcurrency the maximum number of effects each actor may run at the same time
+   * @param rejectionPolicy what to do with effects that arrive when an actor is at its quota
+   */
+  public BoundedExecutorActorFactory(
+      Executor executor, int maxConcurrency, RejectionPolicy rejectionPolicy) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException(
+          "maxConcurrency must be at least 1, was: " + maxConcurrency);
+    }
+
+    this.executor = checkNotNull(executor);
+    this.maxConcurrency = maxConcurrency;
+    this.rejectionPolicy = checkNotNull(rejectionPolicy);
+  }
+
+  @Override
+  public <T> Actor<T> create(Consumer<T> consumer) {
+    return new BoundedExecutorActor<>(
+        executor, consumer, maxConcurrency, rejectionPolicy, activeCount, queuedCount);
+  }
+
+  /** @return the number of effects currently running, across all actors of this factory */
+  public int activeCount() {
+    return activeCount.get();
+  }
+
+  /**
+   * @return the number of effects currently waiting for their actor to get below its quota, across
+   *     all actors of this factory
+   */
+  public int queuedCount() {
+    return queuedCount.get();
+  }
+}
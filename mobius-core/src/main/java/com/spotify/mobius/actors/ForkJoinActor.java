@@ -0,0 +1,57 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link SerialExecutorActor} that drains its mailbox in tasks on a {@link ForkJoinPool}.
+ *
+ * <p>Drain tasks scheduled from a worker thread of the pool are pushed onto that worker's own
+ * queue, where idle workers can steal them, so a few busy actors don't keep work piled up on
+ * threads that are already saturated.
+ *
+ * @param <T> message type (typically a model, event, or effect descriptor type)
+ */
+class ForkJoinActor<T> extends SerialExecutorActor<T> {
+
+  @Nonnull private final ForkJoinPool pool;
+
+  ForkJoinActor(ForkJoinPool pool, Consumer<T> consumer, int throughput) {
+    super(pool, consumer, throughput);
+    this.pool = pool;
+  }
+
+  @Override
+  void execute(Runnable drain) {
+    // ForkJoinTask.getPool() returns the pool of the current thread, if it is a worker thread. A
+    // new task is adapted for every drain, since a ForkJoinTask can't be forked again until it has
+    // completed.
+    if (ForkJoinTask.getPool() == pool) {
+      ForkJoinTask.adapt(drain).fork();
+      return;
+    }
+
+    pool.execute(drain);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An {@link ActorFactory} that creates actors draining their messages on a shared, work-stealing
+ * {@link ForkJoinPool}.
+ *
+ * <p>Like a {@link SerialExecutorActorFactory}, it lets a large number of loops share a bounded
+ * number of threads while each loop still processes one event at a time. The difference is in how
+ * work is spread: every worker thread has its own queue of drain tasks, and idle workers steal
+ * tasks from busy ones. When the load is skewed towards a few hot loops, the other loops' work
+ * moves to idle workers instead of waiting behind the hot loops.
+ *
+ * <p>The pool must be in async mode, so that each worker runs its queued tasks in FIFO order:
+ *
+ * <pre>{@code
+ * new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true)
+ * }</pre>
+ *
+ * Its lifecycle is managed by the caller.
+ *
+ * <p>{@link ForkJoinPool} is only available on Android from API level 21, so unlike the rest of
+ * this package, this factory can't be used in apps whose minSdkVersion is lower than that.
+ */
+public class ForkJoinActorFactory implements ActorFactory {
+
+  private final ForkJoinPool pool;
+  private final int throughput;
+
+  public ForkJoinActorFactory(ForkJoinPool pool) {
+    this(pool, SerialExecutorActorFactory.DEFAULT_THROUGHPUT);
+  }
+
+  /**
+   * @param pool an async mode pool shared by all actors created by this factory
+   * @param throughput the number of messages an actor consumes before yielding its thread
+   * @throws IllegalArgumentException if the pool isn't in async mode, or the throughput is less
+   *     than 1
+   */
+  public ForkJoinActorFactory(ForkJoinPool pool, int throughput) {
+    if (!checkNotNull(pool).getAsyncMode()) {
+      throw new IllegalArgumentException(
+          "pool must be in async mode, otherwise a yielding actor is resumed immediately");
+    }
+    if (throughput < 1) {
+      throw new IllegalArgumentException("throughput must be at least 1, was: " + throughput);
+    }
+
+    this.pool = pool;
+    this.throughput = throughput;
+  }
+
+  @Override
+  public <T> Actor<T> create(Consumer<T> consumer) {
+    return new ForkJoinActor<>(pool, consumer, throughput);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link Actor} that queues messages in a lock-free mailbox and drains them on an {@link
+ * Executor} that may be shared with many other actors.
+ *
+ * <p>At most one drain task per actor is ever scheduled on the executor, so messages are consumed
+ * one at a time and in the order they were accepted, no matter how many threads the executor has.
+ * To avoid monopolising a shared thread, a drain task hands the thread back to the executor after
+ * consuming {@code throughput} messages and reschedules itself if there are more messages waiting.
+ *
+ * <p>The executor is not owned by the actor; disposing of the actor discards any queued messages
+ * but leaves the executor running.
+ *
+ * @param <T> message type (typically a model, event, or effect descriptor type)
+ */
+public class SerialExecutorActor<T> implements Actor<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SerialExecutorActor.class);
+
+  @Nonnull private final Executor executor;
+  @Nonnull private final Consumer<T> consumer;
+  private final int throughput;
+
+  private final Queue<T> mailbox = new ConcurrentLinkedQueue<>();
+
+  // concurrency note: incremented after a message has been added to the mailbox, and decremented
+  // after it has been consumed. The thread that moves it away from zero is responsible for
+  // scheduling a drain, which guarantees that only one drain is ever in progress.
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final Runnable drain =
+      new Runnable() {
+        @Override
+        public void run() {
+          drain();
+        }
+      };
+
+  private volatile boolean disposed;
+
+  public SerialExecutorActor(Executor executor, Consumer<T> consumer, int throughput) {
+    if (throughput < 1) {
+      throw new IllegalArgumentException("throughput must be at least 1, was: " + throughput);
+    }
+
+    this.executor = checkNotNull(executor);
+    this.consumer = checkNotNull(consumer);
+    this.throughput = throughput;
+  }
+
+  @Override
+  public void accept(T message) {
+    if (disposed) return;
+
+    mailbox.offer(checkNotNull(message));
+
+    if (pending.getAndIncrement() == 0) {
+      schedule();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    mailbox.clear();
+  }
+
+  /**
+   * Submit a drain task to the executor. Subclasses in this package override this to submit it in a
+   * way that suits their executor better; the task must be run exactly once, unless a {@link
+   * RejectedExecutionException} is thrown.
+   */
+  void execute(Runnable drain) {
+    executor.execute(drain);
+  }
+
+  private void schedule() {
+    try {
+      execute(drain);
+    } catch (RejectedExecutionException e) {
+      LOGGER.error(
+          "Executor rejected drain task; discarding {} queued messages", mailbox.size(), e);
+      dispose();
+    }
+  }
+
+  private void drain() {
+    for (int consumed = 0; consumed < throughput; consumed++) {
+      if (disposed) return;
+
+      // a message is always added to the mailbox before it is counted as pending, so this is only
+      // null if a concurrent dispose() has cleared the mailbox
+      T message = mailbox.poll();
+      if (message == null) return;
+
+      try {
+        consumer.accept(message);
+
+      } catch (Throwable throwable) {
+        LOGGER.error("Consumer threw an exception when accepting message: {}", message, throwable);
+      }
+
+      if (pending.decrementAndGet() == 0) {
+        return;
+      }
+    }
+
+    schedule();
+  }
+}
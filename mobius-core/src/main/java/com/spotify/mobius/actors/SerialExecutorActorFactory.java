@@ -0,0 +1,62 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link ActorFactory} that creates {@link SerialExecutorActor}s sharing a single {@link
+ * Executor}.
+ *
+ * <p>Use this instead of a {@link WorkRunnerActorFactory} with a single-thread executor per loop
+ * when running a large number of loops: each loop still processes one event at a time, but all of
+ * them share the threads of the supplied executor. The executor should be bounded, for instance one
+ * created by {@link java.util.concurrent.Executors#newFixedThreadPool(int)}, and its lifecycle is
+ * managed by the caller.
+ */
+public class SerialExecutorActorFactory implements ActorFactory {
+
+  /** The default number of messages an actor consumes before yielding its thread. */
+  public static final int DEFAULT_THROUGHPUT = 64;
+
+  private final Executor executor;
+  private final int throughput;
+
+  public SerialExecutorActorFactory(Executor executor) {
+    this(executor, DEFAULT_THROUGHPUT);
+  }
+
+  public SerialExecutorActorFactory(Executor executor, int throughput) {
+    if (throughput < 1) {
+      throw new IllegalArgumentException("throughput must be at least 1, was: " + throughput);
+    }
+
+    this.executor = checkNotNull(executor);
+    this.throughput = throughput;
+  }
+
+  @Override
+  public <T> Actor<T> create(Consumer<T> consumer) {
+    return new SerialExecutorActor<>(executor, consumer, throughput);
+  }
+}
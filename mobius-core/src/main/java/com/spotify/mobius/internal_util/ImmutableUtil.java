@@ -30,24 +30,52 @@ import java.util.Set;
  */
 public final class ImmutableUtil {
 
+  // sets up to this size are stored in an IndexedSet rather than a HashSet; looking up elements
+  // by comparing them to each one is cheaper than hashing for such small sets
+  private static final int MAX_INDEXED_SET_SIZE = 8;
+
   private ImmutableUtil() {}
 
   public static <T> Set<T> emptySet() {
-    return Collections.emptySet();
+    return IndexedSet.of();
   }
 
   @SafeVarargs
   public static <T> Set<T> setOf(T... items) {
     Preconditions.checkArrayNoNulls(items);
 
+    if (items.length <= MAX_INDEXED_SET_SIZE) {
+      Object[] elements = new Object[items.length];
+      for (int i = 0; i < items.length; i++) {
+        elements[i] = items[i];
+      }
+
+      return IndexedSet.adopt(elements);
+    }
+
     Set<T> result = new HashSet<>(items.length);
     Collections.addAll(result, items);
 
     return Collections.unmodifiableSet(result);
   }
 
+  /**
+   * Returns an immutable copy of the supplied set. Sets that are already immutable, meaning ones
+   * created by this class, are returned as they are.
+   */
+  @SuppressWarnings("unchecked")
   public static <T> Set<T> immutableSet(Set<? extends T> set) {
+    if (set instanceof IndexedSet) {
+      // safe since the set can't be modified
+      return (Set<T>) set;
+    }
+
     Preconditions.checkIterableNoNulls(set);
+
+    if (set.size() <= MAX_INDEXED_SET_SIZE) {
+      return IndexedSet.adoptDistinct(set.toArray());
+    }
+
     Set<T> result = new HashSet<>(set);
     return Collections.unmodifiableSet(result);
   }
@@ -0,0 +1,276 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.internal_util;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of non-null elements that can be accessed by index, with specialised
+ * implementations for the small sizes that are common for effects. Membership is determined using
+ * {@link Object#equals(Object)} only, so elements are never hashed. NOT FOR EXTERNAL USE; this
+ * class is not a part of the Mobius API and backwards-incompatible changes may happen between
+ * releases.
+ *
+ * @param <T> element type
+ */
+public abstract class IndexedSet<T> extends AbstractSet<T> {
+
+  private static final IndexedSet<Object> EMPTY = new Empty();
+
+  private IndexedSet() {}
+
+  /**
+   * @return the element at the given index, where 0 is the first element iterated over
+   * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+   */
+  public abstract T get(int index);
+
+  @Override
+  public boolean contains(Object o) {
+    for (int i = 0; i < size(); i++) {
+      if (get(i).equals(o)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < size();
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        return get(next++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> IndexedSet<T> of() {
+    return (IndexedSet<T>) EMPTY;
+  }
+
+  public static <T> IndexedSet<T> of(T element) {
+    return new Singleton<>(checkNotNull(element));
+  }
+
+  public static <T> IndexedSet<T> of(T first, T second) {
+    if (checkNotNull(first).equals(checkNotNull(second))) {
+      return new Singleton<>(first);
+    }
+
+    return new Pair<>(first, second);
+  }
+
+  /**
+   * Create a set of the supplied elements, in the order they are supplied, discarding elements that
+   * are equal to an earlier one. Comparing all elements with each other makes this unsuitable for
+   * large numbers of elements.
+   */
+  @SafeVarargs
+  public static <T> IndexedSet<T> copyOf(T... elements) {
+    Object[] copy = new Object[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      copy[i] = elements[i];
+    }
+
+    return adopt(copy);
+  }
+
+  /**
+   * Like {@link #copyOf(Object[])}, but adopts the supplied array instead of copying it, removing
+   * duplicates in place. The caller must not use the array afterwards. Varargs methods should copy
+   * their generic array into a new {@code Object[]} element by element and pass that on, since
+   * passing on the varargs array itself risks heap pollution.
+   */
+  public static <T> IndexedSet<T> adopt(Object[] elements) {
+    int size = 0;
+
+    outer:
+    for (int i = 0; i < elements.length; i++) {
+      Object element = checkNotNull(elements[i]);
+
+      for (int j = 0; j < size; j++) {
+        if (elements[j].equals(element)) {
+          continue outer;
+        }
+      }
+
+      elements[size++] = element;
+    }
+
+    if (size < elements.length) {
+      Object[] trimmed = new Object[size];
+      System.arraycopy(elements, 0, trimmed, 0, size);
+      elements = trimmed;
+    }
+
+    return adoptDistinct(elements);
+  }
+
+  /**
+   * Create a set of the elements of an array that are known to be distinct and non-null, adopting
+   * the array without copying it. The caller must not modify the array afterwards.
+   */
+  static <T> IndexedSet<T> adoptDistinct(Object[] elements) {
+    switch (elements.length) {
+      case 0:
+        return of();
+      case 1:
+        @SuppressWarnings("unchecked")
+        T element = (T) elements[0];
+        return new Singleton<>(element);
+      case 2:
+        @SuppressWarnings("unchecked")
+        T first = (T) elements[0];
+        @SuppressWarnings("unchecked")
+        T second = (T) elements[1];
+        return new Pair<>(first, second);
+      default:
+        return new Array<>(elements);
+    }
+  }
+
+  private static final class Empty extends IndexedSet<Object> {
+    @Override
+    public Object get(int index) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return false;
+    }
+  }
+
+  private static final class Singleton<T> extends IndexedSet<T> {
+    private final T element;
+
+    private Singleton(T element) {
+      this.element = element;
+    }
+
+    @Override
+    public T get(int index) {
+      if (index != 0) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+      }
+
+      return element;
+    }
+
+    @Override
+    public int size() {
+      return 1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return element.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return element.hashCode();
+    }
+  }
+
+  private static final class Pair<T> extends IndexedSet<T> {
+    private final T first;
+    private final T second;
+
+    private Pair(T first, T second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public T get(int index) {
+      switch (index) {
+        case 0:
+          return first;
+        case 1:
+          return second;
+        default:
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: 2");
+      }
+    }
+
+    @Override
+    public int size() {
+      return 2;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return first.equals(o) || second.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      return first.hashCode() + second.hashCode();
+    }
+  }
+
+  private static final class Array<T> extends IndexedSet<T> {
+    private final Object[] elements;
+
+    private Array(Object[] elements) {
+      this.elements = elements;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+      return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+      return elements.length;
+    }
+  }
+}
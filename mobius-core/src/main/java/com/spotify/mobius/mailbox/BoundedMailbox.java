@@ -0,0 +1,111 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import javax.annotation.Nullable;
+
+/** A {@link Mailbox} with a fixed capacity and an {@link OverflowPolicy}. */
+class BoundedMailbox<T> implements Mailbox<T> {
+
+  private final int capacity;
+  private final OverflowPolicy policy;
+  private final OverflowListener<? super T> listener;
+  private final BlockingQueue<T> queue;
+
+  BoundedMailbox(int capacity, OverflowPolicy policy, OverflowListener<? super T> listener) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1, was: " + capacity);
+    }
+
+    this.capacity = capacity;
+    this.policy = checkNotNull(policy);
+    this.listener = checkNotNull(listener);
+    this.queue = new LinkedBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public boolean put(T message) {
+    checkNotNull(message);
+
+    switch (policy) {
+      case BLOCK:
+        try {
+          queue.put(message);
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          listener.onOverflow(message, policy);
+          return false;
+        }
+
+      case FAIL:
+        if (!queue.offer(message)) {
+          listener.onOverflow(message, policy);
+          throw new MailboxOverflowException(capacity);
+        }
+        return true;
+
+      default:
+        return offer(message);
+    }
+  }
+
+  @Override
+  public boolean offer(T message) {
+    checkNotNull(message);
+
+    if (policy == OverflowPolicy.DROP_OLDEST) {
+      while (!queue.offer(message)) {
+        T evicted = queue.poll();
+        if (evicted != null) {
+          listener.onOverflow(evicted, policy);
+        }
+      }
+      return true;
+    }
+
+    if (!queue.offer(message)) {
+      listener.onOverflow(message, policy);
+      return false;
+    }
+
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public T poll() {
+    return queue.poll();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * An unbounded mailbox that coalesces messages with the same key. When a message is added while
+ * another message with the same key is still waiting, the waiting message is replaced by the new
+ * one, in place, so only the latest message for each key is ever taken from the mailbox.
+ *
+ * <p>Messages for which the key extractor returns null are never coalesced.
+ *
+ * @param <T> message type
+ */
+public final class CoalescingMailbox<T> implements Mailbox<T> {
+
+  private final Function<? super T, ?> keyExtractor;
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  // concurrency note: both guarded by 'this'. 'waiting' maps the key of every queued message that
+  // has one to the slot it is in.
+  private final Queue<Slot<T>> queue = new ArrayDeque<>();
+  private final Map<Object, Slot<T>> waiting = new HashMap<>();
+
+  CoalescingMailbox(Function<? super T, ?> keyExtractor) {
+    this.keyExtractor = checkNotNull(keyExtractor);
+  }
+
+  /** Always adds the message, replacing a waiting message with the same key if there is one. */
+  @Override
+  public boolean put(T message) {
+    return offer(message);
+  }
+
+  /** Always adds the message, replacing a waiting message with the same key if there is one. */
+  @Override
+  public boolean offer(T message) {
+    checkNotNull(message);
+    Object key = keyExtractor.apply(message);
+
+    synchronized (this) {
+      Slot<T> slot = key != null ? waiting.get(key) : null;
+
+      if (slot != null) {
+        slot.message = message;
+        coalescedCount.incrementAndGet();
+        return true;
+      }
+
+      slot = new Slot<>(key, message);
+      queue.add(slot);
+
+      if (key != null) {
+        waiting.put(key, slot);
+      }
+    }
+
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public synchronized T poll() {
+    Slot<T> slot = queue.poll();
+
+    if (slot == null) {
+      return null;
+    }
+
+    if (slot.key != null) {
+      waiting.remove(slot.key);
+    }
+
+    return slot.message;
+  }
+
+  @Override
+  public synchronized int size() {
+    return queue.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+    queue.clear();
+    waiting.clear();
+  }
+
+  /** @return the number of messages that have replaced a waiting message with the same key */
+  public long coalescedCount() {
+    return coalescedCount.get();
+  }
+
+  private static final class Slot<T> {
+    @Nullable private final Object key;
+    private T message;
+
+    private Slot(@Nullable Object key, T message) {
+      this.key = key;
+      this.message = message;
+    }
+  }
+}
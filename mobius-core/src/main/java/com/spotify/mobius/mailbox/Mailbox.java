@@ -0,0 +1,60 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import javax.annotation.Nullable;
+
+/**
+ * A queue of messages waiting to be processed by a loop. Mailboxes may be bounded, in which case
+ * their {@link OverflowPolicy} decides what happens to messages that don't fit.
+ *
+ * <p>Implementations must be thread-safe: messages may be added from any thread, while they are
+ * taken by one thread at a time.
+ *
+ * @param <T> message type, typically an event type
+ */
+public interface Mailbox<T> {
+
+  /**
+   * Add a message, applying the overflow policy if the mailbox is full. Depending on the policy,
+   * this may block the calling thread or throw a {@link MailboxOverflowException}.
+   *
+   * @return true if the message was added, false if it was discarded
+   */
+  boolean put(T message);
+
+  /**
+   * Add a message if that can be done without blocking or throwing. A message is only discarded to
+   * make space if the policy is {@link OverflowPolicy#DROP_OLDEST}.
+   *
+   * @return true if the message was added, false if it was not
+   */
+  boolean offer(T message);
+
+  /** Remove and return the next message to process, or return null if the mailbox is empty. */
+  @Nullable
+  T poll();
+
+  /** @return the number of messages currently in the mailbox */
+  int size();
+
+  /** Discard all messages currently in the mailbox. */
+  void clear();
+}
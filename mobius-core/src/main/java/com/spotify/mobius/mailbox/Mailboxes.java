@@ -0,0 +1,161 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import com.spotify.mobius.functions.Function;
+import javax.annotation.Nonnull;
+
+/** Factory methods for {@link Mailbox} instances. */
+public final class Mailboxes {
+
+  private static final OverflowListener<Object> NOOP_LISTENER =
+      new OverflowListener<Object>() {
+        @Override
+        public void onOverflow(Object message, OverflowPolicy policy) {}
+      };
+
+  private Mailboxes() {
+    // prevent instantiation
+  }
+
+  /** Create a mailbox without a capacity limit. */
+  @Nonnull
+  public static <T> Mailbox<T> unbounded() {
+    return new UnboundedMailbox<>();
+  }
+
+  /**
+   * Create a mailbox that holds at most {@code capacity} messages.
+   *
+   * @param capacity the maximum number of messages in the mailbox
+   * @param policy what to do with messages that don't fit
+   * @throws IllegalArgumentException if capacity is less than 1
+   */
+  @Nonnull
+  public static <T> Mailbox<T> bounded(int capacity, OverflowPolicy policy) {
+    return new BoundedMailbox<>(capacity, policy, NOOP_LISTENER);
+  }
+
+  /**
+   * Create a mailbox that holds at most {@code capacity} messages, and notifies a listener about
+   * every message it discards or rejects.
+   *
+   * @param capacity the maximum number of messages in the mailbox
+   * @param policy what to do with messages that don't fit
+   * @param listener notified about discarded and rejected messages
+   * @throws IllegalArgumentException if capacity is less than 1
+   */
+  @Nonnull
+  public static <T> Mailbox<T> bounded(
+      int capacity, OverflowPolicy policy, OverflowListener<? super T> listener) {
+    return new BoundedMailbox<>(capacity, policy, listener);
+  }
+
+  /**
+   * Create an unbounded mailbox with priority lanes. The classifier assigns each message to a lane,
+   * where lane 0 has the highest priority. Messages are taken from the highest-priority non-empty
+   * lane, and messages in the same lane are kept in the order they were added.
+   *
+   * <p>A lane that has been passed over {@code fairnessQuota} times while it had messages waiting
+   * delivers its next message ahead of the higher-priority lanes, so that low-priority messages are
+   * delayed, but never starved.
+   *
+   * @param classifier returns the lane of a message, from 0 to {@code laneCount - 1}
+   * @param laneCount the number of lanes
+   * @param fairnessQuota how many times a lane with waiting messages may be passed over
+   * @throws IllegalArgumentException if laneCount or fairnessQuota is less than 1
+   */
+  @Nonnull
+  public static <T> Mailbox<T> prioritized(
+      Function<? super T, Integer> classifier, int laneCount, int fairnessQuota) {
+    return new PrioritizedMailbox<>(
+        classifier,
+        laneCount,
+        fairnessQuota,
+        Integer.MAX_VALUE,
+        OverflowPolicy.DROP_NEWEST,
+        NOOP_LISTENER);
+  }
+
+  /**
+   * Create a mailbox with priority lanes, like {@link #prioritized(Function, int, int)}, that holds
+   * at most {@code capacity} messages in all lanes together. When it is full, {@link
+   * OverflowPolicy#DROP_OLDEST} discards the oldest message of the lowest-priority lane that has
+   * messages.
+   *
+   * @param classifier returns the lane of a message, from 0 to {@code laneCount - 1}
+   * @param laneCount the number of lanes
+   * @param fairnessQuota how many times a lane with waiting messages may be passed over
+   * @param capacity the maximum number of messages in the mailbox
+   * @param policy what to do with messages that don't fit
+   * @throws IllegalArgumentException if laneCount, fairnessQuota or capacity is less than 1
+   */
+  @Nonnull
+  public static <T> Mailbox<T> prioritized(
+      Function<? super T, Integer> classifier,
+      int laneCount,
+      int fairnessQuota,
+      int capacity,
+      OverflowPolicy policy) {
+    return new PrioritizedMailbox<>(
+        classifier, laneCount, fairnessQuota, capacity, policy, NOOP_LISTENER);
+  }
+
+  /**
+   * Create a mailbox with priority lanes that holds at most {@code capacity} messages, like {@link
+   * #prioritized(Function, int, int, int, OverflowPolicy)}, and notifies a listener about every
+   * message it discards or rejects.
+   *
+   * @param classifier returns the lane of a message, from 0 to {@code laneCount - 1}
+   * @param laneCount the number of lanes
+   * @param fairnessQuota how many times a lane with waiting messages may be passed over
+   * @param capacity the maximum number of messages in the mailbox
+   * @param policy what to do with messages that don't fit
+   * @param listener notified about discarded and rejected messages
+   * @throws IllegalArgumentException if laneCount, fairnessQuota or capacity is less than 1
+   */
+  @Nonnull
+  public static <T> Mailbox<T> prioritized(
+      Function<? super T, Integer> classifier,
+      int laneCount,
+      int fairnessQuota,
+      int capacity,
+      OverflowPolicy policy,
+      OverflowListener<? super T> listener) {
+    return new PrioritizedMailbox<>(
+        classifier, laneCount, fairnessQuota, capacity, policy, listener);
+  }
+
+  /**
+   * Create an unbounded mailbox that only keeps the latest message for each key. A message replaces
+   * any waiting message with the same key, taking over its place in the queue. Messages for which
+   * the key extractor returns null are never coalesced.
+   *
+   * <p>This is useful for high-frequency messages, like progress updates, where only the most
+   * recent value matters. Use {@link CoalescingMailbox#coalescedCount()} to find out how many
+   * messages have been replaced.
+   *
+   * @param keyExtractor returns the key of a message, or null if it shouldn't be coalesced
+   */
+  @Nonnull
+  public static <T> CoalescingMailbox<T> coalescing(Function<? super T, ?> keyExtractor) {
+    return new CoalescingMailbox<>(keyExtractor);
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+/**
+ * Notified whenever a {@link Mailbox} discards or rejects a message because it is full, for
+ * instance to count dropped events. Called synchronously on the thread adding the message, so it
+ * should be cheap and must not throw.
+ *
+ * @param <T> message type
+ */
+public interface OverflowListener<T> {
+
+  /**
+   * @param message the message that was discarded or rejected; with {@link
+   *     OverflowPolicy#DROP_OLDEST}, this is the old message that was evicted
+   * @param policy the overflow policy of the mailbox
+   */
+  void onOverflow(T message, OverflowPolicy policy);
+}
@@ -0,0 +1,35 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+/** Decides what happens when a message is put in a bounded {@link Mailbox} that is full. */
+public enum OverflowPolicy {
+  /** Block the thread putting the message until there is space for it. */
+  BLOCK,
+
+  /** Discard the oldest message in the mailbox to make space for the new one. */
+  DROP_OLDEST,
+
+  /** Discard the new message. */
+  DROP_NEWEST,
+
+  /** Discard the new message and throw a {@link MailboxOverflowException}. */
+  FAIL
+}
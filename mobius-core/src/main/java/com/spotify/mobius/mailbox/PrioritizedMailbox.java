@@ -0,0 +1,274 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A mailbox with a number of priority lanes. Lane 0 has the highest priority. Messages are taken
+ * from the highest-priority lane that has messages, in the order they were added to that lane.
+ *
+ * <p>To keep a busy high-priority lane from starving the others, a lane that has been passed over
+ * {@code fairnessQuota} times while it had messages waiting gets to deliver its next message before
+ * any higher-priority lane does.
+ *
+ * <p>The capacity limits the number of messages in all lanes together. When the mailbox is full,
+ * {@link OverflowPolicy#DROP_OLDEST} discards the oldest message of the lowest-priority lane that
+ * has messages, since that is the message least likely to matter.
+ *
+ * @param <T> message type
+ */
+class PrioritizedMailbox<T> implements Mailbox<T> {
+
+  private final Function<? super T, Integer> classifier;
+  private final List<Queue<T>> lanes;
+  private final int fairnessQuota;
+  private final int capacity;
+  private final OverflowPolicy policy;
+  private final OverflowListener<? super T> listener;
+
+  // concurrency note: a message is counted before it is added to its lane, and uncounted after it
+  // has been taken from it, so that the size never goes below the number of messages in the lanes.
+  private final AtomicInteger size = new AtomicInteger();
+
+  // notified when messages are taken, if puts may be waiting for space
+  private final Object space = new Object();
+
+  // concurrency note: only accessed from poll(), which is synchronized. Counts, for each lane, how
+  // many messages have been taken from other lanes while this one had messages waiting.
+  private final int[] passedOver;
+
+  PrioritizedMailbox(
+      Function<? super T, Integer> classifier,
+      int laneCount,
+      int fairnessQuota,
+      int capacity,
+      OverflowPolicy policy,
+      OverflowListener<? super T> listener) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("laneCount must be at least 1, was: " + laneCount);
+    }
+
+    if (fairnessQuota < 1) {
+      throw new IllegalArgumentException("fairnessQuota must be at least 1, was: " + fairnessQuota);
+    }
+
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1, was: " + capacity);
+    }
+
+    this.classifier = checkNotNull(classifier);
+    this.fairnessQuota = fairnessQuota;
+    this.capacity = capacity;
+    this.policy = checkNotNull(policy);
+    this.listener = checkNotNull(listener);
+    this.lanes = new ArrayList<>(laneCount);
+    this.passedOver = new int[laneCount];
+
+    for (int i = 0; i < laneCount; i++) {
+      lanes.add(new ConcurrentLinkedQueue<T>());
+    }
+  }
+
+  @Override
+  public boolean put(T message) {
+    switch (policy) {
+      case BLOCK:
+        Queue<T> lane = lanes.get(laneOf(checkNotNull(message)));
+
+        synchronized (space) {
+          while (!reserve()) {
+            try {
+              space.wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              listener.onOverflow(message, policy);
+              return false;
+            }
+          }
+        }
+
+        lane.add(message);
+        return true;
+
+      case FAIL:
+        if (!offer(message)) {
+          throw new MailboxOverflowException(capacity);
+        }
+        return true;
+
+      default:
+        return offer(message);
+    }
+  }
+
+  @Override
+  public boolean offer(T message) {
+    Queue<T> lane = lanes.get(laneOf(checkNotNull(message)));
+
+    if (policy == OverflowPolicy.DROP_OLDEST) {
+      while (!reserve()) {
+        T evicted = evict();
+        if (evicted != null) {
+          listener.onOverflow(evicted, policy);
+        }
+      }
+
+    } else if (!reserve()) {
+      listener.onOverflow(message, policy);
+      return false;
+    }
+
+    lane.add(message);
+    return true;
+  }
+
+  @Nullable
+  @Override
+  public synchronized T poll() {
+    int lane = nextLane();
+
+    if (lane < 0) {
+      return null;
+    }
+
+    T message = lanes.get(lane).poll();
+    passedOver[lane] = 0;
+
+    for (int i = 0; i < lanes.size(); i++) {
+      if (i != lane && !lanes.get(i).isEmpty()) {
+        passedOver[i]++;
+      }
+    }
+
+    release(1);
+    return message;
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public synchronized void clear() {
+    for (int i = 0; i < lanes.size(); i++) {
+      release(drain(lanes.get(i)));
+      passedOver[i] = 0;
+    }
+  }
+
+  private boolean reserve() {
+    if (capacity == Integer.MAX_VALUE) {
+      size.incrementAndGet();
+      return true;
+    }
+
+    while (true) {
+      int current = size.get();
+
+      if (current >= capacity) {
+        return false;
+      }
+
+      if (size.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(int count) {
+    if (count == 0) {
+      return;
+    }
+
+    size.addAndGet(-count);
+
+    if (policy == OverflowPolicy.BLOCK && capacity != Integer.MAX_VALUE) {
+      synchronized (space) {
+        space.notifyAll();
+      }
+    }
+  }
+
+  /** Take the oldest message of the lowest-priority lane that has messages, if there is one. */
+  @Nullable
+  private synchronized T evict() {
+    for (int i = lanes.size() - 1; i >= 0; i--) {
+      T evicted = lanes.get(i).poll();
+
+      if (evicted != null) {
+        release(1);
+        return evicted;
+      }
+    }
+
+    return null;
+  }
+
+  private int nextLane() {
+    int highest = -1;
+
+    for (int i = 0; i < lanes.size(); i++) {
+      if (lanes.get(i).isEmpty()) {
+        continue;
+      }
+
+      if (passedOver[i] >= fairnessQuota) {
+        return i;
+      }
+
+      if (highest < 0) {
+        highest = i;
+      }
+    }
+
+    return highest;
+  }
+
+  private int laneOf(T message) {
+    Integer lane = checkNotNull(classifier.apply(message));
+
+    if (lane < 0 || lane >= lanes.size()) {
+      throw new IllegalArgumentException(
+          "lane must be between 0 and " + (lanes.size() - 1) + ", was: " + lane);
+    }
+
+    return lane;
+  }
+
+  private static int drain(Queue<?> queue) {
+    int count = 0;
+
+    while (queue.poll() != null) {
+      count++;
+    }
+
+    return count;
+  }
+}
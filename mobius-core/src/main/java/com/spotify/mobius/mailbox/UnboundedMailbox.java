@@ -0,0 +1,56 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nullable;
+
+/** A lock-free {@link Mailbox} without a capacity limit. */
+class UnboundedMailbox<T> implements Mailbox<T> {
+
+  private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public boolean put(T message) {
+    return queue.offer(message);
+  }
+
+  @Override
+  public boolean offer(T message) {
+    return queue.offer(message);
+  }
+
+  @Nullable
+  @Override
+  public T poll() {
+    return queue.poll();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+  }
+}
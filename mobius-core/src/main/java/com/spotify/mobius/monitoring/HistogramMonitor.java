@@ -0,0 +1,186 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.monitoring;
+
+import com.spotify.mobius.MobiusLoop;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link MobiusLoop.Monitor} that records the measurements of a loop in {@link
+ * LatencyHistogram}s. The histograms can be read at any time while the loop is running. Update
+ * durations are also recorded per event class, to help find the events that are expensive to
+ * process. The number of event classes that get their own histogram is limited; once the limit is
+ * reached, further classes share a single histogram.
+ *
+ * <p>Use one instance per loop, or share an instance between loops whose measurements should be
+ * combined.
+ */
+public final class HistogramMonitor<M, E, F> implements MobiusLoop.Monitor<M, E, F> {
+
+  private static final int DEFAULT_MAX_EVENT_CLASSES = 64;
+
+  private final LatencyHistogram eventWait = new LatencyHistogram();
+  private final LatencyHistogram queueDepth = new LatencyHistogram();
+  private final LatencyHistogram updateDuration = new LatencyHistogram();
+  private final LatencyHistogram effectLatency = new LatencyHistogram();
+  private final LatencyHistogram observerFanOut = new LatencyHistogram();
+
+  private final LatencyHistogram updateDurationOfOtherEventClasses = new LatencyHistogram();
+
+  private final ConcurrentMap<Class<?>, LatencyHistogram> updateDurationByEventClass =
+      new ConcurrentHashMap<>();
+  private final int maxEventClasses;
+
+  // set once updateDurationByEventClass has reached maxEventClasses entries; it never shrinks
+  private volatile boolean eventClassesFull;
+
+  /**
+   * Create a monitor that records update durations for up to 64 event classes in their own
+   * histograms.
+   */
+  public HistogramMonitor() {
+    this(DEFAULT_MAX_EVENT_CLASSES);
+  }
+
+  /**
+   * Create a monitor that records update durations for up to {@code maxEventClasses} event classes
+   * in their own histograms. Durations of events of any further classes are recorded in {@link
+   * #updateDurationOfOtherEventClasses()}.
+   *
+   * @throws IllegalArgumentException if maxEventClasses is negative
+   */
+  public HistogramMonitor(int maxEventClasses) {
+    if (maxEventClasses < 0) {
+      throw new IllegalArgumentException(
+          "maxEventClasses must be at least 0, was: " + maxEventClasses);
+    }
+
+    this.maxEventClasses = maxEventClasses;
+  }
+
+  @Override
+  public void eventDequeued(E event, long waitNanos, int queueDepth) {
+    eventWait.record(waitNanos);
+    this.queueDepth.record(queueDepth);
+  }
+
+  @Override
+  public void updateCompleted(E event, long durationNanos) {
+    updateDuration.record(durationNanos);
+    histogramFor(event.getClass()).record(durationNanos);
+  }
+
+  @Override
+  public void effectHandled(F effect, long latencyNanos) {
+    effectLatency.record(latencyNanos);
+  }
+
+  @Override
+  public void modelObserved(M model, long fanOutNanos) {
+    observerFanOut.record(fanOutNanos);
+  }
+
+  /** @return nanoseconds that events waited in the event queue before being processed */
+  @Nonnull
+  public LatencyHistogram eventWait() {
+    return eventWait;
+  }
+
+  /**
+   * @return the number of events left in the event queue whenever an event was taken from it. The
+   *     depth is only sampled when events are taken, so a queue that grows while the loop is busy
+   *     processing a single event shows up in this histogram once, with the depth it had when the
+   *     loop got to the next event.
+   */
+  @Nonnull
+  public LatencyHistogram queueDepth() {
+    return queueDepth;
+  }
+
+  /** @return nanoseconds spent in the update function per event */
+  @Nonnull
+  public LatencyHistogram updateDuration() {
+    return updateDuration;
+  }
+
+  /**
+   * @return nanoseconds spent in the update function per event, by event class. The map is a live,
+   *     unmodifiable view, and gets a new entry for every new event class the loop receives until
+   *     it has reached the maximum number of event classes.
+   */
+  @Nonnull
+  public Map<Class<?>, LatencyHistogram> updateDurationByEventClass() {
+    return Collections.unmodifiableMap(updateDurationByEventClass);
+  }
+
+  /**
+   * @return nanoseconds spent in the update function per event, for events whose classes were
+   *     received after the maximum number of event classes had been reached
+   */
+  @Nonnull
+  public LatencyHistogram updateDurationOfOtherEventClasses() {
+    return updateDurationOfOtherEventClasses;
+  }
+
+  /** @return nanoseconds from dispatching an effect until the effect handler had accepted it */
+  @Nonnull
+  public LatencyHistogram effectLatency() {
+    return effectLatency;
+  }
+
+  /** @return nanoseconds spent notifying all model observers of a new model */
+  @Nonnull
+  public LatencyHistogram observerFanOut() {
+    return observerFanOut;
+  }
+
+  private LatencyHistogram histogramFor(Class<?> eventClass) {
+    LatencyHistogram histogram = updateDurationByEventClass.get(eventClass);
+
+    if (histogram != null) {
+      return histogram;
+    }
+
+    if (eventClassesFull) {
+      return updateDurationOfOtherEventClasses;
+    }
+
+    // adding classes is rare, so it's done under a lock to keep the map within its limit
+    synchronized (updateDurationByEventClass) {
+      histogram = updateDurationByEventClass.get(eventClass);
+
+      if (histogram == null) {
+        if (updateDurationByEventClass.size() >= maxEventClasses) {
+          eventClassesFull = true;
+          return updateDurationOfOtherEventClasses;
+        }
+
+        histogram = new LatencyHistogram();
+        updateDurationByEventClass.put(eventClass, histogram);
+      }
+
+      return histogram;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values, typically durations in nanoseconds, that can be recorded to
+ * and read from any number of threads concurrently without locking. It uses a fixed amount of
+ * memory, about 4 KB, regardless of how many values are recorded.
+ *
+ * <p>Values are counted in buckets: values below 8 have a bucket each, and every power of two above
+ * that is split into 8 buckets of equal width. Percentiles are therefore accurate to within 12.5%,
+ * while the count, maximum and mean are exact.
+ *
+ * <p>Reading a histogram while values are being recorded doesn't block the recording threads, but
+ * the results may not include values that are being recorded at the same time.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Record a value. Negative values are recorded as 0. */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    buckets.incrementAndGet(bucketIndex(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+
+    long currentMax;
+    do {
+      currentMax = max.get();
+    } while (value > currentMax && !max.compareAndSet(currentMax, value));
+  }
+
+  /** @return the number of recorded values */
+  public long count() {
+    return count.get();
+  }
+
+  /** @return the largest recorded value, or 0 if nothing has been recorded */
+  public long max() {
+    return max.get();
+  }
+
+  /** @return the mean of the recorded values, or 0 if nothing has been recorded */
+  public double mean() {
+    long n = count.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  /**
+   * Get the value below which the given percentage of recorded values fall.
+   *
+   * @param percentile a percentage between 0 and 100, for instance 99.9
+   * @return the upper bound of the bucket that contains the percentile, but never more than {@link
+   *     #max()}, or 0 if nothing has been recorded
+   * @throws IllegalArgumentException if percentile is not between 0 and 100
+   */
+  public long valueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException(
+          "percentile must be between 0 and 100, was: " + percentile);
+    }
+
+    long[] counts = new long[BUCKET_COUNT];
+    long total = 0;
+
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+
+    return max.get();
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram{"
+        + "count="
+        + count()
+        + ", mean="
+        + mean()
+        + ", p50="
+        + valueAtPercentile(50)
+        + ", p99="
+        + valueAtPercentile(99)
+        + ", max="
+        + max()
+        + "}";
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+
+    return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  static long upperBound(int index) {
+    return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflatingObserverTest {
+
+  private Queue<Runnable> posted;
+  private RecordingConsumer<String> observer;
+  private ConflatingObserver<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    posted = new ArrayDeque<>();
+    observer = new RecordingConsumer<>();
+
+    underTest =
+        new ConflatingObserver<>(
+            observer,
+            new WorkRunner() {
+              @Override
+              public void post(Runnable runnable) {
+                posted.add(runnable);
+              }
+
+              @Override
+              public void dispose() {}
+            });
+  }
+
+  @Test
+  public void shouldDeliverValueOnRunner() throws Exception {
+    underTest.accept("a");
+    observer.assertValues();
+
+    runAll();
+    observer.assertValues("a");
+  }
+
+  @Test
+  public void shouldOnlyDeliverLatestValue() throws Exception {
+    underTest.accept("a");
+    underTest.accept("b");
+    underTest.accept("c");
+    runAll();
+
+    observer.assertValues("c");
+  }
+
+  @Test
+  public void shouldPostAtMostOneDeliveryAtATime() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      underTest.accept(String.valueOf(i));
+    }
+
+    assertThat(posted).hasSize(1);
+  }
+
+  @Test
+  public void shouldDeliverValuesAcceptedAfterPreviousDelivery() throws Exception {
+    underTest.accept("a");
+    runAll();
+    underTest.accept("b");
+    runAll();
+
+    observer.assertValues("a", "b");
+  }
+
+  @Test
+  public void shouldNotDeliverAfterDispose() throws Exception {
+    underTest.accept("a");
+    underTest.dispose();
+    underTest.accept("b");
+    runAll();
+
+    observer.assertValues();
+  }
+
+  @Test
+  public void shouldDeliverEveryValueWithImmediateRunner() throws Exception {
+    underTest = new ConflatingObserver<>(observer, WorkRunners.immediate());
+
+    underTest.accept("a");
+    underTest.accept("b");
+
+    observer.assertValues("a", "b");
+  }
+
+  @Test
+  public void shouldPostAgainAfterRunnerRejectedDelivery() throws Exception {
+    boolean[] reject = {true};
+    underTest =
+        new ConflatingObserver<>(
+            observer,
+            new WorkRunner() {
+              @Override
+              public void post(Runnable runnable) {
+                if (reject[0]) {
+                  throw new IllegalStateException("rejected");
+                }
+                posted.add(runnable);
+              }
+
+              @Override
+              public void dispose() {}
+            });
+
+    assertThatThrownBy(() -> underTest.accept("a")).isInstanceOf(IllegalStateException.class);
+
+    reject[0] = false;
+    underTest.accept("b");
+    runAll();
+
+    observer.assertValues("b");
+  }
+
+  @Test
+  public void shouldPostNewerValueStoredWhileRunnerRejectedDelivery() throws Exception {
+    boolean[] reject = {true};
+    underTest =
+        new ConflatingObserver<>(
+            observer,
+            new WorkRunner() {
+              @Override
+              public void post(Runnable runnable) {
+                if (reject[0]) {
+                  reject[0] = false;
+                  // a value accepted concurrently with the failing post
+                  underTest.accept("b");
+                  throw new IllegalStateException("rejected");
+                }
+                posted.add(runnable);
+              }
+
+              @Override
+              public void dispose() {}
+            });
+
+    assertThatThrownBy(() -> underTest.accept("a")).isInstanceOf(IllegalStateException.class);
+    runAll();
+
+    observer.assertValues("b");
+  }
+
+  private void runAll() {
+    while (!posted.isEmpty()) {
+      posted.remove().run();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import com.google.common.collect.Sets;
 import com.spotify.mobius.internal_util.ImmutableUtil;
 import com.spotify.mobius.test.RecordingConsumer;
+import java.util.Arrays;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import org.junit.Before;
@@ -31,6 +32,8 @@ import org.junit.Test;
 
 public class EventProcessorTest {
 
+  private static final int THROWING_EVENT = 99;
+
   private EventProcessor<String, Integer, Long> underTest;
   private RecordingConsumer<Long> effectConsumer;
   private RecordingConsumer<String> stateConsumer;
@@ -72,6 +75,13 @@ public class EventProcessorTest {
     effectConsumer.assertValuesInAnyOrder(10L, 20L, 30L);
   }
 
+  @Test
+  public void shouldEmitOrderedEffectsInOrder() throws Exception {
+    effectConsumer.clearValues();
+    underTest.update(-3);
+    effectConsumer.assertValues(30L, 20L, 10L);
+  }
+
   @Test
   public void shouldEmitStateDuringInit() throws Exception {
     stateConsumer.assertValues("init!");
@@ -96,6 +106,50 @@ public class EventProcessorTest {
     stateConsumer.assertValues("init!", "init!->1", "init!->1->2", "init!->1->2->3");
   }
 
+  @Test
+  public void shouldOnlyEmitLastStateOfBatch() throws Exception {
+    stateConsumer.clearValues();
+    underTest.updateAll(Arrays.asList(1, 0, 2));
+    stateConsumer.assertValues("init!->1->2");
+  }
+
+  @Test
+  public void shouldNotEmitStateIfNoEventInBatchChangedState() throws Exception {
+    stateConsumer.clearValues();
+    underTest.updateAll(Arrays.asList(0, 0));
+    stateConsumer.assertValues();
+  }
+
+  @Test
+  public void shouldEmitEffectsForEveryEventInBatch() throws Exception {
+    effectConsumer.clearValues();
+    underTest.updateAll(Arrays.asList(1, 2));
+    effectConsumer.assertValuesInAnyOrder(10L, 10L, 20L);
+  }
+
+  @Test
+  public void shouldKeepProcessingBatchAfterEventThrows() throws Exception {
+    stateConsumer.clearValues();
+    effectConsumer.clearValues();
+
+    underTest.updateAll(Arrays.asList(1, THROWING_EVENT, 2));
+
+    stateConsumer.assertValues("init!->1->2");
+    effectConsumer.assertValuesInAnyOrder(10L, 10L, 20L);
+  }
+
+  @Test
+  public void shouldQueueBatchesReceivedBeforeInit() throws Exception {
+    stateConsumer.clearValues();
+    underTest = new EventProcessor<>(createStore(), effectConsumer, stateConsumer);
+
+    underTest.updateAll(Arrays.asList(1, 2));
+
+    underTest.init();
+
+    stateConsumer.assertValues("init!", "init!->1", "init!->1->2");
+  }
+
   @Test
   public void shouldDisallowDuplicateInitialisation() throws Exception {
     assertThatThrownBy(() -> underTest.init()).isInstanceOf(IllegalStateException.class);
@@ -114,10 +168,23 @@ public class EventProcessorTest {
           @Nonnull
           @Override
           public Next<String, Long> update(String model, Integer event) {
+            if (event == THROWING_EVENT) {
+              throw new RuntimeException("expected");
+            }
+
             if (event == 0) {
               return Next.noChange();
             }
 
+            if (event < 0) {
+              Long[] effects = new Long[-event];
+              for (int i = 0; i < effects.length; i++) {
+                effects[i] = 10L * (effects.length - i);
+              }
+
+              return Next.next(model + "->" + event, Effects.ordered(effects));
+            }
+
             Set<Long> effects = Sets.newHashSet();
             for (int i = 0; i < event; i++) {
               effects.add(10L * (i + 1));
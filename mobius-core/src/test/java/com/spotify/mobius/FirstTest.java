@@ -22,6 +22,7 @@ package com.spotify.mobius;
 import static com.spotify.mobius.Effects.effects;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
@@ -29,6 +30,8 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.testing.EqualsTester;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Test;
 
 public class FirstTest {
@@ -50,6 +53,17 @@ public class FirstTest {
     assertThat(f.effects(), contains("ho", "there"));
   }
 
+  @Test
+  public void usesSuppliedEffectSetWithoutCopying() throws Exception {
+    Set<String> effects = new HashSet<>();
+    effects.add("in");
+    effects.add(null);
+
+    First<String, String> f = First.first("hi", effects);
+
+    assertThat(f.effects(), is(sameInstance(effects)));
+  }
+
   @Test
   public void reportsNoEffectsIfThereAreNoEffects() throws Exception {
     First<String, String> f = First.first("hi");
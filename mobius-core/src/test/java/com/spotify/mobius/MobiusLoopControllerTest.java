@@ -36,6 +36,9 @@ import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.ImmediateWorkRunner;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
+import com.spotify.mobius.test.RecordingConsumer;
+import com.spotify.mobius.test.SimpleConnection;
+import com.spotify.mobius.test.TestWorkRunner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -481,6 +484,35 @@ public class MobiusLoopControllerTest {
       assertThat(actualThread.get(), is(mainThreadRunner.workerThread));
     }
 
+    @Test
+    public void updaterOnlyReceivesLatestModelWhenMainThreadIsBusy() throws Exception {
+      TestWorkRunner mainThreadRunner = new TestWorkRunner();
+      RecordingConsumer<String> rendered = new RecordingConsumer<>();
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest = createWithWorkRunner(mainThreadRunner);
+
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return new SimpleConnection<String>() {
+              @Override
+              public void accept(String value) {
+                rendered.accept(value);
+              }
+            };
+          });
+
+      underTest.start();
+      consumer.get().accept("1");
+      consumer.get().accept("2");
+      consumer.get().accept("3");
+
+      mainThreadRunner.runAll();
+
+      rendered.assertValues("init123");
+    }
+
     @Test
     public void eventsWhenNotRunningAreDropped() throws Exception {
       @SuppressWarnings("unchecked")
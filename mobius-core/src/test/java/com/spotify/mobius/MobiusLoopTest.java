@@ -20,6 +20,7 @@
 package com.spotify.mobius;
 
 import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 
@@ -29,13 +30,23 @@ import com.spotify.mobius.actors.Actors;
 import com.spotify.mobius.actors.WorkRunnerActorFactory;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.mailbox.CoalescingMailbox;
+import com.spotify.mobius.mailbox.Mailbox;
+import com.spotify.mobius.mailbox.MailboxOverflowException;
+import com.spotify.mobius.mailbox.Mailboxes;
+import com.spotify.mobius.mailbox.OverflowPolicy;
 import com.spotify.mobius.runners.ExecutorServiceWorkRunner;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.test.RecordingModelObserver;
 import com.spotify.mobius.test.SimpleConnection;
 import com.spotify.mobius.test.TestWorkRunner;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import org.awaitility.Duration;
 import org.junit.Before;
@@ -376,6 +387,285 @@ public class MobiusLoopTest {
     observer.assertStates("Firstinit->1");
   }
 
+  @Test
+  public void shouldOnlyNotifyLatestObserversOfLatestModel() throws Exception {
+    TestWorkRunner observerRunner = new TestWorkRunner();
+    RecordingModelObserver<String> latestObserver = new RecordingModelObserver<>();
+
+    mobiusLoop.observeLatest(latestObserver, observerRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    mobiusLoop.dispatchEvent(new TestEvent("second"));
+    observerRunner.runAll();
+
+    latestObserver.assertStates("init->first->second");
+    observer.assertStates("init", "init->first", "init->first->second");
+  }
+
+  @Test
+  public void shouldNotNotifyDisposedLatestObserver() throws Exception {
+    TestWorkRunner observerRunner = new TestWorkRunner();
+    RecordingModelObserver<String> latestObserver = new RecordingModelObserver<>();
+
+    Disposable subscription = mobiusLoop.observeLatest(latestObserver, observerRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    subscription.dispose();
+    observerRunner.runAll();
+
+    latestObserver.assertStates();
+  }
+
+  @Test
+  public void shouldOnlyEmitLastModelOfEachBatch() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    observer = new RecordingModelObserver<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            new WorkRunnerActorFactory(() -> eventRunner),
+            immediateActorFactory,
+            10,
+            null);
+    mobiusLoop.observe(observer);
+
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    mobiusLoop.dispatchEvent(new TestEvent("second"));
+    mobiusLoop.dispatchEvent(new TestEvent("third"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->first->second->third");
+  }
+
+  @Test
+  public void shouldRespectMaxBatchSize() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    observer = new RecordingModelObserver<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            new WorkRunnerActorFactory(() -> eventRunner),
+            immediateActorFactory,
+            2,
+            null);
+    mobiusLoop.observe(observer);
+
+    mobiusLoop.dispatchEvent(new TestEvent("1"));
+    mobiusLoop.dispatchEvent(new TestEvent("2"));
+    mobiusLoop.dispatchEvent(new TestEvent("3"));
+    mobiusLoop.dispatchEvent(new TestEvent("4"));
+    mobiusLoop.dispatchEvent(new TestEvent("5"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->1->2", "init->1->2->3->4", "init->1->2->3->4->5");
+  }
+
+  @Test
+  public void shouldDispatchEffectsForEveryEventInBatch() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    List<String> effects = new CopyOnWriteArrayList<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            eventConsumer ->
+                new SimpleConnection<TestEffect>() {
+                  @Override
+                  public void accept(TestEffect effect) {
+                    effects.add(effect.toString());
+                  }
+                },
+            eventSource,
+            new WorkRunnerActorFactory(() -> eventRunner),
+            immediateActorFactory,
+            10,
+            null);
+
+    mobiusLoop.dispatchEvent(new EventWithSafeEffect("1"));
+    mobiusLoop.dispatchEvent(new EventWithSafeEffect("2"));
+    eventRunner.runAll();
+
+    assertThat(effects).containsExactly("effect1", "effect2");
+  }
+
+  @Test
+  public void shouldDiscardEventsThatDontFitInBoundedMailbox() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    List<String> dropped = new CopyOnWriteArrayList<>();
+    setupWithMailbox(
+        eventRunner,
+        Mailboxes.bounded(
+            2, OverflowPolicy.DROP_NEWEST, (event, policy) -> dropped.add(event.toString())));
+
+    mobiusLoop.dispatchEvent(new TestEvent("1"));
+    mobiusLoop.dispatchEvent(new TestEvent("2"));
+    mobiusLoop.dispatchEvent(new TestEvent("3"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->1", "init->1->2");
+    assertThat(dropped).containsExactly("3");
+  }
+
+  @Test
+  public void shouldKeepNewestEventsInBoundedMailboxWithDropOldest() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    setupWithMailbox(eventRunner, Mailboxes.bounded(2, OverflowPolicy.DROP_OLDEST));
+
+    mobiusLoop.dispatchEvent(new TestEvent("1"));
+    mobiusLoop.dispatchEvent(new TestEvent("2"));
+    mobiusLoop.dispatchEvent(new TestEvent("3"));
+    mobiusLoop.dispatchEvent(new TestEvent("4"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->3", "init->3->4");
+  }
+
+  @Test
+  public void shouldThrowWhenBoundedMailboxWithFailIsFull() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    setupWithMailbox(eventRunner, Mailboxes.bounded(1, OverflowPolicy.FAIL));
+
+    mobiusLoop.dispatchEvent(new TestEvent("1"));
+
+    assertThatThrownBy(() -> mobiusLoop.dispatchEvent(new TestEvent("2")))
+        .isInstanceOf(MailboxOverflowException.class);
+  }
+
+  @Test
+  public void tryDispatchEventShouldReportWhetherEventWasAccepted() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    setupWithMailbox(eventRunner, Mailboxes.bounded(1, OverflowPolicy.BLOCK));
+
+    assertThat(mobiusLoop.tryDispatchEvent(new TestEvent("1"))).isTrue();
+    assertThat(mobiusLoop.tryDispatchEvent(new TestEvent("2"))).isFalse();
+
+    eventRunner.runAll();
+    assertThat(mobiusLoop.tryDispatchEvent(new TestEvent("3"))).isTrue();
+
+    eventRunner.runAll();
+    observer.assertStates("init", "init->1", "init->1->3");
+  }
+
+  @Test
+  public void tryDispatchEventShouldAcceptEventsWithoutMailbox() throws Exception {
+    assertThat(mobiusLoop.tryDispatchEvent(new TestEvent("1"))).isTrue();
+
+    observer.assertStates("init", "init->1");
+  }
+
+  @Test
+  public void shouldProcessEventsInPriorityLanesFirst() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    setupWithMailbox(
+        eventRunner,
+        Mailboxes.prioritized(event -> event.toString().equals("urgent") ? 0 : 1, 2, 10));
+
+    mobiusLoop.dispatchEvent(new TestEvent("1"));
+    mobiusLoop.dispatchEvent(new TestEvent("2"));
+    mobiusLoop.dispatchEvent(new TestEvent("urgent"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->urgent", "init->urgent->1", "init->urgent->1->2");
+  }
+
+  @Test
+  public void shouldOnlyUpdateWithLatestCoalescedEvent() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    CoalescingMailbox<TestEvent> mailbox =
+        Mailboxes.coalescing(event -> event.toString().substring(0, 1));
+    setupWithMailbox(eventRunner, mailbox);
+
+    mobiusLoop.dispatchEvent(new TestEvent("a1"));
+    mobiusLoop.dispatchEvent(new TestEvent("b1"));
+    mobiusLoop.dispatchEvent(new TestEvent("a2"));
+    eventRunner.runAll();
+
+    observer.assertStates("init", "init->a2", "init->a2->b1");
+    assertThat(mailbox.coalescedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotSwallowExceptionsWithMailboxButNoBatchSize() throws Exception {
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            immediateActorFactory,
+            immediateActorFactory,
+            0,
+            Mailboxes.unbounded());
+
+    assertThatThrownBy(() -> mobiusLoop.dispatchEvent(new EventWithCrashingEffect()))
+        .isInstanceOf(ConnectionException.class);
+  }
+
+  @Test
+  public void shouldProcessAllEventsNotDroppedFromBoundedMailbox() throws Exception {
+    int producerCount = 4;
+    int eventsPerProducer = 5_000;
+    AtomicInteger dropped = new AtomicInteger();
+    AtomicInteger processed = new AtomicInteger();
+
+    mobiusStore =
+        MobiusStore.create(
+            model -> First.first(model),
+            (model, event) -> {
+              processed.incrementAndGet();
+              return Next.noChange();
+            },
+            "init");
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            backgroundActorFactory,
+            immediateActorFactory,
+            0,
+            Mailboxes.bounded(
+                16, OverflowPolicy.DROP_OLDEST, (event, policy) -> dropped.incrementAndGet()));
+
+    ExecutorService producers = Executors.newFixedThreadPool(producerCount);
+    for (int p = 0; p < producerCount; p++) {
+      producers.submit(
+          () -> {
+            for (int i = 0; i < eventsPerProducer; i++) {
+              mobiusLoop.dispatchEvent(new TestEvent(String.valueOf(i)));
+            }
+          });
+    }
+    producers.shutdown();
+    assertThat(producers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    await()
+        .atMost(Duration.FIVE_SECONDS)
+        .until(() -> processed.get() + dropped.get() == producerCount * eventsPerProducer);
+  }
+
+  private void setupWithMailbox(WorkRunner eventRunner, Mailbox<TestEvent> mailbox) {
+    observer = new RecordingModelObserver<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            new WorkRunnerActorFactory(() -> eventRunner),
+            immediateActorFactory,
+            0,
+            mailbox);
+
+    mobiusLoop.observe(observer);
+  }
+
   private void setupWithEffects(
       Connectable<TestEffect, TestEvent> effectHandler, ActorFactory effectRunner) {
     observer = new RecordingModelObserver<>();
@@ -0,0 +1,109 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MobiusStoreTest {
+
+  private CapturingLogger<String, Integer, Boolean> logger;
+  private RuntimeException expected;
+
+  @Before
+  public void setUp() throws Exception {
+    logger = new CapturingLogger<>();
+    expected = new RuntimeException("expected");
+  }
+
+  @Test
+  public void shouldUpdateModel() throws Exception {
+    MobiusStore<String, Integer, Boolean> store =
+        MobiusStore.create(First::first, (model, event) -> Next.next(model + event), "init");
+
+    store.update(1);
+    Next<String, Boolean> next = store.update(2);
+
+    assertThat(next.modelUnsafe()).isEqualTo("init12");
+  }
+
+  @Test
+  public void shouldReportUpdateExceptionsToLogger() throws Exception {
+    MobiusStore<String, Integer, Boolean> store =
+        MobiusStore.create(
+            First::first,
+            (model, event) -> {
+              throw expected;
+            },
+            "init",
+            logger);
+
+    assertThatThrownBy(() -> store.update(7)).isEqualTo(expected);
+    assertThat(logger.updateErrors)
+        .containsExactly(CapturingLogger.UpdateErrorArgs.create("init", 7, expected));
+  }
+
+  @Test
+  public void shouldReportInitExceptionsToLogger() throws Exception {
+    MobiusStore<String, Integer, Boolean> store =
+        MobiusStore.create(
+            model -> {
+              throw expected;
+            },
+            (model, event) -> Next.noChange(),
+            "init",
+            logger);
+
+    assertThatThrownBy(store::init).isEqualTo(expected);
+    assertThat(logger.initErrors)
+        .containsExactly(CapturingLogger.InitErrorArgs.create("init", expected));
+  }
+
+  @Test
+  public void shouldOnlyReportExceptionsToLogger() throws Exception {
+    MobiusStore<String, Integer, Boolean> store =
+        MobiusStore.create(
+            First::first, (model, event) -> Next.next(model + event), "init", logger);
+
+    store.init();
+    store.update(1);
+
+    assertThat(logger.beforeInit).isEmpty();
+    assertThat(logger.afterInit).isEmpty();
+    assertThat(logger.beforeUpdate).isEmpty();
+    assertThat(logger.afterUpdate).isEmpty();
+  }
+
+  @Test
+  public void shouldPropagateExceptionsWithoutLogger() throws Exception {
+    MobiusStore<String, Integer, Boolean> store =
+        MobiusStore.create(
+            First::first,
+            (model, event) -> {
+              throw expected;
+            },
+            "init");
+
+    assertThatThrownBy(() -> store.update(7)).isEqualTo(expected);
+  }
+}
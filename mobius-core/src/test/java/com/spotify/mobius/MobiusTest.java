@@ -22,16 +22,22 @@ package com.spotify.mobius;
 import static com.spotify.mobius.Effects.effects;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import com.spotify.mobius.actors.BoundedExecutorActorFactory;
+import com.spotify.mobius.actors.BoundedExecutorActorFactory.RejectionPolicy;
+import com.spotify.mobius.actors.SerialExecutorActorFactory;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.mailbox.Mailboxes;
 import com.spotify.mobius.runners.ImmediateWorkRunner;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.test.SimpleConnection;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -107,6 +113,42 @@ public class MobiusTest {
     await().atMost(Duration.ONE_SECOND).until(() -> runner.runCounter.get() == 1);
   }
 
+  @Test
+  public void shouldReportToMonitor() throws Exception {
+    RecordingMonitor monitor = new RecordingMonitor();
+    loop =
+        Mobius.loop(UPDATE, HANDLER)
+            .eventRunner(ImmediateWorkRunner::new)
+            .effectRunner(ImmediateWorkRunner::new)
+            .monitor(monitor)
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(8);
+
+    assertThat(monitor.dequeued, contains(8, 3));
+    assertThat(monitor.updated, contains(8, 3));
+    // the effect handler emits the second event while handling the first effect
+    assertThat(monitor.handled, containsInAnyOrder(true, false));
+    assertThat(monitor.observed, contains("start", "start8", "start83"));
+  }
+
+  @Test
+  public void shouldReportToMonitorWithEventMailbox() throws Exception {
+    RecordingMonitor monitor = new RecordingMonitor();
+    loop =
+        Mobius.loop(UPDATE, HANDLER)
+            .eventRunner(ImmediateWorkRunner::new)
+            .effectRunner(ImmediateWorkRunner::new)
+            .eventMailbox(Mailboxes::unbounded)
+            .monitor(monitor)
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(8);
+
+    assertThat(monitor.dequeued, contains(8, 3));
+    assertThat(monitor.updated, contains(8, 3));
+  }
+
   @Test
   public void shouldPermitUsingCustomEventRunner() throws Exception {
     TestableWorkRunner runner = new TestableWorkRunner();
@@ -118,6 +160,58 @@ public class MobiusTest {
     await().atMost(Duration.ONE_SECOND).until(() -> runner.runCounter.get() == 2);
   }
 
+  @Test
+  public void shouldPermitUsingSharedEventActorFactory() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    MobiusLoop.Factory<String, Integer, Boolean> factory =
+        Mobius.loop(UPDATE, HANDLER).eventActorFactory(new SerialExecutorActorFactory(executor));
+
+    MobiusLoop<String, Integer, Boolean> first = factory.startFrom("first");
+    MobiusLoop<String, Integer, Boolean> second = factory.startFrom("second");
+
+    first.dispatchEvent(3);
+    second.dispatchEvent(5);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> first.getMostRecentModel(), is("first3"));
+    await().atMost(Duration.ONE_SECOND).until(() -> second.getMostRecentModel(), is("second5"));
+
+    first.dispose();
+    second.dispose();
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldPermitUsingBoundedEffectActorFactory() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    BoundedExecutorActorFactory effectActorFactory =
+        new BoundedExecutorActorFactory(executor, 1, RejectionPolicy.QUEUE);
+
+    loop = Mobius.loop(UPDATE, HANDLER).effectActorFactory(effectActorFactory).startFrom(MY_MODEL);
+
+    loop.dispatchEvent(8);
+
+    // the even event produces an effect, which in turn produces the event '3'
+    await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start83"));
+
+    loop.dispose();
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldPermitBatchingEvents() throws Exception {
+    loop = Mobius.loop(UPDATE, HANDLER).eventBatchSize(16).startFrom(MY_MODEL);
+
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(5);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start15"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidEventBatchSize() throws Exception {
+    Mobius.loop(UPDATE, HANDLER).eventBatchSize(0);
+  }
+
   @Test
   public void shouldPermitUsingEventSource() throws Exception {
     TestEventSource eventSource = new TestEventSource();
@@ -249,4 +343,31 @@ public class MobiusTest {
       history.add(String.format("update error: %s, %s, %s", model, event, exception));
     }
   }
+
+  private static class RecordingMonitor implements MobiusLoop.Monitor<String, Integer, Boolean> {
+    private final List<Integer> dequeued = new CopyOnWriteArrayList<>();
+    private final List<Integer> updated = new CopyOnWriteArrayList<>();
+    private final List<Boolean> handled = new CopyOnWriteArrayList<>();
+    private final List<String> observed = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void eventDequeued(Integer event, long waitNanos, int queueDepth) {
+      dequeued.add(event);
+    }
+
+    @Override
+    public void updateCompleted(Integer event, long durationNanos) {
+      updated.add(event);
+    }
+
+    @Override
+    public void effectHandled(Boolean effect, long latencyNanos) {
+      handled.add(effect);
+    }
+
+    @Override
+    public void modelObserved(String model, long fanOutNanos) {
+      observed.add(model);
+    }
+  }
 }
@@ -0,0 +1,193 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelObserversTest {
+
+  private ModelObservers<String> underTest;
+  private RecordingConsumer<String> observer;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new ModelObservers<>();
+    observer = new RecordingConsumer<>();
+  }
+
+  @Test
+  public void shouldNotifyAllObservers() throws Exception {
+    RecordingConsumer<String> other = new RecordingConsumer<>();
+    underTest.add(observer);
+    underTest.add(other);
+
+    underTest.emit("a");
+    underTest.emit("b");
+
+    observer.assertValues("a", "b");
+    other.assertValues("a", "b");
+  }
+
+  @Test
+  public void shouldEmitMostRecentModelWhenAdded() throws Exception {
+    underTest.emit("a");
+    underTest.emit("b");
+
+    underTest.add(observer);
+
+    observer.assertValues("b");
+  }
+
+  @Test
+  public void shouldNotEmitWhenAddedIfNoModelYet() throws Exception {
+    underTest.add(observer);
+
+    observer.assertValues();
+  }
+
+  @Test
+  public void shouldStopNotifyingDisposedObserver() throws Exception {
+    Disposable subscription = underTest.add(observer);
+
+    underTest.emit("a");
+    subscription.dispose();
+    underTest.emit("b");
+
+    observer.assertValues("a");
+  }
+
+  @Test
+  public void shouldStopNotifyingObserversAfterClear() throws Exception {
+    underTest.add(observer);
+
+    underTest.clear();
+    underTest.emit("a");
+
+    observer.assertValues();
+  }
+
+  @Test
+  public void shouldSupportRemovingObserverDuringEmission() throws Exception {
+    AtomicReference<Disposable> otherSubscription = new AtomicReference<>();
+    RecordingConsumer<String> other = new RecordingConsumer<>();
+
+    underTest.add(
+        model -> {
+          if (model.equals("b")) {
+            otherSubscription.get().dispose();
+          }
+        });
+    otherSubscription.set(underTest.add(other));
+
+    underTest.emit("a");
+    underTest.emit("b");
+    underTest.emit("c");
+
+    other.assertValues("a");
+  }
+
+  @Test
+  public void shouldSupportAddingObserverDuringEmission() throws Exception {
+    underTest.add(
+        model -> {
+          if (model.equals("a")) {
+            underTest.add(observer);
+          }
+        });
+
+    underTest.emit("a");
+    underTest.emit("b");
+
+    observer.assertValues("a", "b");
+  }
+
+  @Test
+  public void shouldNotBlockAddingObserversWhileObserverIsSlow() throws Exception {
+    CountDownLatch observing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    underTest.add(
+        model -> {
+          observing.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        });
+
+    Future<?> emission = executor.submit(() -> underTest.emit("a"));
+    assertThat(observing.await(5, TimeUnit.SECONDS)).isTrue();
+
+    underTest.add(observer);
+    observer.assertValues("a");
+
+    release.countDown();
+    emission.get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldDeliverModelsInOrderWhenAddedConcurrently() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+
+    Future<?> emissions =
+        executor.submit(
+            () -> {
+              started.countDown();
+              for (int i = 1; i <= 10_000; i++) {
+                underTest.emit(String.valueOf(i));
+              }
+            });
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    List<List<Integer>> received = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      List<Integer> values = new CopyOnWriteArrayList<>();
+      received.add(values);
+      underTest.add(model -> values.add(Integer.parseInt(model)));
+    }
+
+    emissions.get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    for (List<Integer> values : received) {
+      for (int i = 1; i < values.size(); i++) {
+        assertThat(values.get(i)).isGreaterThan(values.get(i - 1));
+      }
+    }
+  }
+}
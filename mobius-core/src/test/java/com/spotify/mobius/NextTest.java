@@ -33,6 +33,8 @@ import static org.junit.Assert.assertTrue;
 import com.google.common.collect.Sets;
 import com.google.common.testing.EqualsTester;
 import com.spotify.mobius.internal_util.ImmutableUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -68,6 +70,42 @@ public class NextTest {
     assertFalse(next.hasEffects());
   }
 
+  @Test
+  public void noChangeShouldReuseSameInstance() throws Exception {
+    Next<String, String> first = noChange();
+    Next<String, String> second = noChange();
+
+    assertTrue(first == second);
+  }
+
+  @Test
+  public void shouldAdoptImmutableEffectsWithoutCopying() throws Exception {
+    Set<String> effects = setOf("e1", "e2");
+
+    assertTrue(Next.next("model", effects).effects() == effects);
+  }
+
+  @Test
+  public void orderedEffectsShouldKeepInsertionOrder() throws Exception {
+    Next<String, String> next = Next.next("model", Effects.ordered("e3", "e1", "e2", "e1"));
+
+    assertEquals(Arrays.asList("e3", "e1", "e2"), new ArrayList<>(next.effects()));
+  }
+
+  @Test
+  public void orderedEffectsShouldNotBeHashed() throws Exception {
+    Next<String, UnhashableEffect> next =
+        Next.next("model", Effects.ordered(new UnhashableEffect(1), new UnhashableEffect(2)));
+
+    assertEquals(2, next.effects().size());
+    assertTrue(next.effects().contains(new UnhashableEffect(2)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void orderedEffectsShouldBeImmutable() throws Exception {
+    Effects.ordered("e1").add("e2");
+  }
+
   @Test
   public void nextEffectsOnlyHasEffects() throws Exception {
     Next<String, String> next = dispatch(effects("foo"));
@@ -192,4 +230,22 @@ public class NextTest {
   private Next<?, Number> canInferFromVarargAndEffectsSingle() {
     return Next.next("m", effects((short) 1));
   }
+
+  private static class UnhashableEffect {
+    private final int id;
+
+    UnhashableEffect(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof UnhashableEffect && ((UnhashableEffect) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      throw new AssertionError("should not be hashed");
+    }
+  }
 }
@@ -0,0 +1,230 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static com.spotify.mobius.actors.BoundedExecutorActorFactory.RejectionPolicy.CALLER_RUNS;
+import static com.spotify.mobius.actors.BoundedExecutorActorFactory.RejectionPolicy.FAIL;
+import static com.spotify.mobius.actors.BoundedExecutorActorFactory.RejectionPolicy.QUEUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.ConnectionException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedExecutorActorFactoryTest {
+
+  private Queue<Runnable> tasks;
+  private List<String> received;
+  private List<Thread> threads;
+
+  @Before
+  public void setUp() throws Exception {
+    tasks = new ArrayDeque<>();
+    received = new CopyOnWriteArrayList<>();
+    threads = new CopyOnWriteArrayList<>();
+  }
+
+  @Test
+  public void shouldRunMessagesOnExecutor() throws Exception {
+    Actor<String> actor = createActor(2, FAIL);
+
+    actor.accept("a");
+    assertThat(received).isEmpty();
+
+    runAllTasks();
+    assertThat(received).containsExactly("a");
+  }
+
+  @Test
+  public void shouldLimitConcurrencyPerActor() throws Exception {
+    Actor<String> actor = createActor(2, QUEUE);
+
+    actor.accept("a");
+    actor.accept("b");
+    actor.accept("c");
+
+    assertThat(tasks).hasSize(2);
+  }
+
+  @Test
+  public void shouldApplyQuotaSeparatelyToEachActor() throws Exception {
+    BoundedExecutorActorFactory factory = new BoundedExecutorActorFactory(tasks::add, 1, FAIL);
+    Actor<String> first = factory.create(received::add);
+    Actor<String> second = factory.create(received::add);
+
+    first.accept("a");
+    second.accept("b");
+
+    assertThat(tasks).hasSize(2);
+  }
+
+  @Test
+  public void shouldRunOnCallerWhenQuotaUsedUpWithCallerRuns() throws Exception {
+    Actor<String> actor = createActor(1, CALLER_RUNS);
+
+    actor.accept("a");
+    actor.accept("b");
+
+    assertThat(received).containsExactly("b");
+    assertThat(threads).containsExactly(Thread.currentThread());
+
+    runAllTasks();
+    assertThat(received).containsExactly("b", "a");
+  }
+
+  @Test
+  public void shouldQueueUntilBelowQuotaWithQueue() throws Exception {
+    BoundedExecutorActorFactory factory = new BoundedExecutorActorFactory(tasks::add, 1, QUEUE);
+    Actor<String> actor = factory.create(received::add);
+
+    actor.accept("a");
+    actor.accept("b");
+    actor.accept("c");
+
+    assertThat(tasks).hasSize(1);
+    assertThat(factory.queuedCount()).isEqualTo(2);
+
+    tasks.remove().run();
+    assertThat(received).containsExactly("a");
+    assertThat(tasks).hasSize(1);
+    assertThat(factory.queuedCount()).isEqualTo(1);
+
+    runAllTasks();
+    assertThat(received).containsExactly("a", "b", "c");
+    assertThat(factory.queuedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldThrowConnectionExceptionWhenQuotaUsedUpWithFail() throws Exception {
+    Actor<String> actor = createActor(1, FAIL);
+
+    actor.accept("a");
+
+    assertThatThrownBy(() -> actor.accept("b"))
+        .isInstanceOf(ConnectionException.class)
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+  }
+
+  @Test
+  public void shouldReleaseQuotaWhenConsumerThrows() throws Exception {
+    BoundedExecutorActorFactory factory = new BoundedExecutorActorFactory(tasks::add, 1, FAIL);
+    Actor<String> actor =
+        factory.create(
+            message -> {
+              if (message.equals("crash")) {
+                throw new RuntimeException("expected");
+              }
+              received.add(message);
+            });
+
+    actor.accept("crash");
+    runAllTasks();
+    actor.accept("a");
+    runAllTasks();
+
+    assertThat(received).containsExactly("a");
+    assertThat(factory.activeCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldDiscardQueuedMessagesOnDispose() throws Exception {
+    BoundedExecutorActorFactory factory = new BoundedExecutorActorFactory(tasks::add, 1, QUEUE);
+    Actor<String> actor = factory.create(received::add);
+
+    actor.accept("a");
+    actor.accept("b");
+    actor.dispose();
+    actor.accept("c");
+    runAllTasks();
+
+    assertThat(received).isEmpty();
+    assertThat(factory.queuedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldCountActiveMessages() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(3);
+    AtomicInteger failures = new AtomicInteger();
+
+    BoundedExecutorActorFactory factory = new BoundedExecutorActorFactory(executor, 3, FAIL);
+    Actor<String> actor =
+        factory.create(
+            message -> {
+              started.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                failures.incrementAndGet();
+              }
+              done.countDown();
+            });
+
+    actor.accept("a");
+    actor.accept("b");
+    actor.accept("c");
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(factory.activeCount()).isEqualTo(3);
+
+    release.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(factory.activeCount()).isEqualTo(0);
+    assertThat(failures.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRejectInvalidMaxConcurrency() throws Exception {
+    assertThatThrownBy(() -> new BoundedExecutorActorFactory(tasks::add, 0, QUEUE))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Actor<String> createActor(
+      int maxConcurrency, BoundedExecutorActorFactory.RejectionPolicy policy) {
+    return new BoundedExecutorActorFactory(tasks::add, maxConcurrency, policy)
+        .create(
+            message -> {
+              threads.add(Thread.currentThread());
+              received.add(message);
+            });
+  }
+
+  private void runAllTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove().run();
+    }
+  }
+}
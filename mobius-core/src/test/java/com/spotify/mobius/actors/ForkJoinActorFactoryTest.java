@@ -0,0 +1,187 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForkJoinActorFactoryTest {
+
+  private ForkJoinPool pool;
+  private ForkJoinActorFactory underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    underTest = new ForkJoinActorFactory(pool, 10);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void shouldConsumeMessagesInOrder() throws Exception {
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1000);
+
+    Actor<Integer> actor =
+        underTest.create(
+            message -> {
+              received.add(message);
+              done.countDown();
+            });
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      actor.accept(i);
+      expected.add(i);
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(received).isEqualTo(expected);
+  }
+
+  @Test
+  public void shouldNeverConsumeConcurrently() throws Exception {
+    AtomicInteger active = new AtomicInteger();
+    AtomicBoolean overlapped = new AtomicBoolean();
+    CountDownLatch done = new CountDownLatch(4000);
+
+    Actor<Integer> actor =
+        underTest.create(
+            message -> {
+              if (active.incrementAndGet() > 1) {
+                overlapped.set(true);
+              }
+              active.decrementAndGet();
+              done.countDown();
+            });
+
+    List<Thread> senders = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread sender =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 1000; i++) {
+                  actor.accept(i);
+                }
+              });
+      senders.add(sender);
+      sender.start();
+    }
+    for (Thread sender : senders) {
+      sender.join();
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(overlapped.get()).isFalse();
+  }
+
+  @Test
+  public void shouldLetIdleWorkersStealDrainsScheduledFromBusyWorker() throws Exception {
+    CountDownLatch otherConsumed = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+
+    Actor<String> other = underTest.create(message -> otherConsumed.countDown());
+    Actor<String> busy =
+        underTest.create(
+            message -> {
+              // the other actor's drain is queued on this worker, which stays busy until it's run
+              other.accept("hello");
+              try {
+                if (otherConsumed.await(5, TimeUnit.SECONDS)) {
+                  done.countDown();
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+
+    busy.accept("start");
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void shouldContinueAfterConsumerThrows() throws Exception {
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(2);
+
+    Actor<Integer> actor =
+        underTest.create(
+            message -> {
+              if (message == 1) {
+                throw new RuntimeException("expected");
+              }
+              received.add(message);
+              done.countDown();
+            });
+
+    actor.accept(0);
+    actor.accept(1);
+    actor.accept(2);
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(received).containsExactly(0, 2);
+  }
+
+  @Test
+  public void shouldDiscardMessagesAfterDispose() throws Exception {
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    Actor<Integer> actor = underTest.create(received::add);
+
+    actor.dispose();
+    actor.accept(1);
+    pool.awaitQuiescence(1, TimeUnit.SECONDS);
+
+    assertThat(received).isEmpty();
+  }
+
+  @Test
+  public void shouldRejectPoolNotInAsyncMode() throws Exception {
+    ForkJoinPool lifoPool = new ForkJoinPool(1);
+    try {
+      assertThatThrownBy(() -> new ForkJoinActorFactory(lifoPool))
+          .isInstanceOf(IllegalArgumentException.class);
+    } finally {
+      lifoPool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldRejectInvalidThroughput() throws Exception {
+    assertThatThrownBy(() -> new ForkJoinActorFactory(pool, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.actors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerialExecutorActorTest {
+
+  private ExecutorService executor;
+  private Queue<Runnable> tasks;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newFixedThreadPool(4);
+    tasks = new ArrayDeque<>();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldConsumeMessagesInOrder() throws Exception {
+    List<Integer> received = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1000);
+
+    Actor<Integer> actor =
+        new SerialExecutorActor<>(
+            executor,
+            message -> {
+              received.add(message);
+              done.countDown();
+            },
+            10);
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      actor.accept(i);
+      expected.add(i);
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(received).isEqualTo(expected);
+  }
+
+  @Test
+  public void shouldNeverConsumeConcurrently() throws Exception {
+    AtomicBoolean consuming = new AtomicBoolean();
+    AtomicBoolean overlapped = new AtomicBoolean();
+    CountDownLatch done = new CountDownLatch(8 * 500);
+
+    Actor<Integer> actor =
+        new SerialExecutorActor<>(
+            executor,
+            message -> {
+              if (!consuming.compareAndSet(false, true)) {
+                overlapped.set(true);
+              }
+              Thread.yield();
+              consuming.set(false);
+              done.countDown();
+            },
+            3);
+
+    ExecutorService producers = Executors.newFixedThreadPool(8);
+    for (int p = 0; p < 8; p++) {
+      producers.submit(
+          () -> {
+            for (int i = 0; i < 500; i++) {
+              actor.accept(i);
+            }
+          });
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(overlapped.get()).isFalse();
+    producers.shutdownNow();
+  }
+
+  @Test
+  public void shouldShareBoundedThreadsBetweenManyActors() throws Exception {
+    int actorCount = 10_000;
+    Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    AtomicInteger consumed = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(actorCount * 3);
+
+    ActorFactory factory = new SerialExecutorActorFactory(executor);
+    List<Actor<Integer>> actors = new ArrayList<>();
+
+    for (int i = 0; i < actorCount; i++) {
+      actors.add(
+          factory.<Integer>create(
+              message -> {
+                threads.add(Thread.currentThread());
+                consumed.incrementAndGet();
+                done.countDown();
+              }));
+    }
+
+    for (int round = 0; round < 3; round++) {
+      for (Actor<Integer> actor : actors) {
+        actor.accept(round);
+      }
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(consumed.get()).isEqualTo(actorCount * 3);
+    assertThat(threads.size()).isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  public void shouldYieldThreadAfterConsumingThroughput() throws Exception {
+    List<Integer> received = new ArrayList<>();
+
+    Actor<Integer> actor = new SerialExecutorActor<>(tasks::add, received::add, 2);
+
+    actor.accept(1);
+    actor.accept(2);
+    actor.accept(3);
+
+    tasks.remove().run();
+    assertThat(received).containsExactly(1, 2);
+
+    runAllTasks();
+    assertThat(received).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void shouldContinueAfterConsumerThrows() throws Exception {
+    List<Integer> received = new ArrayList<>();
+
+    Actor<Integer> actor =
+        new SerialExecutorActor<>(
+            tasks::add,
+            message -> {
+              if (message == 1) {
+                throw new RuntimeException("expected");
+              }
+              received.add(message);
+            },
+            10);
+
+    actor.accept(1);
+    actor.accept(2);
+    runAllTasks();
+
+    assertThat(received).containsExactly(2);
+  }
+
+  @Test
+  public void shouldDiscardMessagesAfterDispose() throws Exception {
+    List<Integer> received = new ArrayList<>();
+
+    Actor<Integer> actor = new SerialExecutorActor<>(tasks::add, received::add, 10);
+
+    actor.accept(1);
+    actor.dispose();
+    actor.accept(2);
+    runAllTasks();
+
+    assertThat(received).isEmpty();
+  }
+
+  @Test
+  public void shouldNotShutDownSharedExecutorOnDispose() throws Exception {
+    new SerialExecutorActorFactory(executor).create(message -> {}).dispose();
+
+    assertThat(executor.isShutdown()).isFalse();
+  }
+
+  @Test
+  public void shouldRejectInvalidThroughput() throws Exception {
+    assertThatThrownBy(() -> new SerialExecutorActorFactory(executor, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void runAllTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove().run();
+    }
+  }
+}
@@ -19,12 +19,17 @@
  */
 package com.spotify.mobius.internal_util;
 
+import static com.spotify.mobius.internal_util.ImmutableUtil.immutableSet;
 import static com.spotify.mobius.internal_util.ImmutableUtil.setOf;
 import static com.spotify.mobius.internal_util.ImmutableUtil.unionSets;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.Sets;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.Test;
 
 public class ImmutableUtilTest {
@@ -34,4 +39,28 @@ public class ImmutableUtilTest {
         unionSets(Sets.newHashSet("e1", "e2"), setOf("e3", "e4")),
         equalTo(setOf("e1", "e2", "e3", "e4")));
   }
+
+  @Test
+  public void shouldReturnImmutableSetsAsTheyAre() throws Exception {
+    Set<String> set = setOf("e1", "e2");
+
+    assertThat(immutableSet(set), sameInstance(set));
+  }
+
+  @Test
+  public void shouldUseIndexedSetsForSmallSets() throws Exception {
+    assertThat(setOf("e1", "e2", "e3"), instanceOf(IndexedSet.class));
+    assertThat(immutableSet(Sets.newHashSet("e1", "e2", "e3")), instanceOf(IndexedSet.class));
+  }
+
+  @Test
+  public void shouldSupportLargeSets() throws Exception {
+    Set<Integer> large = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      large.add(i);
+    }
+
+    assertThat(immutableSet(large), equalTo(large));
+    assertThat(setOf(large.toArray(new Integer[0])), equalTo(large));
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.internal_util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.testing.EqualsTester;
+import java.util.Iterator;
+import org.junit.Test;
+
+public class IndexedSetTest {
+
+  @Test
+  public void shouldSupportAllSizes() throws Exception {
+    assertThat(IndexedSet.of()).isEmpty();
+    assertThat(IndexedSet.of("a")).containsExactly("a");
+    assertThat(IndexedSet.of("a", "b")).containsExactly("a", "b");
+    assertThat(IndexedSet.copyOf("a", "b", "c", "d")).containsExactly("a", "b", "c", "d");
+  }
+
+  @Test
+  public void shouldAccessElementsByIndexInInsertionOrder() throws Exception {
+    IndexedSet<String> set = IndexedSet.copyOf("c", "a", "b");
+
+    assertThat(set.size()).isEqualTo(3);
+    assertThat(set.get(0)).isEqualTo("c");
+    assertThat(set.get(1)).isEqualTo("a");
+    assertThat(set.get(2)).isEqualTo("b");
+  }
+
+  @Test
+  public void shouldDiscardDuplicates() throws Exception {
+    assertThat(IndexedSet.of("a", "a")).containsExactly("a");
+    assertThat(IndexedSet.copyOf("a", "b", "a", "c", "b")).containsExactly("a", "b", "c");
+    assertThat(IndexedSet.copyOf("a", "a", "a")).containsExactly("a");
+  }
+
+  @Test
+  public void shouldImplementContains() throws Exception {
+    IndexedSet<String> set = IndexedSet.copyOf("a", "b", "c");
+
+    assertThat(set.contains("b")).isTrue();
+    assertThat(set.contains("d")).isFalse();
+    assertThat(set.contains(null)).isFalse();
+  }
+
+  @Test
+  public void shouldBeEqualToOtherSetsWithSameElements() throws Exception {
+    new EqualsTester()
+        .addEqualityGroup(IndexedSet.of(), ImmutableSet.of())
+        .addEqualityGroup(IndexedSet.of("a"), ImmutableSet.of("a"))
+        .addEqualityGroup(
+            IndexedSet.of("a", "b"), IndexedSet.of("b", "a"), ImmutableSet.of("a", "b"))
+        .addEqualityGroup(
+            IndexedSet.copyOf("a", "b", "c"),
+            IndexedSet.copyOf("c", "b", "a"),
+            ImmutableSet.of("a", "b", "c"))
+        .testEquals();
+  }
+
+  @Test
+  public void shouldRejectNulls() throws Exception {
+    assertThatThrownBy(() -> IndexedSet.of((String) null)).isInstanceOf(NullPointerException.class);
+    assertThatThrownBy(() -> IndexedSet.of("a", null)).isInstanceOf(NullPointerException.class);
+    assertThatThrownBy(() -> IndexedSet.copyOf("a", "b", null))
+        .isInstanceOf(NullPointerException.class);
+  }
+
+  @Test
+  public void shouldNotBeModifiable() throws Exception {
+    IndexedSet<String> set = IndexedSet.copyOf("a", "b", "c");
+
+    assertThatThrownBy(() -> set.add("d")).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> set.remove("a")).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(set::clear).isInstanceOf(UnsupportedOperationException.class);
+
+    Iterator<String> iterator = set.iterator();
+    iterator.next();
+    assertThatThrownBy(iterator::remove).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void shouldThrowForIndexOutOfBounds() throws Exception {
+    assertThatThrownBy(() -> IndexedSet.of().get(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> IndexedSet.of("a").get(1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> IndexedSet.of("a", "b").get(2))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> IndexedSet.copyOf("a", "b", "c").get(3))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
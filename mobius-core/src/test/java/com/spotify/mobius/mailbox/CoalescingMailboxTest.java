@@ -0,0 +1,107 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoalescingMailboxTest {
+
+  private CoalescingMailbox<String> mailbox;
+
+  @Before
+  public void setUp() throws Exception {
+    // the key is everything before the '=', messages without one aren't coalesced
+    mailbox =
+        Mailboxes.coalescing(
+            message -> message.contains("=") ? message.substring(0, message.indexOf('=')) : null);
+  }
+
+  @Test
+  public void shouldKeepOnlyLatestMessageForKey() throws Exception {
+    mailbox.put("progress=1");
+    mailbox.put("progress=2");
+    mailbox.put("progress=3");
+
+    assertThat(pollAll()).containsExactly("progress=3");
+    assertThat(mailbox.coalescedCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReplaceMessagesInPlace() throws Exception {
+    mailbox.put("a=1");
+    mailbox.put("b=1");
+    mailbox.put("a=2");
+    mailbox.put("c=1");
+
+    assertThat(pollAll()).containsExactly("a=2", "b=1", "c=1");
+  }
+
+  @Test
+  public void shouldNotCoalesceMessagesWithoutKey() throws Exception {
+    mailbox.put("click");
+    mailbox.put("click");
+    mailbox.offer("click");
+
+    assertThat(pollAll()).containsExactly("click", "click", "click");
+    assertThat(mailbox.coalescedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldNotCoalesceWithMessagesAlreadyTaken() throws Exception {
+    mailbox.put("a=1");
+    assertThat(mailbox.poll()).isEqualTo("a=1");
+
+    mailbox.put("a=2");
+
+    assertThat(pollAll()).containsExactly("a=2");
+    assertThat(mailbox.coalescedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldOnlyCountMessagesInQueue() throws Exception {
+    mailbox.put("a=1");
+    mailbox.put("a=2");
+    mailbox.put("b=1");
+
+    assertThat(mailbox.size()).isEqualTo(2);
+
+    mailbox.clear();
+    assertThat(mailbox.size()).isEqualTo(0);
+
+    mailbox.put("a=3");
+    assertThat(pollAll()).containsExactly("a=3");
+  }
+
+  private List<String> pollAll() {
+    List<String> result = new ArrayList<>();
+    String message;
+
+    while ((message = mailbox.poll()) != null) {
+      result.add(message);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.awaitility.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MailboxesTest {
+
+  private List<String> overflowed;
+  private List<OverflowPolicy> policies;
+  private OverflowListener<String> listener;
+
+  @Before
+  public void setUp() throws Exception {
+    overflowed = new ArrayList<>();
+    policies = new ArrayList<>();
+    listener =
+        (message, policy) -> {
+          overflowed.add(message);
+          policies.add(policy);
+        };
+  }
+
+  @Test
+  public void unboundedShouldAcceptEverything() throws Exception {
+    Mailbox<Integer> mailbox = Mailboxes.unbounded();
+
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(mailbox.put(i)).isTrue();
+    }
+
+    assertThat(mailbox.size()).isEqualTo(10_000);
+    assertThat(mailbox.poll()).isEqualTo(0);
+  }
+
+  @Test
+  public void boundedShouldReturnMessagesInOrder() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(3, OverflowPolicy.FAIL);
+
+    mailbox.put("a");
+    mailbox.put("b");
+
+    assertThat(mailbox.poll()).isEqualTo("a");
+    assertThat(mailbox.poll()).isEqualTo("b");
+    assertThat(mailbox.poll()).isNull();
+  }
+
+  @Test
+  public void dropNewestShouldDiscardNewMessage() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(2, OverflowPolicy.DROP_NEWEST, listener);
+
+    assertThat(mailbox.put("a")).isTrue();
+    assertThat(mailbox.put("b")).isTrue();
+    assertThat(mailbox.put("c")).isFalse();
+
+    assertThat(drain(mailbox)).containsExactly("a", "b");
+    assertThat(overflowed).containsExactly("c");
+    assertThat(policies).containsExactly(OverflowPolicy.DROP_NEWEST);
+  }
+
+  @Test
+  public void dropOldestShouldEvictOldestMessage() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(2, OverflowPolicy.DROP_OLDEST, listener);
+
+    assertThat(mailbox.put("a")).isTrue();
+    assertThat(mailbox.put("b")).isTrue();
+    assertThat(mailbox.put("c")).isTrue();
+    assertThat(mailbox.offer("d")).isTrue();
+
+    assertThat(drain(mailbox)).containsExactly("c", "d");
+    assertThat(overflowed).containsExactly("a", "b");
+  }
+
+  @Test
+  public void failShouldThrowWhenFull() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(1, OverflowPolicy.FAIL, listener);
+
+    mailbox.put("a");
+
+    assertThatThrownBy(() -> mailbox.put("b")).isInstanceOf(MailboxOverflowException.class);
+    assertThat(overflowed).containsExactly("b");
+    assertThat(drain(mailbox)).containsExactly("a");
+  }
+
+  @Test
+  public void offerShouldRejectWithoutThrowingWhenFull() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(1, OverflowPolicy.FAIL, listener);
+
+    assertThat(mailbox.offer("a")).isTrue();
+    assertThat(mailbox.offer("b")).isFalse();
+    assertThat(overflowed).containsExactly("b");
+  }
+
+  @Test
+  public void offerShouldNotBlockWhenFull() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(1, OverflowPolicy.BLOCK, listener);
+
+    assertThat(mailbox.offer("a")).isTrue();
+    assertThat(mailbox.offer("b")).isFalse();
+  }
+
+  @Test
+  public void blockShouldWaitForSpace() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(1, OverflowPolicy.BLOCK, listener);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Thread> putter = new AtomicReference<>();
+
+    mailbox.put("a");
+
+    Future<Boolean> put =
+        executor.submit(
+            () -> {
+              putter.set(Thread.currentThread());
+              return mailbox.put("b");
+            });
+
+    // the put is blocked once its thread is parked waiting for space
+    await()
+        .atMost(Duration.FIVE_SECONDS)
+        .until(() -> putter.get() != null && putter.get().getState() == Thread.State.WAITING);
+    assertThat(put.isDone()).isFalse();
+
+    assertThat(mailbox.poll()).isEqualTo("a");
+    assertThat(put.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(mailbox.poll()).isEqualTo("b");
+
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldSupportClearing() throws Exception {
+    Mailbox<String> mailbox = Mailboxes.bounded(2, OverflowPolicy.FAIL);
+
+    mailbox.put("a");
+    mailbox.clear();
+
+    assertThat(mailbox.size()).isEqualTo(0);
+    assertThat(mailbox.put("b")).isTrue();
+  }
+
+  @Test
+  public void shouldRejectInvalidCapacity() throws Exception {
+    assertThatThrownBy(() -> Mailboxes.bounded(0, OverflowPolicy.FAIL))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<String> drain(Mailbox<String> mailbox) {
+    List<String> result = new ArrayList<>();
+
+    String message;
+    while ((message = mailbox.poll()) != null) {
+      result.add(message);
+    }
+
+    return result;
+  }
+}
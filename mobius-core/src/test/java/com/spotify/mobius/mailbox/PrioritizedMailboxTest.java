@@ -0,0 +1,235 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.mailbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.awaitility.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrioritizedMailboxTest {
+
+  private Mailbox<String> mailbox;
+
+  @Before
+  public void setUp() throws Exception {
+    // the lane is given by the first character of the message
+    mailbox = Mailboxes.prioritized(message -> message.charAt(0) - '0', 3, 2);
+  }
+
+  @Test
+  public void shouldTakeMessagesFromHighestPriorityLaneFirst() throws Exception {
+    mailbox.put("2a");
+    mailbox.put("1a");
+    mailbox.put("0a");
+
+    assertThat(pollAll()).containsExactly("0a", "1a", "2a");
+  }
+
+  @Test
+  public void shouldKeepOrderWithinLane() throws Exception {
+    mailbox.put("1a");
+    mailbox.put("1b");
+    mailbox.put("1c");
+
+    assertThat(pollAll()).containsExactly("1a", "1b", "1c");
+  }
+
+  @Test
+  public void shouldLetPassedOverLaneDeliverAfterFairnessQuota() throws Exception {
+    mailbox.put("1a");
+    mailbox.put("1b");
+    for (int i = 0; i < 5; i++) {
+      mailbox.put("0" + i);
+    }
+
+    assertThat(pollAll()).containsExactly("00", "01", "1a", "02", "03", "1b", "04");
+  }
+
+  @Test
+  public void shouldNotStarveAnyLane() throws Exception {
+    mailbox.put("2a");
+    mailbox.put("1a");
+    for (int i = 0; i < 10; i++) {
+      mailbox.put("0" + i);
+    }
+
+    List<String> polled = pollAll();
+
+    assertThat(polled.indexOf("1a")).isLessThanOrEqualTo(2);
+    assertThat(polled.indexOf("2a")).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  public void shouldTrackSizeAcrossLanes() throws Exception {
+    mailbox.put("0a");
+    mailbox.put("1a");
+    mailbox.offer("2a");
+
+    assertThat(mailbox.size()).isEqualTo(3);
+
+    mailbox.poll();
+    assertThat(mailbox.size()).isEqualTo(2);
+
+    mailbox.clear();
+    assertThat(mailbox.size()).isEqualTo(0);
+    assertThat(mailbox.poll()).isNull();
+  }
+
+  @Test
+  public void shouldRejectMessagesForUnknownLanes() throws Exception {
+    assertThatThrownBy(() -> mailbox.put("3a")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> mailbox.offer("/a")).isInstanceOf(IllegalArgumentException.class);
+    assertThat(mailbox.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRejectInvalidConfiguration() throws Exception {
+    assertThatThrownBy(() -> Mailboxes.<String>prioritized(message -> 0, 0, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Mailboxes.<String>prioritized(message -> 0, 1, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () -> Mailboxes.<String>prioritized(message -> 0, 1, 1, 0, OverflowPolicy.FAIL))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldNeverReportNegativeSize() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> producer =
+        executor.submit(
+            () -> {
+              for (int i = 0; i < 100_000; i++) {
+                mailbox.offer("1" + i);
+              }
+            });
+
+    while (!producer.isDone()) {
+      mailbox.poll();
+      assertThat(mailbox.size()).isGreaterThanOrEqualTo(0);
+    }
+
+    producer.get();
+    executor.shutdown();
+  }
+
+  @Test
+  public void boundedShouldDropNewestMessageWhenFull() throws Exception {
+    List<String> overflowed = new ArrayList<>();
+    mailbox =
+        Mailboxes.prioritized(
+            message -> message.charAt(0) - '0',
+            3,
+            2,
+            2,
+            OverflowPolicy.DROP_NEWEST,
+            (message, policy) -> overflowed.add(message));
+
+    assertThat(mailbox.put("1a")).isTrue();
+    assertThat(mailbox.put("1b")).isTrue();
+    assertThat(mailbox.put("0a")).isFalse();
+
+    assertThat(pollAll()).containsExactly("1a", "1b");
+    assertThat(overflowed).containsExactly("0a");
+  }
+
+  @Test
+  public void boundedShouldDropOldestMessageOfLowestPriorityLaneWhenFull() throws Exception {
+    List<String> overflowed = new ArrayList<>();
+    mailbox =
+        Mailboxes.prioritized(
+            message -> message.charAt(0) - '0',
+            3,
+            2,
+            3,
+            OverflowPolicy.DROP_OLDEST,
+            (message, policy) -> overflowed.add(message));
+
+    mailbox.put("0a");
+    mailbox.put("2a");
+    mailbox.put("2b");
+    mailbox.put("1a");
+
+    assertThat(overflowed).containsExactly("2a");
+    assertThat(pollAll()).containsExactly("0a", "1a", "2b");
+  }
+
+  @Test
+  public void boundedShouldThrowWhenFullWithFail() throws Exception {
+    mailbox =
+        Mailboxes.prioritized(message -> message.charAt(0) - '0', 3, 2, 1, OverflowPolicy.FAIL);
+
+    mailbox.put("1a");
+
+    assertThatThrownBy(() -> mailbox.put("0a")).isInstanceOf(MailboxOverflowException.class);
+    assertThat(mailbox.offer("0a")).isFalse();
+    assertThat(mailbox.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void boundedShouldWaitForSpaceWithBlock() throws Exception {
+    mailbox =
+        Mailboxes.prioritized(message -> message.charAt(0) - '0', 3, 2, 1, OverflowPolicy.BLOCK);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Thread> putter = new AtomicReference<>();
+
+    mailbox.put("1a");
+
+    Future<Boolean> put =
+        executor.submit(
+            () -> {
+              putter.set(Thread.currentThread());
+              return mailbox.put("0a");
+            });
+
+    await()
+        .atMost(Duration.FIVE_SECONDS)
+        .until(() -> putter.get() != null && putter.get().getState() == Thread.State.WAITING);
+    assertThat(put.isDone()).isFalse();
+
+    assertThat(mailbox.poll()).isEqualTo("1a");
+    assertThat(put.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(mailbox.poll()).isEqualTo("0a");
+
+    executor.shutdown();
+  }
+
+  private List<String> pollAll() {
+    List<String> result = new ArrayList<>();
+    String message;
+
+    while ((message = mailbox.poll()) != null) {
+      result.add(message);
+    }
+
+    return result;
+  }
+}
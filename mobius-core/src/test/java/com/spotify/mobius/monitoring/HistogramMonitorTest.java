@@ -0,0 +1,85 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HistogramMonitorTest {
+
+  private HistogramMonitor<String, Object, String> monitor;
+
+  @Before
+  public void setUp() throws Exception {
+    monitor = new HistogramMonitor<>();
+  }
+
+  @Test
+  public void shouldRecordEachMeasurementInItsHistogram() throws Exception {
+    monitor.eventDequeued("event", 100, 3);
+    monitor.updateCompleted("event", 200);
+    monitor.effectHandled("effect", 300);
+    monitor.modelObserved("model", 400);
+
+    assertThat(monitor.eventWait().max()).isEqualTo(100);
+    assertThat(monitor.queueDepth().max()).isEqualTo(3);
+    assertThat(monitor.updateDuration().max()).isEqualTo(200);
+    assertThat(monitor.effectLatency().max()).isEqualTo(300);
+    assertThat(monitor.observerFanOut().max()).isEqualTo(400);
+  }
+
+  @Test
+  public void shouldRecordUpdateDurationPerEventClass() throws Exception {
+    monitor.updateCompleted("string event", 10);
+    monitor.updateCompleted("another string event", 20);
+    monitor.updateCompleted(42, 1000);
+
+    assertThat(monitor.updateDurationByEventClass()).containsOnlyKeys(String.class, Integer.class);
+    assertThat(monitor.updateDurationByEventClass().get(String.class).count()).isEqualTo(2);
+    assertThat(monitor.updateDurationByEventClass().get(Integer.class).max()).isEqualTo(1000);
+    assertThat(monitor.updateDuration().count()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldRecordEventClassesBeyondTheLimitTogether() throws Exception {
+    monitor = new HistogramMonitor<>(2);
+
+    monitor.updateCompleted("string event", 10);
+    monitor.updateCompleted(42, 20);
+    monitor.updateCompleted(42L, 30);
+    monitor.updateCompleted(4.2, 40);
+    monitor.updateCompleted("another string event", 50);
+
+    assertThat(monitor.updateDurationByEventClass()).containsOnlyKeys(String.class, Integer.class);
+    assertThat(monitor.updateDurationByEventClass().get(String.class).count()).isEqualTo(2);
+    assertThat(monitor.updateDurationOfOtherEventClasses().count()).isEqualTo(2);
+    assertThat(monitor.updateDurationOfOtherEventClasses().max()).isEqualTo(40);
+    assertThat(monitor.updateDuration().count()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldRejectNegativeEventClassLimit() throws Exception {
+    assertThatThrownBy(() -> new HistogramMonitor<>(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
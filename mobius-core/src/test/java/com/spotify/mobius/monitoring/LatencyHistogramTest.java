@@ -0,0 +1,144 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  private LatencyHistogram histogram;
+
+  @Before
+  public void setUp() throws Exception {
+    histogram = new LatencyHistogram();
+  }
+
+  @Test
+  public void shouldReportZeroWhenEmpty() throws Exception {
+    assertThat(histogram.count()).isEqualTo(0);
+    assertThat(histogram.max()).isEqualTo(0);
+    assertThat(histogram.mean()).isEqualTo(0.0);
+    assertThat(histogram.valueAtPercentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldTrackCountMaxAndMeanExactly() throws Exception {
+    histogram.record(10);
+    histogram.record(20);
+    histogram.record(1_000_003);
+
+    assertThat(histogram.count()).isEqualTo(3);
+    assertThat(histogram.max()).isEqualTo(1_000_003);
+    assertThat(histogram.mean()).isEqualTo(1_000_033 / 3.0);
+  }
+
+  @Test
+  public void shouldReportSmallValuesExactly() throws Exception {
+    for (int i = 0; i < 8; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.valueAtPercentile(0)).isEqualTo(0);
+    assertThat(histogram.valueAtPercentile(50)).isEqualTo(3);
+    assertThat(histogram.valueAtPercentile(100)).isEqualTo(7);
+  }
+
+  @Test
+  public void shouldReportPercentilesWithinBucketPrecision() throws Exception {
+    for (int i = 1; i <= 100_000; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.valueAtPercentile(50)).isBetween(50_000L, 56_250L);
+    assertThat(histogram.valueAtPercentile(99)).isBetween(99_000L, 100_000L);
+    assertThat(histogram.valueAtPercentile(100)).isEqualTo(100_000);
+  }
+
+  @Test
+  public void shouldRecordNegativeValuesAsZero() throws Exception {
+    histogram.record(-5);
+
+    assertThat(histogram.count()).isEqualTo(1);
+    assertThat(histogram.max()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldHandleLargestValues() throws Exception {
+    histogram.record(Long.MAX_VALUE);
+
+    assertThat(histogram.valueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void bucketsShouldCoverAllValuesWithoutGaps() throws Exception {
+    long previousUpper = -1;
+
+    for (int i = 0; LatencyHistogram.upperBound(i) != Long.MAX_VALUE; i++) {
+      assertThat(LatencyHistogram.lowerBound(i)).isEqualTo(previousUpper + 1);
+      assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.lowerBound(i))).isEqualTo(i);
+      assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.upperBound(i))).isEqualTo(i);
+      previousUpper = LatencyHistogram.upperBound(i);
+    }
+  }
+
+  @Test
+  public void shouldRejectInvalidPercentiles() throws Exception {
+    assertThatThrownBy(() -> histogram.valueAtPercentile(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> histogram.valueAtPercentile(100.1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldNotLoseConcurrentlyRecordedValues() throws Exception {
+    int threads = 4;
+    int valuesPerThread = 50_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int t = 0; t < threads; t++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 1; i <= valuesPerThread; i++) {
+                  histogram.record(i);
+                }
+              }));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertThat(histogram.count()).isEqualTo(threads * valuesPerThread);
+    assertThat(histogram.max()).isEqualTo(valuesPerThread);
+    assertThat(histogram.valueAtPercentile(100)).isEqualTo(valuesPerThread);
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.disposables.Disposable;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link MobiusLoop.Logger} that moves logging off the loop thread. Calls are recorded as
+ * references into a preallocated ring buffer, and a background thread forwards them in batches to a
+ * delegate logger, typically an {@link SLF4JLogger}:
+ *
+ * <pre>{@code
+ * AsyncLogger<M, E, F> logger = AsyncLogger.create(SLF4JLogger.<M, E, F>withTag("my loop"));
+ * Mobius.loop(update, effectHandler).logger(logger)...
+ * }</pre>
+ *
+ * <p>Formatting and writing therefore happens on the background thread, and the loop only pays for
+ * a few stores into the buffer. Since only references are recorded, models, events and effects must
+ * be immutable, which they should be in any Mobius loop anyway.
+ *
+ * <p>If the buffer is full, calls are dropped rather than blocking the loop, and counted in {@link
+ * #droppedCount()}. Exceptions are never dropped: if they don't fit in the buffer they are passed
+ * to the delegate directly.
+ *
+ * <p>The logger may be shared by several loops. Dispose it once they have all been disposed, to
+ * forward any remaining calls and stop the background thread.
+ *
+ * @param <M> The loop's Model type
+ * @param <E> The loop's Event type
+ * @param <F> The loop's Effect type
+ */
+public class AsyncLogger<M, E, F> implements MobiusLoop.Logger<M, E, F>, Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncLogger.class);
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+
+  private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+  private static final int BEFORE_INIT = 0;
+  private static final int AFTER_INIT = 1;
+  private static final int EXCEPTION_DURING_INIT = 2;
+  private static final int BEFORE_UPDATE = 3;
+  private static final int AFTER_UPDATE = 4;
+  private static final int EXCEPTION_DURING_UPDATE = 5;
+
+  private final MobiusLoop.Logger<M, E, F> delegate;
+  private final long flushIntervalNanos;
+
+  // concurrency note: this is a bounded multi-producer, single-consumer queue. A slot at position p
+  // may be written by the producer that claims p when its sequence is p, and is published by
+  // setting its sequence to p + 1. The consumer clears it and hands it back by setting the
+  // sequence to p + capacity.
+  private final Entry[] entries;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private long head; // only accessed by the background thread
+
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread thread;
+  private volatile boolean disposed;
+
+  /**
+   * Create an async logger with room for 8192 calls, that forwards buffered calls every 100
+   * milliseconds.
+   */
+  public static <M, E, F> AsyncLogger<M, E, F> create(MobiusLoop.Logger<M, E, F> delegate) {
+    return create(delegate, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Create an async logger.
+   *
+   * @param delegate the logger that calls are forwarded to on the background thread
+   * @param capacity the number of calls that can be buffered, rounded up to a power of two that is
+   *     at least 2
+   * @param flushInterval how long the background thread waits before forwarding calls, once it has
+   *     forwarded everything in the buffer. Longer intervals mean larger batches and fewer wakeups,
+   *     at the cost of output appearing later
+   * @param unit the unit of flushInterval
+   */
+  public static <M, E, F> AsyncLogger<M, E, F> create(
+      MobiusLoop.Logger<M, E, F> delegate, int capacity, long flushInterval, TimeUnit unit) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1, was: " + capacity);
+    }
+    if (capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be at most 2^30, was: " + capacity);
+    }
+    if (flushInterval <= 0) {
+      throw new IllegalArgumentException("flushInterval must be positive, was: " + flushInterval);
+    }
+
+    AsyncLogger<M, E, F> logger =
+        new AsyncLogger<>(
+            checkNotNull(delegate),
+            capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1,
+            unit.toNanos(flushInterval));
+    logger.thread.start();
+    return logger;
+  }
+
+  private AsyncLogger(MobiusLoop.Logger<M, E, F> delegate, int capacity, long flushIntervalNanos) {
+    this.delegate = delegate;
+    this.flushIntervalNanos = flushIntervalNanos;
+
+    entries = new Entry[capacity];
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      entries[i] = new Entry();
+      sequences.set(i, i);
+    }
+    mask = capacity - 1;
+
+    thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                drainLoop();
+              }
+            },
+            String.format(Locale.ENGLISH, "mobius-async-logger-%d", threadCount.incrementAndGet()));
+    thread.setDaemon(true);
+  }
+
+  @Override
+  public void beforeInit(M model) {
+    offerOrDrop(BEFORE_INIT, model, null, null, null);
+  }
+
+  @Override
+  public void afterInit(M model, First<M, F> result) {
+    offerOrDrop(AFTER_INIT, model, null, result, null);
+  }
+
+  @Override
+  public void exceptionDuringInit(M model, Throwable exception) {
+    if (!offer(EXCEPTION_DURING_INIT, model, null, null, exception)) {
+      delegate.exceptionDuringInit(model, exception);
+    }
+  }
+
+  @Override
+  public void beforeUpdate(M model, E event) {
+    offerOrDrop(BEFORE_UPDATE, model, event, null, null);
+  }
+
+  @Override
+  public void afterUpdate(M model, E event, Next<M, F> result) {
+    offerOrDrop(AFTER_UPDATE, model, event, result, null);
+  }
+
+  @Override
+  public void exceptionDuringUpdate(M model, E event, Throwable exception) {
+    if (!offer(EXCEPTION_DURING_UPDATE, model, event, null, exception)) {
+      delegate.exceptionDuringUpdate(model, event, exception);
+    }
+  }
+
+  /** Returns the number of calls that have been dropped because the buffer was full. */
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Stop accepting calls, and let the background thread forward the calls that are already in the
+   * buffer before it exits.
+   */
+  @Override
+  public void dispose() {
+    disposed = true;
+    LockSupport.unpark(thread);
+  }
+
+  /** Wait for the background thread to exit after {@link #dispose()}. Used for testing. */
+  void awaitTermination() throws InterruptedException {
+    thread.join();
+  }
+
+  private void offerOrDrop(
+      int kind,
+      Object model,
+      @Nullable Object event,
+      @Nullable Object result,
+      @Nullable Throwable exception) {
+    if (!offer(kind, model, event, result, exception) && !disposed) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private boolean offer(
+      int kind,
+      Object model,
+      @Nullable Object event,
+      @Nullable Object result,
+      @Nullable Throwable exception) {
+    if (disposed) {
+      return false;
+    }
+
+    long position;
+    while (true) {
+      position = tail.get();
+      long available = sequences.get((int) position & mask) - position;
+
+      if (available == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+      } else if (available < 0) {
+        return false;
+      }
+    }
+
+    int index = (int) position & mask;
+    Entry entry = entries[index];
+    entry.kind = kind;
+    entry.model = model;
+    entry.event = event;
+    entry.result = result;
+    entry.exception = exception;
+    sequences.lazySet(index, position + 1);
+    return true;
+  }
+
+  private void drainLoop() {
+    while (true) {
+      // read before draining, so that everything offered before disposal is forwarded
+      boolean exiting = disposed;
+      drain();
+
+      if (exiting) {
+        return;
+      }
+
+      LockSupport.parkNanos(this, flushIntervalNanos);
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+
+      Entry entry = entries[index];
+      int kind = entry.kind;
+      Object model = entry.model;
+      Object event = entry.event;
+      Object result = entry.result;
+      Throwable exception = entry.exception;
+      entry.clear();
+      sequences.lazySet(index, head + entries.length);
+      head++;
+
+      forward(kind, model, event, result, exception);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void forward(
+      int kind,
+      Object model,
+      @Nullable Object event,
+      @Nullable Object result,
+      @Nullable Throwable exception) {
+    try {
+      switch (kind) {
+        case BEFORE_INIT:
+          delegate.beforeInit((M) model);
+          break;
+        case AFTER_INIT:
+          delegate.afterInit((M) model, (First<M, F>) checkNotNull(result));
+          break;
+        case EXCEPTION_DURING_INIT:
+          delegate.exceptionDuringInit((M) model, checkNotNull(exception));
+          break;
+        case BEFORE_UPDATE:
+          delegate.beforeUpdate((M) model, (E) checkNotNull(event));
+          break;
+        case AFTER_UPDATE:
+          delegate.afterUpdate(
+              (M) model, (E) checkNotNull(event), (Next<M, F>) checkNotNull(result));
+          break;
+        case EXCEPTION_DURING_UPDATE:
+          delegate.exceptionDuringUpdate(
+              (M) model, (E) checkNotNull(event), checkNotNull(exception));
+          break;
+        default:
+          throw new IllegalStateException("unknown entry kind: " + kind);
+      }
+    } catch (RuntimeException e) {
+      // don't let a failing delegate stop the background thread
+      LOGGER.error("Delegate logger threw", e);
+    }
+  }
+
+  private static class Entry {
+    int kind;
+    @Nullable Object model;
+    @Nullable Object event;
+    @Nullable Object result;
+    @Nullable Throwable exception;
+
+    void clear() {
+      model = null;
+      event = null;
+      result = null;
+      exception = null;
+    }
+  }
+}
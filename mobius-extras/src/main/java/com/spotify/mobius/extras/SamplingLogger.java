@@ -0,0 +1,210 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link MobiusLoop.Logger} that only forwards a sample of updates to a delegate logger, to make
+ * it affordable to keep loop logging enabled in production.
+ *
+ * <p>Whether an update is logged is decided once, in {@link #beforeUpdate(Object, Object)}, and
+ * {@link #afterUpdate(Object, Object, Next)} is only forwarded if the matching beforeUpdate was, so
+ * the delegate always sees complete before/after pairs. An update is logged if it is picked by
+ * 1-in-N random sampling and there is a token left in a bucket that is refilled at a fixed rate per
+ * second.
+ *
+ * <p>Exceptions and initialization are always logged, regardless of sampling.
+ *
+ * <p>Deciding not to log an update doesn't allocate or lock, so the cost of the updates that are
+ * not logged is close to zero. The logger can be shared by several loops.
+ *
+ * @param <M> The loop's Model type
+ * @param <E> The loop's Event type
+ * @param <F> The loop's Effect type
+ */
+public class SamplingLogger<M, E, F> implements MobiusLoop.Logger<M, E, F> {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final MobiusLoop.Logger<M, E, F> delegate;
+  private final int oneIn;
+  private final long nanosPerToken;
+  private final long burstNanos;
+
+  // the time at which the bucket will be full, see tryTakeToken(). Long.MIN_VALUE if unlimited.
+  private final AtomicLong bucketFullAt;
+
+  // before and after an update are always called on the same thread, with only the update
+  // executing between them, so a per-thread flag is enough to pair them up even when the logger is
+  // shared by several loops.
+  private final ThreadLocal<Sampled> sampled =
+      new ThreadLocal<Sampled>() {
+        @Override
+        protected Sampled initialValue() {
+          return new Sampled();
+        }
+      };
+
+  /**
+   * Create a logger that forwards a random sample of 1 in {@code oneIn} updates.
+   *
+   * @param delegate the logger to forward sampled updates to
+   * @param oneIn the inverse of the sampling probability; 1 means every update is logged
+   */
+  public static <M, E, F> MobiusLoop.Logger<M, E, F> sampled(
+      MobiusLoop.Logger<M, E, F> delegate, int oneIn) {
+    return create(delegate, oneIn, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Create a logger that forwards at most {@code maxPerSecond} updates per second on average, with
+   * bursts of up to one second's worth of updates.
+   *
+   * @param delegate the logger to forward sampled updates to
+   * @param maxPerSecond the maximum number of updates to log per second
+   */
+  public static <M, E, F> MobiusLoop.Logger<M, E, F> rateLimited(
+      MobiusLoop.Logger<M, E, F> delegate, int maxPerSecond) {
+    return create(delegate, 1, maxPerSecond);
+  }
+
+  /**
+   * Create a logger that forwards a random sample of 1 in {@code oneIn} updates, up to {@code
+   * maxPerSecond} updates per second.
+   *
+   * @param delegate the logger to forward sampled updates to
+   * @param oneIn the inverse of the sampling probability; 1 means every update is considered
+   * @param maxPerSecond the maximum number of updates to log per second, or {@link
+   *     Integer#MAX_VALUE} for no limit
+   */
+  public static <M, E, F> MobiusLoop.Logger<M, E, F> create(
+      MobiusLoop.Logger<M, E, F> delegate, int oneIn, int maxPerSecond) {
+    if (oneIn < 1) {
+      throw new IllegalArgumentException("oneIn must be at least 1, was: " + oneIn);
+    }
+    if (maxPerSecond < 1) {
+      throw new IllegalArgumentException("maxPerSecond must be at least 1, was: " + maxPerSecond);
+    }
+
+    return new SamplingLogger<>(checkNotNull(delegate), oneIn, maxPerSecond);
+  }
+
+  private SamplingLogger(MobiusLoop.Logger<M, E, F> delegate, int oneIn, int maxPerSecond) {
+    this.delegate = delegate;
+    this.oneIn = oneIn;
+
+    if (maxPerSecond == Integer.MAX_VALUE) {
+      nanosPerToken = 0;
+      burstNanos = 0;
+      bucketFullAt = new AtomicLong(Long.MIN_VALUE);
+    } else {
+      nanosPerToken = Math.max(1, NANOS_PER_SECOND / maxPerSecond);
+      burstNanos = nanosPerToken * maxPerSecond;
+      bucketFullAt = new AtomicLong(System.nanoTime());
+    }
+  }
+
+  @Override
+  public void beforeInit(M model) {
+    delegate.beforeInit(model);
+  }
+
+  @Override
+  public void afterInit(M model, First<M, F> result) {
+    delegate.afterInit(model, result);
+  }
+
+  @Override
+  public void exceptionDuringInit(M model, Throwable exception) {
+    delegate.exceptionDuringInit(model, exception);
+  }
+
+  @Override
+  public void beforeUpdate(M model, E event) {
+    if (oneIn > 1 && ThreadLocalRandom.current().nextInt(oneIn) != 0) {
+      return;
+    }
+
+    if (!tryTakeToken()) {
+      return;
+    }
+
+    sampled.get().current = true;
+    delegate.beforeUpdate(model, event);
+  }
+
+  @Override
+  public void afterUpdate(M model, E event, Next<M, F> result) {
+    if (takeSampled()) {
+      delegate.afterUpdate(model, event, result);
+    }
+  }
+
+  @Override
+  public void exceptionDuringUpdate(M model, E event, Throwable exception) {
+    takeSampled();
+    delegate.exceptionDuringUpdate(model, event, exception);
+  }
+
+  private boolean takeSampled() {
+    Sampled sampled = this.sampled.get();
+    boolean current = sampled.current;
+    sampled.current = false;
+    return current;
+  }
+
+  /**
+   * A lock-free token bucket, represented by the time at which it will be full. Taking a token
+   * moves that time forward by the time it takes to refill one token; a token is available as long
+   * as the bucket will be full within one second's worth of tokens from now.
+   */
+  private boolean tryTakeToken() {
+    if (nanosPerToken == 0) {
+      return true;
+    }
+
+    long now = System.nanoTime();
+
+    while (true) {
+      long fullAt = bucketFullAt.get();
+      long next = Math.max(fullAt - now, 0) + nanosPerToken;
+
+      if (next > burstNanos) {
+        return false;
+      }
+
+      if (bucketFullAt.compareAndSet(fullAt, now + next)) {
+        return true;
+      }
+    }
+  }
+
+  private static class Sampled {
+    boolean current;
+  }
+}
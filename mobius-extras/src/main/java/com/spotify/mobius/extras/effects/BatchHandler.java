@@ -0,0 +1,45 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import java.util.List;
+
+/**
+ * Handles a batch of effects in a single call, for instance by sending them to a backend in one
+ * request. Used by {@link BatchingConnectable}.
+ *
+ * @param <F> the type of effects handled
+ * @param <E> the event type
+ */
+public interface BatchHandler<F, E> {
+
+  /**
+   * Handle a batch of effects and return one event per effect, in the same order as the effects. An
+   * element may be null if its effect doesn't result in an event.
+   *
+   * <p>Failures should be reported as events, just like a regular effect handler would; if this
+   * method throws an exception, or returns null or a list of the wrong size, the error is logged
+   * and none of the batch's effects result in events.
+   *
+   * @param effects the effects in the batch, in the order they were accepted; never empty
+   * @return the resulting events, with the event of {@code effects.get(i)} at index {@code i}
+   */
+  List<E> handle(List<F> effects);
+}
@@ -0,0 +1,188 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionLimitExceededException;
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Connectable} that collects effects into batches and handles each batch with a single
+ * call to a {@link BatchHandler}, so that many small effects, such as writes of single items, can
+ * share one call to a backend.
+ *
+ * <p>A batch is handed to the batch handler when it reaches the maximum batch size, or when the
+ * maximum delay has passed since its first effect was accepted, whichever happens first. The batch
+ * handler runs on the supplied executor, and the event it returns for each effect is sent to the
+ * output of the connection that accepted the effect. Batches are shared by all connections to the
+ * same instance, so effects from many loops end up in the same batch.
+ *
+ * <p>Only effects of the batched type are collected; other effects can be passed on to a regular
+ * effect handler. The timer that completes batches when their delay runs out is by default a single
+ * daemon thread shared by all instances of this class.
+ *
+ * <p>Instances are immutable; every configuration method returns a new instance with one setting
+ * changed, which doesn't share batches with the original.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class BatchingConnectable<F, E> implements Connectable<F, E> {
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+  private static final long DEFAULT_MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final EffectBatcher<?, E> batcher;
+  @Nullable private final Connectable<F, E> otherEffects;
+
+  private BatchingConnectable(
+      EffectBatcher<?, E> batcher, @Nullable Connectable<F, E> otherEffects) {
+    this.batcher = batcher;
+    this.otherEffects = otherEffects;
+  }
+
+  /**
+   * Create a connectable that batches all effects it accepts, in batches of up to 100 effects that
+   * wait for at most 10 milliseconds.
+   *
+   * @param batchHandler handles complete batches
+   * @param executor the executor to run the batch handler on
+   */
+  @Nonnull
+  public static <F, E> BatchingConnectable<F, E> create(
+      BatchHandler<F, E> batchHandler, Executor executor) {
+    return new BatchingConnectable<>(
+        new EffectBatcher<>(
+            null,
+            batchHandler,
+            executor,
+            DEFAULT_MAX_BATCH_SIZE,
+            DEFAULT_MAX_DELAY_NANOS,
+            EffectBatcher.sharedTimer()),
+        null);
+  }
+
+  /**
+   * Create a connectable that batches effects of a subtype of its effect type, and passes all other
+   * effects on to another connectable. Batches contain up to 100 effects and wait for at most 10
+   * milliseconds.
+   *
+   * @param effectClass the type of effects to batch
+   * @param batchHandler handles complete batches
+   * @param executor the executor to run the batch handler on
+   * @param otherEffects handles effects that aren't of the batched type
+   */
+  @Nonnull
+  public static <F, G extends F, E> BatchingConnectable<F, E> create(
+      Class<G> effectClass,
+      BatchHandler<G, E> batchHandler,
+      Executor executor,
+      Connectable<F, E> otherEffects) {
+    return new BatchingConnectable<>(
+        new EffectBatcher<>(
+            checkNotNull(effectClass),
+            batchHandler,
+            executor,
+            DEFAULT_MAX_BATCH_SIZE,
+            DEFAULT_MAX_DELAY_NANOS,
+            EffectBatcher.sharedTimer()),
+        checkNotNull(otherEffects));
+  }
+
+  /**
+   * Set the number of effects at which a batch is handled without waiting any longer.
+   *
+   * @throws IllegalArgumentException if size is not positive
+   */
+  @Nonnull
+  public BatchingConnectable<F, E> maxBatchSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("max batch size must be positive, was: " + size);
+    }
+
+    return new BatchingConnectable<>(
+        batcher.reconfigure(size, batcher.maxDelayNanos(), batcher.timer()), otherEffects);
+  }
+
+  /**
+   * Set how long the first effect of a batch may wait for more effects before the batch is handled.
+   *
+   * @throws IllegalArgumentException if delay is negative
+   */
+  @Nonnull
+  public BatchingConnectable<F, E> maxDelay(long delay, TimeUnit unit) {
+    if (delay < 0) {
+      throw new IllegalArgumentException("max delay must not be negative, was: " + delay);
+    }
+
+    return new BatchingConnectable<>(
+        batcher.reconfigure(batcher.maxBatchSize(), unit.toNanos(delay), batcher.timer()),
+        otherEffects);
+  }
+
+  /**
+   * Use the given timer to complete batches when their delay runs out, instead of the shared
+   * default timer. The timer is not owned by this class and is never shut down by it. If the timer
+   * rejects a task, an effect that would start a new batch is rejected by throwing a {@link
+   * com.spotify.mobius.ConnectionException}.
+   */
+  @Nonnull
+  public BatchingConnectable<F, E> timer(ScheduledExecutorService timer) {
+    return new BatchingConnectable<>(
+        batcher.reconfigure(batcher.maxBatchSize(), batcher.maxDelayNanos(), timer), otherEffects);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    final DisposableOutput<E> batchOutput = new DisposableOutput<>(output);
+    final Connection<F> otherConnection =
+        otherEffects == null ? null : otherEffects.connect(output);
+
+    return new Connection<F>() {
+      @Override
+      public void accept(F effect) {
+        if (batchOutput.isDisposed()) return;
+
+        // the batcher accepts every effect when there is no connectable for other effects
+        if (!batcher.offer(checkNotNull(effect), batchOutput)) {
+          otherConnection.accept(effect);
+        }
+      }
+
+      @Override
+      public void dispose() {
+        batchOutput.dispose();
+
+        if (otherConnection != null) {
+          otherConnection.dispose();
+        }
+      }
+    };
+  }
+}
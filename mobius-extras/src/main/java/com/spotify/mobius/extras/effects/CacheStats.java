@@ -0,0 +1,46 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time view of the cache of a {@link CachingConnectable}. */
+@AutoValue
+public abstract class CacheStats {
+
+  /** @return the number of effects whose events were found in the cache */
+  public abstract long hits();
+
+  /** @return the number of effects that had to be executed because no usable entry was cached */
+  public abstract long misses();
+
+  /** @return the number of entries removed to keep the total weight within the limit */
+  public abstract long evictions();
+
+  /** @return the number of entries currently cached, including any that have expired */
+  public abstract int entries();
+
+  /** @return the total weight of the entries currently cached */
+  public abstract long weight();
+
+  static CacheStats create(long hits, long misses, long evictions, int entries, long weight) {
+    return new AutoValue_CacheStats(hits, misses, evictions, entries, weight);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionLimitExceededException;
+import com.spotify.mobius.functions.BiFunction;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Producer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Connectable} that caches the events that an effect performer returns for each effect,
+ * and emits the cached events instead of performing the effect again. This is only correct for
+ * effect performers whose events depend on nothing but the effect, such as reads of configuration
+ * that rarely changes; effects are looked up using {@link Object#equals(Object)}.
+ *
+ * <p>The cache is shared by all connections to the same instance. Entries expire after a fixed time
+ * to live, and the least recently used entries are evicted when the total weight of the entries
+ * exceeds a limit. By default every entry weighs 1, making the limit a maximum number of entries.
+ *
+ * <p>The effect performer is called on the thread that accepts an effect which isn't cached, and
+ * its events are cached once it returns. Equal effects that miss the cache at the same time are
+ * each performed. If the effect performer throws an exception, nothing is cached, and the exception
+ * is thrown by the call that accepted the effect.
+ *
+ * <p>Instances are immutable; every configuration method returns a new instance with one setting
+ * changed, which doesn't share its cache with the original.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class CachingConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Producer<Long> SYSTEM_NANO_TIME =
+      new Producer<Long>() {
+        @Nonnull
+        @Override
+        public Long get() {
+          return System.nanoTime();
+        }
+      };
+
+  private final EffectPerformer<F, E> performer;
+  private final long maxWeight;
+  private final long timeToLiveNanos;
+  private final BiFunction<? super F, List<E>, Integer> weigher;
+  private final Producer<Long> nanoTime;
+
+  private final ResultCache<F, E> cache;
+
+  private CachingConnectable(
+      EffectPerformer<F, E> performer,
+      long maxWeight,
+      long timeToLiveNanos,
+      BiFunction<? super F, List<E>, Integer> weigher,
+      Producer<Long> nanoTime) {
+    this.performer = checkNotNull(performer);
+    this.maxWeight = maxWeight;
+    this.timeToLiveNanos = timeToLiveNanos;
+    this.weigher = checkNotNull(weigher);
+    this.nanoTime = checkNotNull(nanoTime);
+    this.cache = new ResultCache<>(maxWeight, timeToLiveNanos, weigher);
+  }
+
+  /**
+   * Create a caching wrapper around an effect performer.
+   *
+   * @param performer the effect performer to perform effects with when they aren't cached
+   * @param maxEntries the maximum number of entries to cache
+   * @param timeToLive how long the events of an effect are cached for
+   * @param unit the unit of timeToLive
+   * @throws IllegalArgumentException if maxEntries or timeToLive is not positive
+   */
+  @Nonnull
+  public static <F, E> CachingConnectable<F, E> create(
+      EffectPerformer<F, E> performer, long maxEntries, long timeToLive, TimeUnit unit) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("max entries must be positive, was: " + maxEntries);
+    }
+    if (timeToLive < 1) {
+      throw new IllegalArgumentException("time to live must be positive, was: " + timeToLive);
+    }
+
+    return new CachingConnectable<>(
+        performer,
+        maxEntries,
+        unit.toNanos(timeToLive),
+        new BiFunction<F, List<E>, Integer>() {
+          @Nonnull
+          @Override
+          public Integer apply(F effect, List<E> events) {
+            return 1;
+          }
+        },
+        SYSTEM_NANO_TIME);
+  }
+
+  /**
+   * Weigh entries using the given function instead of giving each entry a weight of 1, and evict
+   * entries when their total weight exceeds maxWeight. Entries that weigh more than maxWeight on
+   * their own are never cached.
+   *
+   * @param weigher returns the weight of the events of an effect; must not be negative
+   * @param maxWeight the maximum total weight of all entries
+   * @throws IllegalArgumentException if maxWeight is not positive
+   */
+  @Nonnull
+  public CachingConnectable<F, E> weigher(
+      BiFunction<? super F, List<E>, Integer> weigher, long maxWeight) {
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("max weight must be positive, was: " + maxWeight);
+    }
+
+    return new CachingConnectable<>(performer, maxWeight, timeToLiveNanos, weigher, nanoTime);
+  }
+
+  /** Use a different source of the current time, in nanoseconds, so tests can control expiry. */
+  CachingConnectable<F, E> nanoTime(Producer<Long> nanoTime) {
+    return new CachingConnectable<>(performer, maxWeight, timeToLiveNanos, weigher, nanoTime);
+  }
+
+  /** Returns the cache's hit and miss counts, and its current size. */
+  @Nonnull
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    final DisposableOutput<E> cachingOutput = new DisposableOutput<>(output);
+
+    return new Connection<F>() {
+      @Override
+      public void accept(F effect) {
+        if (cachingOutput.isDisposed()) return;
+
+        List<E> events = cache.get(checkNotNull(effect), nanoTime.get());
+
+        if (events == null) {
+          events =
+              Collections.unmodifiableList(
+                  new ArrayList<>(checkNotNull(performer.perform(effect))));
+          cache.put(effect, events, nanoTime.get());
+        }
+
+        cachingOutput.acceptAll(events);
+      }
+
+      @Override
+      public void dispose() {
+        cachingOutput.dispose();
+      }
+    };
+  }
+}
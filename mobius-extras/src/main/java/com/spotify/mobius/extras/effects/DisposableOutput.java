@@ -0,0 +1,62 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.List;
+
+/**
+ * The output of one connection, which stops forwarding events once it is disposed. Effects that
+ * complete after their connection was disposed of send their events here, and they are dropped.
+ *
+ * @param <E> the event type
+ */
+class DisposableOutput<E> implements Consumer<E> {
+  private final Consumer<E> delegate;
+  private volatile boolean disposed;
+
+  DisposableOutput(Consumer<E> delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  @Override
+  public void accept(E value) {
+    if (!disposed) {
+      delegate.accept(value);
+    }
+  }
+
+  /** Forward the events of a completed effect, stopping if the output is disposed meanwhile. */
+  void acceptAll(List<? extends E> values) {
+    for (E value : values) {
+      accept(value);
+    }
+  }
+
+  boolean isDisposed() {
+    return disposed;
+  }
+
+  void dispose() {
+    disposed = true;
+  }
+}
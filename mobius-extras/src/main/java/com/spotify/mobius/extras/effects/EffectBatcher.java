@@ -0,0 +1,253 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.ConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulates effects from all connections of a {@link BatchingConnectable} into batches, and hands
+ * each complete batch to the batch handler on the executor. A batch is complete when it reaches the
+ * maximum size, or when the maximum delay has passed since its first effect was added.
+ *
+ * @param <G> the type of effects that are batched
+ * @param <E> the event type
+ */
+class EffectBatcher<G, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EffectBatcher.class);
+
+  @Nullable private final Class<G> effectClass;
+  private final BatchHandler<G, E> batchHandler;
+  private final Executor executor;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ScheduledExecutorService timer;
+
+  // concurrency note: guarded by this. Null when no effects are waiting.
+  @Nullable private Batch current;
+
+  EffectBatcher(
+      @Nullable Class<G> effectClass,
+      BatchHandler<G, E> batchHandler,
+      Executor executor,
+      int maxBatchSize,
+      long maxDelayNanos,
+      ScheduledExecutorService timer) {
+    this.effectClass = effectClass;
+    this.batchHandler = checkNotNull(batchHandler);
+    this.executor = checkNotNull(executor);
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelayNanos;
+    this.timer = checkNotNull(timer);
+  }
+
+  /** Returns a batcher with the same effect type, handler and executor, but new settings. */
+  EffectBatcher<G, E> reconfigure(
+      int maxBatchSize, long maxDelayNanos, ScheduledExecutorService timer) {
+    return new EffectBatcher<>(
+        effectClass, batchHandler, executor, maxBatchSize, maxDelayNanos, timer);
+  }
+
+  int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  long maxDelayNanos() {
+    return maxDelayNanos;
+  }
+
+  ScheduledExecutorService timer() {
+    return timer;
+  }
+
+  /**
+   * Add an effect to the current batch if it is of the batched type.
+   *
+   * @param effect the effect
+   * @param output where the event resulting from the effect should be sent
+   * @return false if the effect isn't of the batched type, and was ignored
+   * @throws ConnectionException if the effect would start a new batch, but the timer rejects the
+   *     batch's timeout
+   */
+  boolean offer(Object effect, DisposableOutput<E> output) {
+    G batchedEffect;
+
+    if (effectClass == null) {
+      @SuppressWarnings("unchecked")
+      G uncheckedEffect = (G) effect;
+      batchedEffect = uncheckedEffect;
+    } else if (effectClass.isInstance(effect)) {
+      batchedEffect = effectClass.cast(effect);
+    } else {
+      return false;
+    }
+
+    Batch complete = null;
+
+    synchronized (this) {
+      if (current == null) {
+        Batch batch = new Batch();
+
+        // scheduled before the batch is made current, so that a batch without a timeout never
+        // accepts effects
+        try {
+          batch.timeout = timer.schedule(batch.timeoutTask, maxDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+          throw new ConnectionException(effect, e);
+        }
+
+        current = batch;
+      }
+
+      current.effects.add(batchedEffect);
+      current.outputs.add(output);
+
+      if (current.effects.size() >= maxBatchSize) {
+        complete = current;
+        current = null;
+      }
+    }
+
+    if (complete != null) {
+      complete.timeout.cancel(false);
+      execute(complete);
+    }
+
+    return true;
+  }
+
+  private void execute(Batch batch) {
+    try {
+      executor.execute(batch);
+    } catch (RejectedExecutionException e) {
+      LOGGER.error("Executor rejected batch; discarding {} effects", batch.effects.size(), e);
+    }
+  }
+
+  private class Batch implements Runnable {
+    private final List<G> effects = new ArrayList<>();
+    private final List<DisposableOutput<E>> outputs = new ArrayList<>();
+    private ScheduledFuture<?> timeout;
+
+    private final Runnable timeoutTask =
+        new Runnable() {
+          @Override
+          public void run() {
+            synchronized (EffectBatcher.this) {
+              if (current != Batch.this) return;
+
+              current = null;
+            }
+
+            execute(Batch.this);
+          }
+        };
+
+    @Override
+    public void run() {
+      List<G> liveEffects = new ArrayList<>(effects.size());
+      List<DisposableOutput<E>> liveOutputs = new ArrayList<>(outputs.size());
+
+      for (int i = 0; i < effects.size(); i++) {
+        if (!outputs.get(i).isDisposed()) {
+          liveEffects.add(effects.get(i));
+          liveOutputs.add(outputs.get(i));
+        }
+      }
+
+      if (liveEffects.isEmpty()) {
+        return;
+      }
+
+      List<E> events;
+
+      try {
+        events = batchHandler.handle(liveEffects);
+
+      } catch (Throwable throwable) {
+        LOGGER.error("Batch handler threw an exception handling batch: {}", liveEffects, throwable);
+        return;
+      }
+
+      if (events == null) {
+        LOGGER.error("Batch handler returned null; discarding events of batch: {}", liveEffects);
+        return;
+      }
+
+      if (events.size() != liveEffects.size()) {
+        LOGGER.error(
+            "Batch handler returned {} events for {} effects; discarding events of batch: {}",
+            events.size(),
+            liveEffects.size(),
+            liveEffects);
+        return;
+      }
+
+      for (int i = 0; i < events.size(); i++) {
+        E event = events.get(i);
+
+        if (event != null) {
+          liveOutputs.get(i).accept(event);
+        }
+      }
+    }
+  }
+
+  /** Returns a timer that is shared by all batchers that haven't been given a timer. */
+  static ScheduledExecutorService sharedTimer() {
+    return SharedTimerHolder.TIMER;
+  }
+
+  private static class SharedTimerHolder {
+    private static final ScheduledExecutorService TIMER = createTimer();
+
+    private static ScheduledExecutorService createTimer() {
+      ScheduledThreadPoolExecutor timer =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                  Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                  thread.setName("mobius-batching-timer");
+                  thread.setDaemon(true);
+                  return thread;
+                }
+              });
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+  }
+}
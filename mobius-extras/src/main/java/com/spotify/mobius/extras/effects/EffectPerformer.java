@@ -0,0 +1,44 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import java.util.List;
+
+/**
+ * Performs a single effect and returns the events resulting from it. Used by {@link
+ * SingleFlightConnectable}, {@link CachingConnectable} and {@link LatestWinsConnectable}, which
+ * need to know when an effect has completed and which events it resulted in.
+ *
+ * @param <F> the type of effects performed
+ * @param <E> the event type
+ */
+public interface EffectPerformer<F, E> {
+
+  /**
+   * Perform an effect, blocking until it has completed, and return the resulting events.
+   *
+   * <p>Failures should be reported as events, just like a regular effect handler would. What
+   * happens if this method throws an exception is described by the class that calls it.
+   *
+   * @param effect the effect to perform
+   * @return the resulting events, in the order they should be dispatched; may be empty
+   */
+  List<E> perform(F effect);
+}
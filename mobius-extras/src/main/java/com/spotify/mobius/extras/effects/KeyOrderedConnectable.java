@@ -0,0 +1,106 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionLimitExceededException;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Connectable} that runs the effects of a wrapped effect handler in parallel on an {@link
+ * Executor}, while keeping effects that share a key in order.
+ *
+ * <p>Each effect is assigned a key using a key extractor, for instance the id of the entity it
+ * writes to. Effects with the same key are executed strictly one at a time and in the order they
+ * were accepted, while effects with different keys may execute concurrently on different threads of
+ * the executor. This makes it possible to use a thread pool for effects that must not be reordered
+ * per entity, instead of funnelling all effects through a single thread.
+ *
+ * <p>Ordering is guaranteed for the calls to the wrapped connection's {@link Connection#accept}
+ * method, so the wrapped handler should do its work before returning from {@code accept}. It
+ * receives effects from several threads and must therefore be thread-safe, as all connections are
+ * required to be. Events emitted by the wrapped handler are forwarded to the output consumer until
+ * the connection is disposed.
+ *
+ * <p>At most {@code maxQueuedPerKey} effects may be waiting for each key; accepting an effect for a
+ * key whose queue is full throws a {@link com.spotify.mobius.ConnectionException} wrapping a {@link
+ * java.util.concurrent.RejectedExecutionException}. The state kept for a key is released as soon as
+ * its last queued effect has been executed, so the number of distinct keys over the lifetime of a
+ * connection doesn't affect its memory usage.
+ *
+ * <p>The executor is not owned by this class; it should typically be a bounded pool shared by many
+ * connections, and it is left running when connections are disposed of.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class KeyOrderedConnectable<F, E> implements Connectable<F, E> {
+
+  private final Connectable<F, E> effectHandler;
+  private final Function<? super F, ?> keyExtractor;
+  private final Executor executor;
+  private final int maxQueuedPerKey;
+
+  private KeyOrderedConnectable(
+      Connectable<F, E> effectHandler,
+      Function<? super F, ?> keyExtractor,
+      Executor executor,
+      int maxQueuedPerKey) {
+    this.effectHandler = checkNotNull(effectHandler);
+    this.keyExtractor = checkNotNull(keyExtractor);
+    this.executor = checkNotNull(executor);
+    this.maxQueuedPerKey = maxQueuedPerKey;
+  }
+
+  /**
+   * Create a key-ordered wrapper around an effect handler.
+   *
+   * @param effectHandler the effect handler to execute effects with
+   * @param keyExtractor returns the key of an effect; keys are compared using {@link
+   *     Object#equals(Object)} and must not be null
+   * @param executor the executor to run effects on
+   * @param maxQueuedPerKey the maximum number of effects that may be waiting for each key
+   */
+  public static <F, E> KeyOrderedConnectable<F, E> create(
+      Connectable<F, E> effectHandler,
+      Function<? super F, ?> keyExtractor,
+      Executor executor,
+      int maxQueuedPerKey) {
+    if (maxQueuedPerKey < 1) {
+      throw new IllegalArgumentException(
+          "maxQueuedPerKey must be at least 1, was: " + maxQueuedPerKey);
+    }
+
+    return new KeyOrderedConnectable<>(effectHandler, keyExtractor, executor, maxQueuedPerKey);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    return new KeyOrderedConnection<>(
+        effectHandler, checkNotNull(output), keyExtractor, executor, maxQueuedPerKey);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connection created by {@link KeyOrderedConnectable}. Keeps a lane per key that has queued or
+ * executing effects; a lane has at most one task scheduled on the executor at a time, which
+ * executes one effect and reschedules itself if more effects are waiting, so that a busy key
+ * doesn't monopolise a thread that other keys are waiting for.
+ */
+class KeyOrderedConnection<F, E> implements Connection<F> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KeyOrderedConnection.class);
+
+  private final Function<? super F, ?> keyExtractor;
+  private final Executor executor;
+  private final int maxQueuedPerKey;
+
+  // concurrency note: all lanes, their queues and the disposed flag are guarded by the lanes lock.
+  // A lane is present in the map from the time its first effect is queued until its queue is
+  // empty after executing an effect.
+  private final Map<Object, Lane> lanes = new HashMap<>();
+  private volatile boolean disposed;
+
+  private final Connection<F> delegate;
+
+  KeyOrderedConnection(
+      Connectable<F, E> effectHandler,
+      final Consumer<E> output,
+      Function<? super F, ?> keyExtractor,
+      Executor executor,
+      int maxQueuedPerKey) {
+    this.keyExtractor = keyExtractor;
+    this.executor = executor;
+    this.maxQueuedPerKey = maxQueuedPerKey;
+    this.delegate =
+        effectHandler.connect(
+            new Consumer<E>() {
+              @Override
+              public void accept(E value) {
+                if (!disposed) {
+                  output.accept(value);
+                }
+              }
+            });
+  }
+
+  @Override
+  public void accept(F effect) {
+    Object key = checkNotNull(keyExtractor.apply(checkNotNull(effect)));
+    Lane lane;
+
+    synchronized (lanes) {
+      if (disposed) return;
+
+      lane = lanes.get(key);
+
+      if (lane != null) {
+        if (lane.queue.size() >= maxQueuedPerKey) {
+          throw new ConnectionException(
+              effect,
+              new RejectedExecutionException(
+                  "Queue for key " + key + " is full with " + maxQueuedPerKey + " effects"));
+        }
+
+        lane.queue.add(effect);
+        return;
+      }
+
+      lane = new Lane(key);
+      lane.queue.add(effect);
+      lanes.put(key, lane);
+    }
+
+    schedule(lane);
+  }
+
+  @Override
+  public void dispose() {
+    synchronized (lanes) {
+      if (disposed) return;
+
+      disposed = true;
+      lanes.clear();
+    }
+
+    delegate.dispose();
+  }
+
+  /** Returns the number of keys that currently have queued or executing effects. */
+  int activeKeys() {
+    synchronized (lanes) {
+      return lanes.size();
+    }
+  }
+
+  private void schedule(Lane lane) {
+    try {
+      executor.execute(lane);
+    } catch (RejectedExecutionException e) {
+      int discarded;
+
+      synchronized (lanes) {
+        lanes.remove(lane.key);
+        discarded = lane.queue.size();
+      }
+
+      LOGGER.error(
+          "Executor rejected task for key {}; discarding {} queued effects",
+          lane.key,
+          discarded,
+          e);
+    }
+  }
+
+  private class Lane implements Runnable {
+    private final Object key;
+    private final Queue<F> queue = new ArrayDeque<>();
+
+    private Lane(Object key) {
+      this.key = key;
+    }
+
+    @Override
+    public void run() {
+      F effect;
+
+      synchronized (lanes) {
+        if (disposed) return;
+
+        // never null: the lane is removed from the map as soon as its queue becomes empty
+        effect = queue.remove();
+      }
+
+      try {
+        delegate.accept(effect);
+
+      } catch (Throwable throwable) {
+        LOGGER.error(
+            "Effect handler threw an exception when accepting effect: {}", effect, throwable);
+      }
+
+      synchronized (lanes) {
+        if (disposed) return;
+
+        if (queue.isEmpty()) {
+          lanes.remove(key);
+          return;
+        }
+      }
+
+      schedule(this);
+    }
+  }
+}
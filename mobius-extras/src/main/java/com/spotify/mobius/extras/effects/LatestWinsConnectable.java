@@ -0,0 +1,196 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionLimitExceededException;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connectable} that only lets the latest effect of each group complete, like {@code
+ * switchMap} does for reactive streams. Useful for effects such as searches, where the result of an
+ * earlier effect is worthless once a newer one has been requested.
+ *
+ * <p>Effects are assigned to groups by a grouping function, and performed by passing them to the
+ * effect performer on a {@link WorkRunner}. When an effect is accepted while an earlier effect of
+ * the same group hasn't completed, the earlier one is superseded: if it hasn't started yet it is
+ * never performed, and if it is being performed, its thread is interrupted and the events it
+ * returns are discarded. Effect performers should respond to interruption by returning early.
+ * Effects of different groups don't affect each other.
+ *
+ * <p>If the effect performer throws an exception, it is logged, and the effect results in no
+ * events.
+ *
+ * <p>The work runner is not owned by this class, and is left running when connections are disposed
+ * of. Effects of different groups only execute concurrently if it has several threads.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class LatestWinsConnectable<F, E> implements Connectable<F, E> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LatestWinsConnectable.class);
+
+  private final EffectPerformer<F, E> performer;
+  private final Function<? super F, ?> grouping;
+  private final WorkRunner workRunner;
+
+  private LatestWinsConnectable(
+      EffectPerformer<F, E> performer, Function<? super F, ?> grouping, WorkRunner workRunner) {
+    this.performer = checkNotNull(performer);
+    this.grouping = checkNotNull(grouping);
+    this.workRunner = checkNotNull(workRunner);
+  }
+
+  /**
+   * Create a latest-wins wrapper around an effect performer.
+   *
+   * @param performer the effect performer to perform effects with
+   * @param grouping returns the group of an effect; groups are compared using {@link
+   *     Object#equals(Object)} and must not be null
+   * @param workRunner the work runner to perform effects on
+   */
+  @Nonnull
+  public static <F, E> LatestWinsConnectable<F, E> create(
+      EffectPerformer<F, E> performer, Function<? super F, ?> grouping, WorkRunner workRunner) {
+    return new LatestWinsConnectable<>(performer, grouping, workRunner);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    return new LatestWinsConnection(new DisposableOutput<>(output));
+  }
+
+  private class LatestWinsConnection implements Connection<F> {
+    private final DisposableOutput<E> output;
+    private final ConcurrentMap<Object, Execution> latest = new ConcurrentHashMap<>();
+
+    private LatestWinsConnection(DisposableOutput<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(F effect) {
+      if (output.isDisposed()) return;
+
+      Object group = checkNotNull(grouping.apply(checkNotNull(effect)));
+      Execution execution = new Execution(this, group, effect);
+      Execution superseded = latest.put(group, execution);
+
+      if (superseded != null) {
+        superseded.cancel();
+      }
+
+      workRunner.post(execution);
+    }
+
+    @Override
+    public void dispose() {
+      output.dispose();
+
+      for (Execution execution : latest.values()) {
+        execution.cancel();
+      }
+      latest.clear();
+    }
+  }
+
+  /**
+   * The execution of one effect. Cancelling it prevents it from starting, interrupts its thread if
+   * it has started, and discards the events it returns.
+   */
+  private class Execution implements Runnable {
+    private final LatestWinsConnection connection;
+    private final Object group;
+    private final F effect;
+
+    // concurrency note: guarded by this. The thread is only set while the effect is being
+    // performed, so that no other work on the same thread can be interrupted.
+    private boolean cancelled;
+    @Nullable private Thread thread;
+
+    private Execution(LatestWinsConnection connection, Object group, F effect) {
+      this.connection = connection;
+      this.group = group;
+      this.effect = effect;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (cancelled) return;
+
+        thread = Thread.currentThread();
+      }
+
+      List<E> events = null;
+
+      try {
+        events = checkNotNull(performer.perform(effect));
+
+      } catch (Throwable throwable) {
+        if (!isCancelled()) {
+          LOGGER.error(
+              "Effect performer threw an exception when performing effect: {}", effect, throwable);
+        }
+      }
+
+      synchronized (this) {
+        thread = null;
+
+        if (cancelled) {
+          // clear an interrupt from cancel(), which can't happen any more now that thread is null
+          Thread.interrupted();
+
+        } else if (events != null) {
+          // emitted while holding the lock, so that the effect can't be superseded meanwhile
+          connection.output.acceptAll(events);
+        }
+      }
+
+      connection.latest.remove(group, this);
+    }
+
+    private synchronized void cancel() {
+      cancelled = true;
+
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+    private synchronized boolean isCancelled() {
+      return cancelled;
+    }
+  }
+}
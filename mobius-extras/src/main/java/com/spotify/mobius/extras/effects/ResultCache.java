@@ -0,0 +1,124 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import com.spotify.mobius.functions.BiFunction;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of the events produced by effects, with least-recently-used eviction by total weight and
+ * a fixed time to live per entry. All methods are synchronized; the critical sections are short and
+ * never call out to other code except the weigher.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+class ResultCache<F, E> {
+
+  private final long maxWeight;
+  private final long timeToLiveNanos;
+  private final BiFunction<? super F, List<E>, Integer> weigher;
+
+  // iterates from least to most recently used
+  private final LinkedHashMap<F, Entry<E>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  ResultCache(
+      long maxWeight, long timeToLiveNanos, BiFunction<? super F, List<E>, Integer> weigher) {
+    this.maxWeight = maxWeight;
+    this.timeToLiveNanos = timeToLiveNanos;
+    this.weigher = weigher;
+  }
+
+  /** Returns the cached events of an effect, or null if there is no live entry for it. */
+  @Nullable
+  synchronized List<E> get(F effect, long nowNanos) {
+    Entry<E> entry = entries.get(effect);
+
+    if (entry != null && nowNanos - entry.expiresAtNanos >= 0) {
+      entries.remove(effect);
+      weight -= entry.weight;
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+    return entry.events;
+  }
+
+  /**
+   * Cache the events of an effect, evicting least recently used entries until the total weight is
+   * within the limit. Entries that weigh more than the limit on their own are not cached.
+   */
+  synchronized void put(F effect, List<E> events, long nowNanos) {
+    int entryWeight = weigher.apply(effect, events);
+
+    if (entryWeight < 0) {
+      throw new IllegalStateException(
+          "weigher returned negative weight " + entryWeight + " for effect: " + effect);
+    }
+
+    Entry<E> previous = entries.remove(effect);
+    if (previous != null) {
+      weight -= previous.weight;
+    }
+
+    if (entryWeight > maxWeight) {
+      return;
+    }
+
+    entries.put(effect, new Entry<>(events, entryWeight, nowNanos + timeToLiveNanos));
+    weight += entryWeight;
+
+    Iterator<Map.Entry<F, Entry<E>>> iterator = entries.entrySet().iterator();
+    while (weight > maxWeight) {
+      weight -= iterator.next().getValue().weight;
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  synchronized CacheStats stats() {
+    return CacheStats.create(hits, misses, evictions, entries.size(), weight);
+  }
+
+  private static class Entry<E> {
+    private final List<E> events;
+    private final int weight;
+    private final long expiresAtNanos;
+
+    private Entry(List<E> events, int weight, long expiresAtNanos) {
+      this.events = events;
+      this.weight = weight;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+}
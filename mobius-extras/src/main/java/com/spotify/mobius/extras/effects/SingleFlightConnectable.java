@@ -0,0 +1,184 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionLimitExceededException;
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Connectable} that avoids performing an effect while an equal effect is already being
+ * performed. An effect that is {@link Object#equals(Object) equal} to one that is in flight isn't
+ * passed on to the effect performer; instead, it attaches to the flight, and its connection
+ * receives the same events once the effect performer returns.
+ *
+ * <p>Effects can be deduplicated within each connection, or across all connections to the same
+ * instance, so that for instance several loops fetching the same resource share a single call.
+ *
+ * <p>The effect performer is called on the thread that accepts an effect which isn't in flight, and
+ * that thread emits the events to every attached connection. Accepting a duplicate effect returns
+ * immediately. If the effect performer throws an exception, it is thrown by the call that performed
+ * the effect, and connections that attached to the flight receive no events.
+ *
+ * @param <F> the effect type
+ * @param <E> the event type
+ */
+public final class SingleFlightConnectable<F, E> implements Connectable<F, E> {
+
+  private final EffectPerformer<F, E> performer;
+  @Nullable private final ConcurrentMap<F, Flight<E>> sharedFlights;
+  private final AtomicLong savedCalls = new AtomicLong();
+
+  private SingleFlightConnectable(
+      EffectPerformer<F, E> performer, @Nullable ConcurrentMap<F, Flight<E>> sharedFlights) {
+    this.performer = checkNotNull(performer);
+    this.sharedFlights = sharedFlights;
+  }
+
+  /**
+   * Create a connectable that deduplicates effects accepted by the same connection.
+   *
+   * @param performer the effect performer to perform effects with
+   */
+  @Nonnull
+  public static <F, E> SingleFlightConnectable<F, E> perConnection(
+      EffectPerformer<F, E> performer) {
+    return new SingleFlightConnectable<>(performer, null);
+  }
+
+  /**
+   * Create a connectable that deduplicates effects accepted by any of its connections.
+   *
+   * @param performer the effect performer to perform effects with
+   */
+  @Nonnull
+  public static <F, E> SingleFlightConnectable<F, E> acrossConnections(
+      EffectPerformer<F, E> performer) {
+    return new SingleFlightConnectable<>(performer, new ConcurrentHashMap<F, Flight<E>>());
+  }
+
+  /**
+   * Returns the number of effects that attached to a flight rather than being passed on to the
+   * effect performer, over all connections to this instance.
+   */
+  public long savedCalls() {
+    return savedCalls.get();
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    return new SingleFlightConnection(
+        new DisposableOutput<>(output),
+        sharedFlights != null ? sharedFlights : new ConcurrentHashMap<F, Flight<E>>());
+  }
+
+  private class SingleFlightConnection implements Connection<F> {
+    private final DisposableOutput<E> output;
+    private final ConcurrentMap<F, Flight<E>> flights;
+
+    private SingleFlightConnection(
+        DisposableOutput<E> output, ConcurrentMap<F, Flight<E>> flights) {
+      this.output = output;
+      this.flights = flights;
+    }
+
+    @Override
+    public void accept(F effect) {
+      if (output.isDisposed()) return;
+
+      Flight<E> flight = new Flight<>();
+      Flight<E> inFlight = flights.putIfAbsent(checkNotNull(effect), flight);
+
+      if (inFlight != null) {
+        savedCalls.incrementAndGet();
+        inFlight.attach(output);
+        return;
+      }
+
+      flight.attach(output);
+      List<E> events = null;
+
+      try {
+        events = checkNotNull(performer.perform(effect));
+
+      } finally {
+        // removed before completing, so that an equal effect accepted from now on is performed
+        // again rather than attaching to a flight that has landed
+        flights.remove(effect, flight);
+        flight.complete(events);
+      }
+    }
+
+    @Override
+    public void dispose() {
+      output.dispose();
+    }
+  }
+
+  /**
+   * An effect in flight, and the outputs attached to it. Outputs that attach after it has completed
+   * receive its events straight away.
+   */
+  private static class Flight<E> {
+
+    // concurrency note: guarded by this
+    private final List<DisposableOutput<E>> outputs = new ArrayList<>(1);
+    private boolean completed;
+    @Nullable private List<E> events;
+
+    private void attach(DisposableOutput<E> output) {
+      synchronized (this) {
+        if (!completed) {
+          outputs.add(output);
+          return;
+        }
+      }
+
+      if (events != null) {
+        output.acceptAll(events);
+      }
+    }
+
+    /** Complete the flight, with null events if the effect performer threw an exception. */
+    private void complete(@Nullable List<E> events) {
+      synchronized (this) {
+        this.events = events;
+        completed = true;
+      }
+
+      if (events != null) {
+        for (DisposableOutput<E> output : outputs) {
+          output.acceptAll(events);
+        }
+      }
+    }
+  }
+}
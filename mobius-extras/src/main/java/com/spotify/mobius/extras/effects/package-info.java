@@ -0,0 +1,34 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+/**
+ * Decorators for effect handlers expressed as {@link com.spotify.mobius.Connectable}s, controlling
+ * how and when effects are executed without requiring a reactive framework.
+ *
+ * <p>Some decorators need to know when an effect has completed and which events it resulted in,
+ * which a {@code Connectable} can't tell them, since it may emit events at any time and from any
+ * thread. They wrap a synchronous handler instead: a {@link BatchHandler} or an {@link
+ * EffectPerformer}, which completes its effects by returning their events. Such handlers may block
+ * until the effects have completed; each decorator describes the threads it calls them on. Events
+ * of effects that complete after their connection has been disposed of are dropped.
+ */
+@ParametersAreNonnullByDefault
+package com.spotify.mobius.extras.effects;
+
+import javax.annotation.ParametersAreNonnullByDefault;
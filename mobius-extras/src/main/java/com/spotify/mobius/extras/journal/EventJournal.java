@@ -0,0 +1,732 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.journal;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only journal of the events of a loop, that can be replayed to rebuild the loop's model
+ * when the process starts again.
+ *
+ * <p>Events are appended to segment files in a directory. Appended events are handed to the
+ * operating system right away, while syncing them to the storage device is batched by count or time
+ * according to the {@link JournalConfig}. Every so often the current model is stored as a
+ * checkpoint on a background thread; replay starts from the latest checkpoint, and segments that
+ * only contain events from before it are deleted.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>{@code
+ * EventJournal<Model, Event> journal =
+ *     EventJournal.open(directory, modelSerializer, eventSerializer, JournalConfig.defaults());
+ * Model model = journal.replay(Model.DEFAULT, update);
+ * MobiusLoop<Model, Event, Effect> loop =
+ *     Mobius.loop(journal.journaling(update), effectHandler).startFrom(model);
+ * }</pre>
+ *
+ * <p>Events are journaled once the update function has processed them without throwing, before the
+ * loop gets to dispatch the resulting effects, and replay ignores effects. An event whose update
+ * throws is never journaled, so it can't make replay fail on every later start. The journal doesn't
+ * prevent concurrent use of a directory by several journals; each directory must only be used by
+ * one journal at a time.
+ *
+ * @param <M> model type
+ * @param <E> event type
+ */
+public final class EventJournal<M, E> implements Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventJournal.class);
+
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String CHECKPOINT_FILE = "checkpoint";
+  private static final String CHECKPOINT_TEMP_FILE = "checkpoint.tmp";
+
+  private static final int CHECKPOINT_MAGIC = 0x4d4f4243;
+  private static final int CHECKPOINT_VERSION = 1;
+
+  // magic, version, sequence number, payload length, payload checksum
+  private static final int CHECKPOINT_HEADER_SIZE = 24;
+
+  // payload length, payload checksum
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  private final File directory;
+  private final ModelSerializer<M> modelSerializer;
+  private final EventSerializer<E> eventSerializer;
+  private final JournalConfig config;
+  private final ScheduledExecutorService background;
+
+  // the latest checkpoint that is waiting to be written by the background thread, if any; a newer
+  // checkpoint replaces one that hasn't been written yet
+  private final AtomicReference<PendingCheckpoint<M>> pendingCheckpoint = new AtomicReference<>();
+
+  // held while the checkpoint file is written, so that checkpoints are written one at a time
+  private final Object checkpointLock = new Object();
+
+  private final Runnable writePendingCheckpoint =
+      new Runnable() {
+        @Override
+        public void run() {
+          PendingCheckpoint<M> checkpoint = pendingCheckpoint.getAndSet(null);
+
+          if (checkpoint == null) {
+            return;
+          }
+
+          try {
+            writeCheckpoint(checkpoint.model, checkpoint.sequence);
+          } catch (RuntimeException e) {
+            LOGGER.warn("Failed to write checkpoint to {}", directory, e);
+          }
+        }
+      };
+
+  // concurrency note: all state below is guarded by 'this'. Events are numbered in the order they
+  // were appended, starting from 1; a segment file is named after the number of its first event.
+  private final List<Segment> segments = new ArrayList<>();
+  private final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+  @Nullable private FileChannel channel;
+  private long currentSegmentSize;
+  private long nextSequence;
+  private long checkpointSequence;
+  private int unsyncedEvents;
+  private int eventsSinceCheckpoint;
+  private long syncCount;
+  private boolean disposed;
+
+  private EventJournal(
+      File directory,
+      ModelSerializer<M> modelSerializer,
+      EventSerializer<E> eventSerializer,
+      JournalConfig config) {
+    this.directory = checkNotNull(directory);
+    this.modelSerializer = checkNotNull(modelSerializer);
+    this.eventSerializer = checkNotNull(eventSerializer);
+    this.config = checkNotNull(config);
+    this.background = createBackgroundExecutor();
+  }
+
+  /**
+   * Open the journal in a directory, creating the directory if needed. If the directory contains a
+   * journal from an earlier run, new events are appended to it; an event that was only partially
+   * written when the process died is discarded.
+   *
+   * @throws JournalException if the journal files can't be read or created
+   */
+  @Nonnull
+  public static <M, E> EventJournal<M, E> open(
+      File directory,
+      ModelSerializer<M> modelSerializer,
+      EventSerializer<E> eventSerializer,
+      JournalConfig config) {
+    EventJournal<M, E> journal =
+        new EventJournal<>(directory, modelSerializer, eventSerializer, config);
+
+    try {
+      journal.recover();
+    } catch (IOException e) {
+      journal.dispose();
+      throw new JournalException("Failed to open journal in " + directory, e);
+    }
+
+    journal.startSyncing();
+    return journal;
+  }
+
+  /**
+   * Rebuild a model from the journal, by folding all events since the latest checkpoint through an
+   * update function. Effects returned by the update function are ignored.
+   *
+   * @param initialModel the model to start from if there is no checkpoint
+   * @param update the update function of the loop
+   * @return the rebuilt model
+   * @throws JournalException if the journal can't be read, including if the latest checkpoint can't
+   *     be deserialized
+   */
+  @Nonnull
+  public synchronized M replay(M initialModel, Update<M, E, ?> update) {
+    checkNotNull(initialModel);
+    checkNotNull(update);
+
+    try {
+      M model = checkpointSequence > 0 ? readCheckpoint() : initialModel;
+      eventsSinceCheckpoint = 0;
+
+      for (Segment segment : segments) {
+        RecordReader reader = new RecordReader(segment.file);
+        long sequence = segment.firstSequence;
+
+        while (reader.next()) {
+          if (sequence++ <= checkpointSequence) {
+            continue;
+          }
+
+          Next<M, ?> next = update.update(model, eventSerializer.deserialize(reader.payload()));
+
+          if (next.hasModel()) {
+            model = next.modelUnsafe();
+          }
+
+          eventsSinceCheckpoint++;
+        }
+      }
+
+      return model;
+
+    } catch (IOException | RuntimeException e) {
+      throw new JournalException("Failed to replay journal in " + directory, e);
+    }
+  }
+
+  /**
+   * Decorate an update function so that every event it processes successfully is appended to this
+   * journal before the resulting {@link Next} is returned, and so that a checkpoint of the
+   * resulting model is written every {@link JournalConfig#checkpointEvery(int) so many events}.
+   * Checkpoints are written on a background thread, so the update function doesn't wait for them.
+   */
+  @Nonnull
+  public <F> Update<M, E, F> journaling(final Update<M, E, F> update) {
+    checkNotNull(update);
+
+    return new Update<M, E, F>() {
+      @Nonnull
+      @Override
+      public Next<M, F> update(M model, E event) {
+        Next<M, F> next = update.update(model, event);
+
+        append(event);
+        onEventProcessed(next.hasModel() ? next.modelUnsafe() : model);
+
+        return next;
+      }
+    };
+  }
+
+  /**
+   * Append an event to the journal.
+   *
+   * @throws JournalException if the event can't be written
+   * @throws IllegalStateException if the journal has been disposed
+   */
+  public synchronized void append(E event) {
+    checkNotDisposed();
+    byte[] payload = eventSerializer.serialize(checkNotNull(event));
+
+    try {
+      if (currentSegmentSize > 0
+          && currentSegmentSize + RECORD_HEADER_SIZE + payload.length > config.segmentSize()) {
+        startSegment(nextSequence);
+      }
+
+      recordHeader.clear();
+      recordHeader.putInt(payload.length).putInt(checksum(payload)).flip();
+
+      writeFully(checkNotNull(channel), recordHeader);
+      writeFully(channel, ByteBuffer.wrap(payload));
+
+      currentSegmentSize += RECORD_HEADER_SIZE + payload.length;
+      nextSequence++;
+
+      if (++unsyncedEvents >= config.syncEveryEvents() && config.syncEveryEvents() > 0) {
+        sync();
+      }
+
+    } catch (IOException e) {
+      throw new JournalException("Failed to append event to journal in " + directory, e);
+    }
+  }
+
+  /**
+   * Store a checkpoint of a model, which must be the result of processing every event that has been
+   * appended so far. Segments that only contain events before the checkpoint are deleted. The
+   * checkpoint is written before this method returns.
+   *
+   * @throws JournalException if the checkpoint can't be written
+   * @throws IllegalStateException if the journal has been disposed
+   */
+  public void checkpoint(M model) {
+    checkNotNull(model);
+    long sequence;
+
+    synchronized (this) {
+      checkNotDisposed();
+      sequence = nextSequence - 1;
+      eventsSinceCheckpoint = 0;
+    }
+
+    writeCheckpoint(model, sequence);
+  }
+
+  private void writeCheckpoint(M model, long sequence) {
+    byte[] payload = modelSerializer.serialize(model);
+
+    ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE + payload.length);
+    buffer
+        .putInt(CHECKPOINT_MAGIC)
+        .putInt(CHECKPOINT_VERSION)
+        .putLong(sequence)
+        .putInt(payload.length)
+        .putInt(checksum(payload))
+        .put(payload)
+        .flip();
+
+    File temp = new File(directory, CHECKPOINT_TEMP_FILE);
+
+    synchronized (checkpointLock) {
+      synchronized (this) {
+        if (sequence < checkpointSequence) {
+          // a newer checkpoint has already been written
+          return;
+        }
+      }
+
+      try {
+        FileOutputStream output = new FileOutputStream(temp);
+        try {
+          writeFully(output.getChannel(), buffer);
+          output.getFD().sync();
+        } finally {
+          output.close();
+        }
+
+        if (!temp.renameTo(new File(directory, CHECKPOINT_FILE))) {
+          throw new IOException("Failed to rename " + temp);
+        }
+
+        syncDirectory();
+
+      } catch (IOException e) {
+        throw new JournalException("Failed to write checkpoint to " + directory, e);
+      }
+
+      synchronized (this) {
+        checkpointSequence = sequence;
+        deleteCoveredSegments();
+      }
+    }
+  }
+
+  /**
+   * Sync all appended events to the storage device.
+   *
+   * @throws JournalException if syncing fails
+   */
+  public synchronized void sync() {
+    if (channel == null || unsyncedEvents == 0) {
+      return;
+    }
+
+    try {
+      channel.force(false);
+    } catch (IOException e) {
+      throw new JournalException("Failed to sync journal in " + directory, e);
+    }
+
+    unsyncedEvents = 0;
+    syncCount++;
+  }
+
+  /** Sync all appended events and close the journal. */
+  @Override
+  public void dispose() {
+    // periodic syncs stop, but a checkpoint that is waiting to be written still gets written
+    background.shutdown();
+
+    try {
+      background.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+
+      disposed = true;
+
+      if (channel != null) {
+        try {
+          sync();
+        } finally {
+          closeQuietly(channel);
+          channel = null;
+        }
+      }
+    }
+  }
+
+  synchronized long syncCount() {
+    return syncCount;
+  }
+
+  synchronized int segmentCount() {
+    return segments.size();
+  }
+
+  private void onEventProcessed(M model) {
+    PendingCheckpoint<M> checkpoint;
+
+    synchronized (this) {
+      if (++eventsSinceCheckpoint < config.checkpointEveryEvents()) {
+        return;
+      }
+
+      eventsSinceCheckpoint = 0;
+      checkpoint = new PendingCheckpoint<>(model, nextSequence - 1);
+    }
+
+    if (pendingCheckpoint.getAndSet(checkpoint) == null) {
+      try {
+        background.execute(writePendingCheckpoint);
+      } catch (RejectedExecutionException e) {
+        // the journal is being disposed
+      }
+    }
+  }
+
+  private synchronized void recover() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Failed to create directory " + directory);
+    }
+
+    checkpointSequence = readCheckpointSequence();
+    nextSequence = checkpointSequence + 1;
+
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        String name = file.getName();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+          continue;
+        }
+
+        long firstSequence;
+        try {
+          firstSequence =
+              Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+          // not a segment written by a journal; leave it alone
+          continue;
+        }
+
+        segments.add(new Segment(firstSequence, file));
+      }
+    }
+
+    Collections.sort(segments);
+
+    if (segments.isEmpty()) {
+      startSegment(nextSequence);
+      return;
+    }
+
+    Segment last = segments.get(segments.size() - 1);
+    RecordReader reader = new RecordReader(last.file);
+    long count = 0;
+
+    while (reader.next()) {
+      count++;
+    }
+
+    long end = last.firstSequence + count;
+
+    if (end < nextSequence) {
+      // events after the latest checkpoint were lost, so numbering can't continue in this segment
+      startSegment(nextSequence);
+      deleteCoveredSegments();
+      return;
+    }
+
+    RandomAccessFile file = new RandomAccessFile(last.file, "rw");
+    channel = file.getChannel();
+
+    // discard a partially written event at the end
+    channel.truncate(reader.validLength());
+    channel.position(reader.validLength());
+
+    currentSegmentSize = reader.validLength();
+    nextSequence = end;
+  }
+
+  private void startSegment(long firstSequence) throws IOException {
+    if (channel != null) {
+      sync();
+      closeQuietly(channel);
+      channel = null;
+    }
+
+    File file =
+        new File(directory, String.format(Locale.ROOT, "%020d%s", firstSequence, SEGMENT_SUFFIX));
+
+    channel = new RandomAccessFile(file, "rw").getChannel();
+    channel.truncate(0);
+    currentSegmentSize = 0;
+    segments.add(new Segment(firstSequence, file));
+  }
+
+  private void deleteCoveredSegments() {
+    // a segment is covered if the next segment starts at or before the first uncovered event
+    while (segments.size() > 1 && segments.get(1).firstSequence <= checkpointSequence + 1) {
+      Segment covered = segments.remove(0);
+
+      if (!covered.file.delete()) {
+        covered.file.deleteOnExit();
+      }
+    }
+  }
+
+  private long readCheckpointSequence() throws IOException {
+    ByteBuffer header = readCheckpointHeader();
+    return header != null ? header.getLong(8) : 0;
+  }
+
+  private M readCheckpoint() throws IOException {
+    ByteBuffer buffer = readCheckpointHeader();
+
+    if (buffer == null) {
+      throw new IOException("Checkpoint disappeared from " + directory);
+    }
+
+    byte[] payload = new byte[buffer.getInt(16)];
+    buffer.position(CHECKPOINT_HEADER_SIZE);
+    buffer.get(payload);
+
+    return modelSerializer.deserialize(payload);
+  }
+
+  @Nullable
+  private ByteBuffer readCheckpointHeader() throws IOException {
+    File file = new File(directory, CHECKPOINT_FILE);
+
+    if (file.length() < CHECKPOINT_HEADER_SIZE) {
+      return null;
+    }
+
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+
+    try {
+      MappedByteBuffer buffer =
+          input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+
+      int length = buffer.getInt(16);
+
+      if (buffer.getInt(0) != CHECKPOINT_MAGIC
+          || buffer.getInt(4) != CHECKPOINT_VERSION
+          || length < 0
+          || length > buffer.capacity() - CHECKPOINT_HEADER_SIZE) {
+        throw new IOException("Invalid checkpoint in " + directory);
+      }
+
+      byte[] payload = new byte[length];
+      buffer.position(CHECKPOINT_HEADER_SIZE);
+      buffer.get(payload);
+
+      if (checksum(payload) != buffer.getInt(20)) {
+        throw new IOException("Checksum mismatch in checkpoint in " + directory);
+      }
+
+      buffer.position(0);
+      return buffer;
+
+    } finally {
+      input.close();
+    }
+  }
+
+  private void checkNotDisposed() {
+    if (disposed) {
+      throw new IllegalStateException("This journal has already been disposed");
+    }
+  }
+
+  private void syncDirectory() {
+    // the rename is only durable once the directory has been synced. Not every platform can open a
+    // directory for syncing; there's nothing more to do on those.
+    try {
+      FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+      try {
+        channel.force(true);
+      } finally {
+        closeQuietly(channel);
+      }
+    } catch (IOException ignored) {
+      // not supported on this platform
+    }
+  }
+
+  private static ScheduledExecutorService createBackgroundExecutor() {
+    return Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(@Nonnull Runnable runnable) {
+            Thread thread = new Thread(runnable, "mobius-journal");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+  }
+
+  private void startSyncing() {
+    long interval = config.syncIntervalNanos();
+
+    if (interval <= 0) {
+      return;
+    }
+
+    background.scheduleWithFixedDelay(
+        new Runnable() {
+          @Override
+          public void run() {
+            synchronized (EventJournal.this) {
+              if (!disposed) {
+                sync();
+              }
+            }
+          }
+        },
+        interval,
+        interval,
+        TimeUnit.NANOSECONDS);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // nothing sensible to do
+    }
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+
+  private static final class PendingCheckpoint<M> {
+    private final M model;
+    private final long sequence;
+
+    private PendingCheckpoint(M model, long sequence) {
+      this.model = model;
+      this.sequence = sequence;
+    }
+  }
+
+  private static final class Segment implements Comparable<Segment> {
+    private final long firstSequence;
+    private final File file;
+
+    private Segment(long firstSequence, File file) {
+      this.firstSequence = firstSequence;
+      this.file = file;
+    }
+
+    @Override
+    public int compareTo(Segment other) {
+      return Long.compare(firstSequence, other.firstSequence);
+    }
+  }
+
+  /** Reads the complete, intact records of a segment file, stopping at the first damaged one. */
+  private static final class RecordReader {
+    private final ByteBuffer buffer;
+    private byte[] payload = new byte[0];
+    private int validLength;
+
+    private RecordReader(File file) throws IOException {
+      RandomAccessFile input = new RandomAccessFile(file, "r");
+
+      try {
+        buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+      } finally {
+        input.close();
+      }
+    }
+
+    private boolean next() {
+      if (buffer.remaining() < RECORD_HEADER_SIZE) {
+        return false;
+      }
+
+      int length = buffer.getInt(validLength);
+      int expectedChecksum = buffer.getInt(validLength + 4);
+
+      if (length < 0 || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+        return false;
+      }
+
+      byte[] record = new byte[length];
+      buffer.position(validLength + RECORD_HEADER_SIZE);
+      buffer.get(record);
+
+      if (checksum(record) != expectedChecksum) {
+        return false;
+      }
+
+      payload = record;
+      validLength = buffer.position();
+      return true;
+    }
+
+    private byte[] payload() {
+      return payload;
+    }
+
+    private int validLength() {
+      return validLength;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.journal;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration of an {@link EventJournal}. Instances are immutable; every method returns a new
+ * configuration with one setting changed.
+ */
+public final class JournalConfig {
+
+  private static final JournalConfig DEFAULTS =
+      new JournalConfig(16 * 1024 * 1024, 128, TimeUnit.MILLISECONDS.toNanos(100), 10_000);
+
+  private final long segmentSize;
+  private final int syncEveryEvents;
+  private final long syncIntervalNanos;
+  private final int checkpointEveryEvents;
+
+  private JournalConfig(
+      long segmentSize, int syncEveryEvents, long syncIntervalNanos, int checkpointEveryEvents) {
+    this.segmentSize = segmentSize;
+    this.syncEveryEvents = syncEveryEvents;
+    this.syncIntervalNanos = syncIntervalNanos;
+    this.checkpointEveryEvents = checkpointEveryEvents;
+  }
+
+  /**
+   * Get the default configuration: 16 MB segments, syncing after 128 events or 100 milliseconds,
+   * whichever comes first, and a checkpoint every 10000 events.
+   */
+  @Nonnull
+  public static JournalConfig defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Set the size after which the journal starts writing to a new segment file. Segments that are
+   * entirely covered by a checkpoint are deleted.
+   *
+   * @throws IllegalArgumentException if bytes is not positive
+   */
+  @Nonnull
+  public JournalConfig segmentSize(long bytes) {
+    if (bytes < 1) {
+      throw new IllegalArgumentException("segment size must be positive, was: " + bytes);
+    }
+
+    return new JournalConfig(bytes, syncEveryEvents, syncIntervalNanos, checkpointEveryEvents);
+  }
+
+  /**
+   * Set when appended events are synced to the storage device. Syncs are batched: they happen when
+   * {@code maxEvents} events have been appended since the last sync, or when {@code maxDelay} has
+   * passed, whichever comes first. Events that haven't been synced survive the process being
+   * killed, but may be lost if the device loses power.
+   *
+   * @param maxEvents the number of events to sync at a time; 1 syncs every event, 0 disables
+   *     syncing based on the number of events
+   * @param maxDelay the maximum time between syncs; 0 disables timed syncs
+   * @param unit the unit of maxDelay
+   * @throws IllegalArgumentException if maxEvents or maxDelay is negative
+   */
+  @Nonnull
+  public JournalConfig syncEvery(int maxEvents, long maxDelay, TimeUnit unit) {
+    if (maxEvents < 0 || maxDelay < 0) {
+      throw new IllegalArgumentException("sync settings must not be negative");
+    }
+
+    return new JournalConfig(segmentSize, maxEvents, unit.toNanos(maxDelay), checkpointEveryEvents);
+  }
+
+  /**
+   * Set how many events may be journaled between two model checkpoints. Replay starts from the
+   * latest checkpoint, so this bounds the number of events that have to be replayed at startup.
+   *
+   * @throws IllegalArgumentException if events is not positive
+   */
+  @Nonnull
+  public JournalConfig checkpointEvery(int events) {
+    if (events < 1) {
+      throw new IllegalArgumentException("checkpoint interval must be positive, was: " + events);
+    }
+
+    return new JournalConfig(segmentSize, syncEveryEvents, syncIntervalNanos, events);
+  }
+
+  long segmentSize() {
+    return segmentSize;
+  }
+
+  int syncEveryEvents() {
+    return syncEveryEvents;
+  }
+
+  long syncIntervalNanos() {
+    return syncIntervalNanos;
+  }
+
+  int checkpointEveryEvents() {
+    return checkpointEveryEvents;
+  }
+}
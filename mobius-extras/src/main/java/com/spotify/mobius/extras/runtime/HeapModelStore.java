@@ -0,0 +1,66 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/** A {@link ModelStore} that keeps serialized models in heap byte arrays. */
+class HeapModelStore<K> implements ModelStore<K> {
+
+  private final Map<K, byte[]> models = new HashMap<>();
+  private long sizeInBytes;
+
+  @Override
+  public void put(K key, byte[] model) {
+    byte[] previous = models.put(key, model);
+
+    sizeInBytes += model.length - (previous != null ? previous.length : 0);
+  }
+
+  @Nullable
+  @Override
+  public byte[] remove(K key) {
+    byte[] model = models.remove(key);
+
+    if (model != null) {
+      sizeInBytes -= model.length;
+    }
+
+    return model;
+  }
+
+  @Override
+  public int size() {
+    return models.size();
+  }
+
+  @Override
+  public long sizeInBytes() {
+    return sizeInBytes;
+  }
+
+  @Override
+  public void clear() {
+    models.clear();
+    sizeInBytes = 0;
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.monitoring.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Hosts a large number of keyed {@link MobiusLoop}s, for instance one per user session, on a fixed
+ * number of event-loop threads.
+ *
+ * <p>Every key is assigned to a shard by its hash code, and each shard has a single thread that all
+ * of its loops process their events on. Loops are created lazily when the first event for their key
+ * is dispatched, starting from the model returned by the supplied function for that key:
+ *
+ * <pre>{@code
+ * MobiusRuntime<String, Session, Event, Effect> runtime =
+ *     MobiusRuntime.create(Mobius.loop(update, effectHandler), sessionId -> Session.create(sessionId));
+ *
+ * runtime.dispatch("session-1234", Event.loggedIn());
+ * }</pre>
+ *
+ * <p>Since each loop only processes one event at a time on its shard's thread, the number of
+ * threads used for processing events is fixed regardless of the number of loops. Effects are
+ * handled according to the builder's effect runner, which should normally be configured to use a
+ * bounded, shared pool too, for instance with a {@link
+ * com.spotify.mobius.actors.BoundedExecutorActorFactory}. Update functions should be quick, since a
+ * slow update delays every other loop on the same shard.
+ *
+ * <p>With {@link Passivation}, loops that are idle, or least recently used when there are too many
+ * active loops, are disposed of and only their serialized model is kept. The next event for their
+ * key restarts them from that model. Any effects that are still running when a loop is passivated
+ * can no longer send events to it, so passivation is best suited to loops whose effects complete
+ * well within the idle timeout. Events they sent that the loop hadn't processed yet when it was
+ * passivated are discarded, logged, and counted in {@link ShardStats#droppedEvents()}.
+ *
+ * @param <K> the key type, which must have well-distributed hash codes
+ * @param <M> the loops' model type
+ * @param <E> the loops' event type
+ * @param <F> the loops' effect type
+ */
+public class MobiusRuntime<K, M, E, F> implements Disposable {
+
+  private static final AtomicInteger runtimeCount = new AtomicInteger(0);
+
+  private final List<Shard<K, M, E, F>> shards;
+  private final LatencyHistogram activationLatency = new LatencyHistogram();
+  private volatile boolean disposed;
+
+  /**
+   * Create a runtime with one shard per available processor.
+   *
+   * @param loopBuilder the builder used to create loops; its event runner and event actor factory
+   *     are replaced by the runtime's shards
+   * @param initialModel returns the model that the loop for a key should start from
+   */
+  public static <K, M, E, F> MobiusRuntime<K, M, E, F> create(
+      MobiusLoop.Builder<M, E, F> loopBuilder, Function<K, M> initialModel) {
+    return create(loopBuilder, initialModel, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a runtime.
+   *
+   * @param loopBuilder the builder used to create loops; its event runner and event actor factory
+   *     are replaced by the runtime's shards
+   * @param initialModel returns the model that the loop for a key should start from
+   * @param shardCount the number of shards, and therefore event-loop threads
+   */
+  public static <K, M, E, F> MobiusRuntime<K, M, E, F> create(
+      MobiusLoop.Builder<M, E, F> loopBuilder, Function<K, M> initialModel, int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shardCount must be at least 1, was: " + shardCount);
+    }
+
+    return new MobiusRuntime<>(
+        checkNotNull(loopBuilder), checkNotNull(initialModel), shardCount, null);
+  }
+
+  /**
+   * Create a runtime that passivates loops.
+   *
+   * @param loopBuilder the builder used to create loops; its event runner and event actor factory
+   *     are replaced by the runtime's shards
+   * @param initialModel returns the model that the loop for a key should start from, if it hasn't
+   *     been passivated
+   * @param shardCount the number of shards, and therefore event-loop threads
+   * @param passivation configures when loops are passivated and how their models are stored
+   */
+  public static <K, M, E, F> MobiusRuntime<K, M, E, F> create(
+      MobiusLoop.Builder<M, E, F> loopBuilder,
+      Function<K, M> initialModel,
+      int shardCount,
+      Passivation<M> passivation) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shardCount must be at least 1, was: " + shardCount);
+    }
+
+    return new MobiusRuntime<>(
+        checkNotNull(loopBuilder),
+        checkNotNull(initialModel),
+        shardCount,
+        checkNotNull(passivation));
+  }
+
+  private MobiusRuntime(
+      MobiusLoop.Builder<M, E, F> loopBuilder,
+      Function<K, M> initialModel,
+      int shardCount,
+      @Nullable Passivation<M> passivation) {
+    ThreadFactory threadFactory = new ShardThreadFactory(runtimeCount.incrementAndGet());
+    List<Shard<K, M, E, F>> shards = new ArrayList<>(shardCount);
+
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(
+          new Shard<>(
+              i,
+              threadFactory,
+              loopBuilder,
+              initialModel,
+              passivation,
+              shardCount,
+              activationLatency));
+    }
+
+    this.shards = Collections.unmodifiableList(shards);
+  }
+
+  /**
+   * Dispatch an event to the loop for a key, starting the loop if there isn't one.
+   *
+   * <p>Events for the same key that are dispatched from the same thread are processed in the order
+   * they were dispatched.
+   *
+   * @throws IllegalStateException if the runtime has been disposed
+   */
+  public void dispatch(K key, E event) {
+    checkNotNull(event);
+    checkNotDisposed();
+    shardFor(checkNotNull(key)).dispatch(key, event);
+  }
+
+  /**
+   * Dispose of the loop for a key, if there is one, and discard its model if it is passivated.
+   * Events dispatched for the key afterwards start a new loop from the key's initial model.
+   *
+   * @throws IllegalStateException if the runtime has been disposed
+   */
+  public void dispose(K key) {
+    checkNotDisposed();
+    shardFor(checkNotNull(key)).dispose(key);
+  }
+
+  /**
+   * Dispose of all loops, after they have processed the events that were dispatched before this
+   * call, and stop the runtime's threads.
+   */
+  @Override
+  public void dispose() {
+    if (disposed) {
+      return;
+    }
+
+    disposed = true;
+
+    for (Shard<K, M, E, F> shard : shards) {
+      shard.disposeAll();
+    }
+  }
+
+  /**
+   * Wait for the runtime's threads to stop after {@link #dispose()}.
+   *
+   * @return true if all threads stopped, false if the timeout elapsed first
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+    for (Shard<K, M, E, F> shard : shards) {
+      if (!shard.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /** @return the number of shards, and therefore event-loop threads, of this runtime */
+  public int shardCount() {
+    return shards.size();
+  }
+
+  /** @return the index of the shard that hosts the loop for a key */
+  public int shardOf(K key) {
+    int hash = checkNotNull(key).hashCode();
+    // spread the high bits, like HashMap does, so that keys with similar hash codes are spread too
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % shards.size();
+  }
+
+  /** @return the total number of active loops currently hosted by this runtime */
+  public int loopCount() {
+    int count = 0;
+
+    for (Shard<K, M, E, F> shard : shards) {
+      count += shard.stats().loopCount();
+    }
+
+    return count;
+  }
+
+  /** @return the current state of each shard, in shard index order */
+  public List<ShardStats> shardStats() {
+    List<ShardStats> stats = new ArrayList<>(shards.size());
+
+    for (Shard<K, M, E, F> shard : shards) {
+      stats.add(shard.stats());
+    }
+
+    return stats;
+  }
+
+  /**
+   * @return the time it takes to reactivate a passivated loop, from deserializing its model until
+   *     the loop has started, in nanoseconds
+   */
+  public LatencyHistogram activationLatency() {
+    return activationLatency;
+  }
+
+  private Shard<K, M, E, F> shardFor(K key) {
+    return shards.get(shardOf(key));
+  }
+
+  private void checkNotDisposed() {
+    if (disposed) {
+      throw new IllegalStateException("This runtime has already been disposed");
+    }
+  }
+
+  private static class ShardThreadFactory implements ThreadFactory {
+
+    private final int runtime;
+    private final AtomicInteger threadCount = new AtomicInteger(0);
+
+    private ShardThreadFactory(int runtime) {
+      this.runtime = runtime;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = Executors.defaultThreadFactory().newThread(checkNotNull(runnable));
+
+      thread.setName(
+          String.format(
+              Locale.ENGLISH,
+              "mobius-runtime-%d-shard-%d",
+              runtime,
+              threadCount.incrementAndGet()));
+
+      return thread;
+    }
+  }
+}
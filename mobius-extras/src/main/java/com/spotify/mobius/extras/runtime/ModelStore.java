@@ -0,0 +1,42 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the serialized models of passivated loops. Only accessed from the thread of the shard that
+ * owns it, so implementations don't need to be thread-safe.
+ */
+interface ModelStore<K> {
+
+  void put(K key, byte[] model);
+
+  /** Remove and return the model stored for a key, or null if there isn't one. */
+  @Nullable
+  byte[] remove(K key);
+
+  int size();
+
+  /** @return the number of bytes used by the stored models */
+  long sizeInBytes();
+
+  void clear();
+}
@@ -0,0 +1,139 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ModelStore} that keeps serialized models in a direct {@link ByteBuffer}, outside of the
+ * Java heap.
+ *
+ * <p>Models are appended to the arena, and the space of removed models is reclaimed by compacting
+ * the arena when it runs out of room. The arena doubles in size when compacting doesn't free up
+ * enough space. Each key only costs a map entry on the heap, holding the position and length of its
+ * model packed into a long.
+ */
+class OffHeapModelStore<K> implements ModelStore<K> {
+
+  private final Map<K, Long> slots = new HashMap<>();
+
+  private ByteBuffer arena;
+  private int used;
+  private long sizeInBytes;
+
+  OffHeapModelStore(int initialBytes) {
+    arena = ByteBuffer.allocateDirect(initialBytes);
+  }
+
+  @Override
+  public void put(K key, byte[] model) {
+    remove(key);
+
+    if (arena.capacity() - used < model.length) {
+      compact(model.length);
+    }
+
+    arena.position(used);
+    arena.put(model);
+    slots.put(key, slot(used, model.length));
+    used += model.length;
+    sizeInBytes += model.length;
+  }
+
+  @Nullable
+  @Override
+  public byte[] remove(K key) {
+    Long slot = slots.remove(key);
+
+    if (slot == null) {
+      return null;
+    }
+
+    byte[] model = new byte[length(slot)];
+    arena.position(position(slot));
+    arena.get(model);
+    sizeInBytes -= model.length;
+    return model;
+  }
+
+  @Override
+  public int size() {
+    return slots.size();
+  }
+
+  @Override
+  public long sizeInBytes() {
+    return sizeInBytes;
+  }
+
+  /** @return the current size of the arena, including space that hasn't been reclaimed yet */
+  int capacity() {
+    return arena.capacity();
+  }
+
+  @Override
+  public void clear() {
+    slots.clear();
+    used = 0;
+    sizeInBytes = 0;
+  }
+
+  /** Move all models to the start of a new arena that has room for at least {@code needed} more. */
+  private void compact(int needed) {
+    long required = sizeInBytes + needed;
+    if (required > Integer.MAX_VALUE) {
+      throw new IllegalStateException("off-heap model store is full");
+    }
+
+    int capacity = arena.capacity();
+    while (capacity < required) {
+      capacity = (int) Math.min(capacity * 2L, Integer.MAX_VALUE);
+    }
+
+    ByteBuffer compacted = ByteBuffer.allocateDirect(capacity);
+
+    for (Map.Entry<K, Long> entry : slots.entrySet()) {
+      long slot = entry.getValue();
+      ByteBuffer model = arena.duplicate();
+      model.limit(position(slot) + length(slot)).position(position(slot));
+
+      entry.setValue(slot(compacted.position(), length(slot)));
+      compacted.put(model);
+    }
+
+    used = compacted.position();
+    arena = compacted;
+  }
+
+  private static long slot(int position, int length) {
+    return ((long) position << 32) | (length & 0xFFFFFFFFL);
+  }
+
+  private static int position(long slot) {
+    return (int) (slot >>> 32);
+  }
+
+  private static int length(long slot) {
+    return (int) slot;
+  }
+}
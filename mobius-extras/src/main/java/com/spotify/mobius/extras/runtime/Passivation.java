@@ -0,0 +1,129 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Configures how a {@link MobiusRuntime} passivates loops: disposing of loops that aren't in use,
+ * and keeping only their serialized model until the next event for their key arrives. Instances are
+ * immutable; every method returns a new configuration with one setting changed.
+ *
+ * @param <M> the loops' model type
+ */
+public final class Passivation<M> {
+
+  private static final long DEFAULT_IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private final ModelSerializer<M> serializer;
+  private final long idleTimeoutNanos;
+  private final int maxActiveLoops;
+  private final int offHeapArenaBytes;
+
+  private Passivation(
+      ModelSerializer<M> serializer,
+      long idleTimeoutNanos,
+      int maxActiveLoops,
+      int offHeapArenaBytes) {
+    this.serializer = serializer;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+    this.maxActiveLoops = maxActiveLoops;
+    this.offHeapArenaBytes = offHeapArenaBytes;
+  }
+
+  /**
+   * Passivate loops that haven't received an event for 5 minutes, with no limit on the number of
+   * active loops, storing models on the heap.
+   *
+   * @param serializer used to convert models of passivated loops to bytes and back
+   */
+  @Nonnull
+  public static <M> Passivation<M> using(ModelSerializer<M> serializer) {
+    return new Passivation<>(
+        checkNotNull(serializer), DEFAULT_IDLE_TIMEOUT_NANOS, Integer.MAX_VALUE, 0);
+  }
+
+  /**
+   * Set how long a loop may go without receiving an event before it is passivated.
+   *
+   * @throws IllegalArgumentException if timeout is not positive
+   */
+  @Nonnull
+  public Passivation<M> idleTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 1) {
+      throw new IllegalArgumentException("idle timeout must be positive, was: " + timeout);
+    }
+
+    return new Passivation<>(serializer, unit.toNanos(timeout), maxActiveLoops, offHeapArenaBytes);
+  }
+
+  /**
+   * Limit the number of active loops. When an event would start a loop beyond the limit, the least
+   * recently used loop is passivated first. The limit is divided evenly between the runtime's
+   * shards, and each shard enforces its part of it.
+   *
+   * @throws IllegalArgumentException if max is not positive
+   */
+  @Nonnull
+  public Passivation<M> maxActiveLoops(int max) {
+    if (max < 1) {
+      throw new IllegalArgumentException("max active loops must be positive, was: " + max);
+    }
+
+    return new Passivation<>(serializer, idleTimeoutNanos, max, offHeapArenaBytes);
+  }
+
+  /**
+   * Store the models of passivated loops in direct byte buffers rather than on the heap, so that
+   * they don't add to garbage collection work. Each shard has its own arena, which starts out at
+   * the given size and grows when needed.
+   *
+   * @throws IllegalArgumentException if initialBytes is not positive
+   */
+  @Nonnull
+  public Passivation<M> offHeap(int initialBytes) {
+    if (initialBytes < 1) {
+      throw new IllegalArgumentException("arena size must be positive, was: " + initialBytes);
+    }
+
+    return new Passivation<>(serializer, idleTimeoutNanos, maxActiveLoops, initialBytes);
+  }
+
+  ModelSerializer<M> serializer() {
+    return serializer;
+  }
+
+  long idleTimeoutNanos() {
+    return idleTimeoutNanos;
+  }
+
+  int maxActiveLoops() {
+    return maxActiveLoops;
+  }
+
+  /** @return the initial arena size, or 0 if models are stored on the heap */
+  int offHeapArenaBytes() {
+    return offHeapArenaBytes;
+  }
+}
@@ -0,0 +1,418 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.actors.Actor;
+import com.spotify.mobius.actors.ActorFactory;
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.monitoring.LatencyHistogram;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One event-loop thread of a {@link MobiusRuntime}, and the loops whose keys hash to it.
+ *
+ * <p>The loops are only ever accessed on the shard's thread, which is also the thread their events
+ * are processed on, so creating, looking up, passivating and disposing of loops needs no
+ * synchronization. Events dispatched through the runtime are processed directly by the task that
+ * dispatches them, so a loop never has events from the runtime waiting when it is passivated. Any
+ * other messages that the loops' actors receive, including events that effect handlers emit
+ * synchronously on the shard's thread, are queued behind the current task, so that event processing
+ * never re-enters itself.
+ */
+class Shard<K, M, E, F> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Shard.class);
+
+  private final int index;
+  private final ThreadPoolExecutor executor;
+  private final MobiusLoop.Factory<M, E, F> loopFactory;
+  private final Function<K, M> initialModel;
+
+  // in access order, so that the least recently used loop comes first
+  private final LinkedHashMap<K, ActiveLoop<M, E, F>> loops = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Nullable private final ModelSerializer<M> serializer;
+  @Nullable private final ModelStore<K> passivated;
+  private final long idleTimeoutNanos;
+  private final int maxActiveLoops;
+  private final LatencyHistogram activationLatency;
+
+  private final AtomicLong dispatchedEvents = new AtomicLong();
+  private final AtomicLong droppedEvents = new AtomicLong();
+
+  // only written on the shard's thread, read by stats()
+  private volatile int loopCount;
+  private volatile int passivatedCount;
+  private volatile long passivatedBytes;
+  private volatile long passivations;
+  private volatile long activations;
+
+  private volatile Thread thread;
+
+  // only accessed on the shard's thread. Set while a dispatch task hands its event to a loop, and
+  // cleared by the first actor message consumed inline, so that only that event skips the queue.
+  private boolean consumeInline;
+
+  Shard(
+      int index,
+      final ThreadFactory threadFactory,
+      MobiusLoop.Builder<M, E, F> loopBuilder,
+      Function<K, M> initialModel,
+      @Nullable Passivation<M> passivation,
+      int shardCount,
+      LatencyHistogram activationLatency) {
+    this.index = index;
+    this.initialModel = initialModel;
+    this.activationLatency = activationLatency;
+
+    ThreadFactory recordingThreadFactory =
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = threadFactory.newThread(runnable);
+            Shard.this.thread = thread;
+            return thread;
+          }
+        };
+
+    if (passivation == null) {
+      this.executor =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0,
+              TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<Runnable>(),
+              recordingThreadFactory);
+      this.serializer = null;
+      this.passivated = null;
+      this.idleTimeoutNanos = Long.MAX_VALUE;
+      this.maxActiveLoops = Integer.MAX_VALUE;
+
+    } else {
+      ScheduledThreadPoolExecutor scheduledExecutor =
+          new ScheduledThreadPoolExecutor(1, recordingThreadFactory);
+      this.executor = scheduledExecutor;
+      this.serializer = passivation.serializer();
+      this.passivated =
+          passivation.offHeapArenaBytes() > 0
+              ? new OffHeapModelStore<K>(passivation.offHeapArenaBytes())
+              : new HeapModelStore<K>();
+      this.idleTimeoutNanos = passivation.idleTimeoutNanos();
+      this.maxActiveLoops =
+          passivation.maxActiveLoops() == Integer.MAX_VALUE
+              ? Integer.MAX_VALUE
+              : Math.max(1, (passivation.maxActiveLoops() + shardCount - 1) / shardCount);
+
+      // checking twice per timeout means loops are passivated at most 1.5 timeouts after their
+      // last event
+      long scanInterval = Math.max(idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+      scheduledExecutor.scheduleWithFixedDelay(
+          new Runnable() {
+            @Override
+            public void run() {
+              passivateIdleLoops();
+            }
+          },
+          scanInterval,
+          scanInterval,
+          TimeUnit.NANOSECONDS);
+    }
+
+    this.loopFactory = loopBuilder.eventActorFactory(new ShardActorFactory());
+  }
+
+  void dispatch(final K key, final E event) {
+    dispatchedEvents.incrementAndGet();
+
+    execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              MobiusLoop<M, E, F> loop = activate(key).loop;
+
+              consumeInline = true;
+              try {
+                loop.dispatchEvent(event);
+              } finally {
+                consumeInline = false;
+              }
+            } catch (RuntimeException e) {
+              LOGGER.error("Failed to dispatch event {} to loop for key {}", event, key, e);
+            }
+          }
+        });
+  }
+
+  void dispose(final K key) {
+    execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            ActiveLoop<M, E, F> active = loops.remove(key);
+
+            if (active != null) {
+              active.loop.dispose();
+            }
+
+            if (passivated != null) {
+              passivated.remove(key);
+            }
+
+            updateCounts();
+          }
+        });
+  }
+
+  /**
+   * Dispose of all loops and stop the shard's thread once it has run the tasks that were queued
+   * before this call.
+   */
+  void disposeAll() {
+    execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            for (ActiveLoop<M, E, F> active : loops.values()) {
+              active.loop.dispose();
+            }
+
+            loops.clear();
+            if (passivated != null) {
+              passivated.clear();
+            }
+            updateCounts();
+
+            // tasks that loops posted before being disposed still run, and discard their messages
+            executor.shutdown();
+          }
+        });
+  }
+
+  boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return executor.awaitTermination(timeout, unit);
+  }
+
+  ShardStats stats() {
+    int queuedTasks = executor.getQueue().size();
+
+    if (passivated != null) {
+      // don't count the periodic idle check
+      queuedTasks = Math.max(0, queuedTasks - 1);
+    }
+
+    return ShardStats.create(
+        index,
+        loopCount,
+        queuedTasks,
+        dispatchedEvents.get(),
+        passivatedCount,
+        passivatedBytes,
+        passivations,
+        activations,
+        droppedEvents.get());
+  }
+
+  /** Get the loop for a key, reactivating it or starting a new one if it isn't active. */
+  private ActiveLoop<M, E, F> activate(K key) {
+    // get() moves the loop to the end of the access order
+    ActiveLoop<M, E, F> active = loops.get(key);
+
+    if (active == null) {
+      if (loops.size() >= maxActiveLoops) {
+        Iterator<Map.Entry<K, ActiveLoop<M, E, F>>> eldest = loops.entrySet().iterator();
+        Map.Entry<K, ActiveLoop<M, E, F>> entry = eldest.next();
+        eldest.remove();
+        passivate(entry.getKey(), entry.getValue());
+      }
+
+      active = new ActiveLoop<>(startLoop(key));
+      loops.put(key, active);
+      updateCounts();
+    }
+
+    if (passivated != null) {
+      active.lastEventNanos = System.nanoTime();
+    }
+
+    return active;
+  }
+
+  private MobiusLoop<M, E, F> startLoop(K key) {
+    byte[] bytes = passivated != null ? passivated.remove(key) : null;
+
+    if (bytes == null) {
+      return loopFactory.startFrom(initialModel.apply(key));
+    }
+
+    long start = System.nanoTime();
+    M model;
+    try {
+      model = serializer.deserialize(bytes);
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to restore model for key {}, starting from initial model", key, e);
+      return loopFactory.startFrom(initialModel.apply(key));
+    }
+
+    MobiusLoop<M, E, F> loop = loopFactory.startFrom(model);
+    activationLatency.record(System.nanoTime() - start);
+    activations++;
+    return loop;
+  }
+
+  private void passivateIdleLoops() {
+    long now = System.nanoTime();
+    Iterator<Map.Entry<K, ActiveLoop<M, E, F>>> iterator = loops.entrySet().iterator();
+
+    while (iterator.hasNext()) {
+      Map.Entry<K, ActiveLoop<M, E, F>> entry = iterator.next();
+
+      // loops are in the order they last received an event, so the rest are more recent
+      if (now - entry.getValue().lastEventNanos < idleTimeoutNanos) {
+        break;
+      }
+
+      iterator.remove();
+      passivate(entry.getKey(), entry.getValue());
+    }
+
+    updateCounts();
+  }
+
+  private void passivate(K key, ActiveLoop<M, E, F> active) {
+    M model = active.loop.getMostRecentModel();
+    active.loop.dispose();
+
+    if (model == null) {
+      return;
+    }
+
+    try {
+      passivated.put(key, serializer.serialize(model));
+      passivations++;
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to passivate model for key {}, discarding it: {}", key, model, e);
+    }
+  }
+
+  private void updateCounts() {
+    loopCount = loops.size();
+
+    if (passivated != null) {
+      passivatedCount = passivated.size();
+      passivatedBytes = passivated.sizeInBytes();
+    }
+  }
+
+  private void execute(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      throw new IllegalStateException("This runtime has already been disposed", e);
+    }
+  }
+
+  private static class ActiveLoop<M, E, F> {
+    final MobiusLoop<M, E, F> loop;
+    long lastEventNanos;
+
+    ActiveLoop(MobiusLoop<M, E, F> loop) {
+      this.loop = loop;
+    }
+  }
+
+  /**
+   * Creates actors that consume messages on the shard's thread: directly if they are the event sent
+   * by a dispatch task, and by posting them to the thread otherwise.
+   */
+  private class ShardActorFactory implements ActorFactory {
+    @Override
+    public <T> Actor<T> create(final Consumer<T> consumer) {
+      return new Actor<T>() {
+        private volatile boolean disposed;
+
+        @Override
+        public void accept(final T message) {
+          if (disposed) {
+            drop(message);
+            return;
+          }
+
+          if (consumeInline && Thread.currentThread() == thread) {
+            consumeInline = false;
+            consume(message);
+            return;
+          }
+
+          try {
+            executor.execute(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    if (disposed) {
+                      drop(message);
+                    } else {
+                      consume(message);
+                    }
+                  }
+                });
+          } catch (RejectedExecutionException e) {
+            LOGGER.debug("Runtime disposed; discarding message: {}", message);
+          }
+        }
+
+        @Override
+        public void dispose() {
+          disposed = true;
+        }
+
+        private void drop(T message) {
+          droppedEvents.incrementAndGet();
+          LOGGER.warn("Loop was passivated or disposed; discarding event: {}", message);
+        }
+
+        private void consume(T message) {
+          try {
+            consumer.accept(message);
+          } catch (Throwable throwable) {
+            LOGGER.error(
+                "Consumer threw an exception when accepting message: {}", message, throwable);
+          }
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import com.google.auto.value.AutoValue;
+
+/** A point-in-time view of the state of one shard of a {@link MobiusRuntime}. */
+@AutoValue
+public abstract class ShardStats {
+
+  /** @return the index of the shard, between 0 and the runtime's shard count */
+  public abstract int shard();
+
+  /** @return the number of active loops currently hosted by the shard */
+  public abstract int loopCount();
+
+  /**
+   * @return the number of tasks waiting for the shard's thread, including dispatched events that
+   *     haven't been delivered to their loop yet and loops waiting to process their events
+   */
+  public abstract int queuedTasks();
+
+  /** @return the total number of events dispatched to loops on the shard */
+  public abstract long dispatchedEvents();
+
+  /** @return the number of passivated loops whose models are stored by the shard */
+  public abstract int passivatedLoops();
+
+  /** @return the number of bytes used by the models of passivated loops */
+  public abstract long passivatedBytes();
+
+  /** @return the total number of times a loop on the shard has been passivated */
+  public abstract long passivations();
+
+  /** @return the total number of times a passivated loop on the shard has been reactivated */
+  public abstract long activations();
+
+  /**
+   * @return the total number of events that were discarded because their loop had been passivated
+   *     or disposed before it got to process them, typically events from effects that were still
+   *     running
+   */
+  public abstract long droppedEvents();
+
+  static ShardStats create(
+      int shard,
+      int loopCount,
+      int queuedTasks,
+      long dispatchedEvents,
+      int passivatedLoops,
+      long passivatedBytes,
+      long passivations,
+      long activations,
+      long droppedEvents) {
+    return new AutoValue_ShardStats(
+        shard,
+        loopCount,
+        queuedTasks,
+        dispatchedEvents,
+        passivatedLoops,
+        passivatedBytes,
+        passivations,
+        activations,
+        droppedEvents);
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.snapshot;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Converts models to and from bytes, so that they can be stored in a {@link SnapshotStore}.
+ *
+ * @param <M> model type
+ */
+public interface ModelSerializer<M> {
+
+  /** Convert a model to bytes. */
+  @Nonnull
+  byte[] serialize(M model);
+
+  /**
+   * Convert bytes produced by {@link #serialize(Object)} back into a model. Implementations should
+   * throw an exception if the bytes can't be read, for instance because they were written by an
+   * older version of the app; the snapshot is then ignored.
+   */
+  @Nonnull
+  M deserialize(byte[] bytes);
+}
@@ -0,0 +1,403 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.snapshot;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a snapshot of the latest model of a loop in a memory-mapped file, so that a controller can
+ * be restored from it after the process has been restarted.
+ *
+ * <p>Models passed to {@link #save(Object)} are written on a background thread, at most once per
+ * configured interval; if several models are saved within an interval, only the latest one is
+ * written. Writes go to a memory-mapped file and aren't forced to the storage device until {@link
+ * #flush()} or {@link #dispose()} is called, which makes them cheap and still lets them survive the
+ * process being killed.
+ *
+ * <p>Every snapshot is stored with a checksum, and {@link #load()} ignores snapshots that are
+ * incomplete or can't be deserialized.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>{@code
+ * SnapshotStore<Model> store = SnapshotStore.create(file, serializer, 1, TimeUnit.SECONDS);
+ * MobiusLoop.Controller<Model, Event> controller =
+ *     Mobius.controller(store.snapshotting(loopFactory), Model.DEFAULT);
+ * store.restoreInto(controller);
+ * }</pre>
+ *
+ * @param <M> model type
+ */
+public final class SnapshotStore<M> implements Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+
+  private static final int MAGIC = 0x4d4f4253;
+  private static final int FORMAT_VERSION = 1;
+
+  // magic, format version, payload length, payload checksum
+  private static final int HEADER_SIZE = 16;
+  private static final int MIN_MAPPED_SIZE = 4096;
+
+  private final File file;
+  private final ModelSerializer<M> serializer;
+  private final long minIntervalNanos;
+  private final ScheduledExecutorService executor;
+  private final boolean ownsExecutor;
+
+  // concurrency note: 'pending' holds the latest model that hasn't been written yet. The thread
+  // that sets 'writeScheduled' schedules a write, so at most one write is scheduled at a time.
+  private final AtomicReference<M> pending = new AtomicReference<>();
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+  private final Runnable writePending =
+      new Runnable() {
+        @Override
+        public void run() {
+          writeScheduled.set(false);
+          writePending();
+        }
+      };
+
+  private volatile long lastWriteNanos;
+  private volatile boolean disposed;
+
+  // guarded by 'this'
+  @Nullable private RandomAccessFile randomAccessFile;
+  @Nullable private MappedByteBuffer buffer;
+
+  private SnapshotStore(
+      File file,
+      ModelSerializer<M> serializer,
+      long minIntervalNanos,
+      ScheduledExecutorService executor,
+      boolean ownsExecutor) {
+    if (minIntervalNanos < 0) {
+      throw new IllegalArgumentException("minInterval must not be negative");
+    }
+
+    this.file = checkNotNull(file);
+    this.serializer = checkNotNull(serializer);
+    this.minIntervalNanos = minIntervalNanos;
+    this.executor = checkNotNull(executor);
+    this.ownsExecutor = ownsExecutor;
+    this.lastWriteNanos = System.nanoTime() - minIntervalNanos;
+  }
+
+  /**
+   * Create a store that writes snapshots on its own background thread. The thread is stopped when
+   * the store is disposed.
+   *
+   * @param file the file to keep the snapshot in
+   * @param serializer converts models to and from bytes
+   * @param minInterval the minimum time between two writes
+   * @param unit the unit of minInterval
+   */
+  @Nonnull
+  public static <M> SnapshotStore<M> create(
+      File file, ModelSerializer<M> serializer, long minInterval, TimeUnit unit) {
+    ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(@Nonnull Runnable runnable) {
+                Thread thread = new Thread(runnable, "mobius-snapshot");
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+
+    return new SnapshotStore<>(file, serializer, unit.toNanos(minInterval), executor, true);
+  }
+
+  /**
+   * Create a store that writes snapshots using the supplied executor. The executor is not shut down
+   * when the store is disposed.
+   *
+   * @param file the file to keep the snapshot in
+   * @param serializer converts models to and from bytes
+   * @param minInterval the minimum time between two writes
+   * @param unit the unit of minInterval
+   * @param executor used to write snapshots
+   */
+  @Nonnull
+  public static <M> SnapshotStore<M> create(
+      File file,
+      ModelSerializer<M> serializer,
+      long minInterval,
+      TimeUnit unit,
+      ScheduledExecutorService executor) {
+    return new SnapshotStore<>(file, serializer, unit.toNanos(minInterval), executor, false);
+  }
+
+  /**
+   * Save a model. The model is written on the background thread, unless a later model is saved
+   * before that happens.
+   */
+  public void save(M model) {
+    checkNotNull(model);
+
+    if (disposed) {
+      return;
+    }
+
+    pending.set(model);
+
+    if (writeScheduled.compareAndSet(false, true)) {
+      long delay = Math.max(0, lastWriteNanos + minIntervalNanos - System.nanoTime());
+
+      try {
+        executor.schedule(writePending, delay, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        // the store was disposed concurrently; nothing more will be written
+        writeScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Load the most recently written snapshot.
+   *
+   * @return the model in the snapshot, or null if there is no snapshot or it couldn't be read
+   */
+  @Nullable
+  public synchronized M load() {
+    byte[] payload;
+
+    try {
+      payload = readPayload();
+
+    } catch (IOException e) {
+      LOGGER.warn("Failed to read snapshot from {}", file, e);
+      return null;
+    }
+
+    if (payload == null) {
+      return null;
+    }
+
+    try {
+      return serializer.deserialize(payload);
+
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to deserialize snapshot from {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Replace the model of a controller with the model in the most recent snapshot, if there is one.
+   * This must be done before the controller is started.
+   *
+   * @return true if the controller was restored from a snapshot
+   */
+  public boolean restoreInto(MobiusLoop.Controller<M, ?> controller) {
+    M model = load();
+
+    if (model == null) {
+      return false;
+    }
+
+    controller.replaceModel(model);
+    return true;
+  }
+
+  /**
+   * Decorate a loop factory so that every model of the loops it starts is saved in this store.
+   *
+   * @param loopFactory the factory to decorate
+   * @return a factory that starts loops whose models are saved
+   */
+  @Nonnull
+  public <E, F> MobiusLoop.Factory<M, E, F> snapshotting(
+      final MobiusLoop.Factory<M, E, F> loopFactory) {
+    checkNotNull(loopFactory);
+
+    final Consumer<M> saver =
+        new Consumer<M>() {
+          @Override
+          public void accept(M model) {
+            save(model);
+          }
+        };
+
+    return new MobiusLoop.Factory<M, E, F>() {
+      @Override
+      public MobiusLoop<M, E, F> startFrom(M startModel) {
+        MobiusLoop<M, E, F> loop = loopFactory.startFrom(startModel);
+        loop.observe(saver);
+        return loop;
+      }
+    };
+  }
+
+  /**
+   * Write the latest saved model right away, if it hasn't been written yet, and force the snapshot
+   * to the storage device.
+   */
+  public synchronized void flush() {
+    writePending();
+
+    if (buffer != null) {
+      buffer.force();
+    }
+  }
+
+  /** Flush the latest saved model and release the snapshot file. */
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+
+      flush();
+      disposed = true;
+      buffer = null;
+
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          LOGGER.warn("Failed to close snapshot file {}", file, e);
+        }
+        randomAccessFile = null;
+      }
+    }
+
+    if (ownsExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private synchronized void writePending() {
+    M model = pending.getAndSet(null);
+
+    if (model == null || disposed) {
+      return;
+    }
+
+    try {
+      write(serializer.serialize(model));
+
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Failed to write snapshot to {}", file, e);
+    }
+
+    lastWriteNanos = System.nanoTime();
+  }
+
+  @Nullable
+  private byte[] readPayload() throws IOException {
+    if (file.length() < HEADER_SIZE) {
+      return null;
+    }
+
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+
+    try {
+      MappedByteBuffer mapped =
+          input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+
+      if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+        LOGGER.warn("Ignoring snapshot in {}: unknown format", file);
+        return null;
+      }
+
+      int length = mapped.getInt(8);
+
+      if (length < 0 || length > mapped.capacity() - HEADER_SIZE) {
+        LOGGER.warn("Ignoring snapshot in {}: incomplete", file);
+        return null;
+      }
+
+      byte[] payload = new byte[length];
+      mapped.position(HEADER_SIZE);
+      mapped.get(payload);
+
+      if (checksum(payload) != mapped.getInt(12)) {
+        LOGGER.warn("Ignoring snapshot in {}: checksum mismatch", file);
+        return null;
+      }
+
+      return payload;
+
+    } finally {
+      input.close();
+    }
+  }
+
+  private void write(byte[] payload) throws IOException {
+    MappedByteBuffer target = mapped(HEADER_SIZE + payload.length);
+
+    // invalidate the old snapshot before overwriting it, so that a partial write is never mistaken
+    // for a complete one
+    target.putInt(0, 0);
+
+    target.position(HEADER_SIZE);
+    target.put(payload);
+
+    target.putInt(12, checksum(payload));
+    target.putInt(8, payload.length);
+    target.putInt(4, FORMAT_VERSION);
+    target.putInt(0, MAGIC);
+  }
+
+  private MappedByteBuffer mapped(int size) throws IOException {
+    if (buffer != null && buffer.capacity() >= size) {
+      return buffer;
+    }
+
+    if (randomAccessFile == null) {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+    }
+
+    int capacity = Math.max(MIN_MAPPED_SIZE, Integer.highestOneBit(size - 1) << 1);
+    buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    return buffer;
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+}
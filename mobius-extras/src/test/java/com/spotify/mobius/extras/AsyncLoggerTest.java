@@ -0,0 +1,231 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncLoggerTest {
+
+  private RecordingLogger delegate;
+  private AsyncLogger<String, Integer, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    delegate = new RecordingLogger();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    delegate.release.countDown();
+    if (underTest != null) {
+      underTest.dispose();
+    }
+  }
+
+  @Test
+  public void forwardsCallsInOrderOnBackgroundThread() throws Exception {
+    underTest = AsyncLogger.create(delegate, 16, 1, TimeUnit.MILLISECONDS);
+    RuntimeException exception = new RuntimeException("expected");
+
+    underTest.beforeInit("init");
+    underTest.afterInit("init", First.first("first"));
+    underTest.beforeUpdate("first", 1);
+    underTest.afterUpdate("first", 1, Next.next("second"));
+    underTest.exceptionDuringUpdate("second", 2, exception);
+    underTest.exceptionDuringInit("init", exception);
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(
+            () -> delegate.calls,
+            contains(
+                "beforeInit(init)",
+                "afterInit(init, first)",
+                "beforeUpdate(first, 1)",
+                "afterUpdate(first, 1, second)",
+                "exceptionDuringUpdate(second, 2, expected)",
+                "exceptionDuringInit(init, expected)"));
+    assertThat(delegate.threads, everyItem(startsWith("mobius-async-logger-")));
+  }
+
+  @Test
+  public void forwardsBufferedCallsOnDispose() throws Exception {
+    underTest = AsyncLogger.create(delegate, 16, 1, TimeUnit.HOURS);
+
+    underTest.beforeUpdate("model", 1);
+    underTest.beforeUpdate("model", 2);
+    underTest.dispose();
+    underTest.awaitTermination();
+
+    assertThat(delegate.calls, contains("beforeUpdate(model, 1)", "beforeUpdate(model, 2)"));
+  }
+
+  @Test
+  public void ignoresCallsAfterDispose() throws Exception {
+    underTest = AsyncLogger.create(delegate, 16, 1, TimeUnit.MILLISECONDS);
+
+    underTest.dispose();
+    underTest.awaitTermination();
+    underTest.beforeUpdate("model", 1);
+
+    assertThat(delegate.calls.isEmpty(), is(true));
+  }
+
+  @Test
+  public void dropsCallsWhenBufferIsFull() throws Exception {
+    underTest = AsyncLogger.create(delegate, 2, 1, TimeUnit.MILLISECONDS);
+    blockBackgroundThread();
+
+    for (int i = 0; i < 5; i++) {
+      underTest.beforeUpdate("model", i);
+    }
+
+    assertThat(underTest.droppedCount(), is(3L));
+
+    delegate.release.countDown();
+    underTest.dispose();
+    underTest.awaitTermination();
+
+    assertThat(
+        delegate.calls,
+        contains("beforeInit(blocked)", "beforeUpdate(model, 0)", "beforeUpdate(model, 1)"));
+  }
+
+  @Test
+  public void passesExceptionsToDelegateDirectlyWhenBufferIsFull() throws Exception {
+    underTest = AsyncLogger.create(delegate, 2, 1, TimeUnit.MILLISECONDS);
+    blockBackgroundThread();
+    underTest.beforeUpdate("model", 1);
+    underTest.beforeUpdate("model", 2);
+
+    underTest.exceptionDuringUpdate("model", 3, new RuntimeException("expected"));
+
+    assertThat(underTest.droppedCount(), is(0L));
+    assertThat(
+        delegate.calls,
+        contains("beforeInit(blocked)", "exceptionDuringUpdate(model, 3, expected)"));
+    assertThat(delegate.threads.get(1), is(Thread.currentThread().getName()));
+  }
+
+  @Test
+  public void keepsForwardingWhenDelegateThrows() throws Exception {
+    RecordingLogger throwing =
+        new RecordingLogger() {
+          @Override
+          public void beforeInit(String model) {
+            throw new RuntimeException("expected");
+          }
+        };
+    underTest = AsyncLogger.create(throwing, 16, 1, TimeUnit.MILLISECONDS);
+
+    underTest.beforeInit("init");
+    underTest.beforeUpdate("init", 1);
+    underTest.dispose();
+    underTest.awaitTermination();
+
+    assertThat(throwing.calls, contains("beforeUpdate(init, 1)"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroCapacity() throws Exception {
+    AsyncLogger.create(delegate, 0, 1, TimeUnit.MILLISECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroFlushInterval() throws Exception {
+    AsyncLogger.create(delegate, 16, 0, TimeUnit.MILLISECONDS);
+  }
+
+  private void blockBackgroundThread() {
+    delegate.blockOn = "blocked";
+    underTest.beforeInit("blocked");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> delegate.blocked, is(true));
+  }
+
+  private static class RecordingLogger implements MobiusLoop.Logger<String, Integer, String> {
+    final List<String> calls = new CopyOnWriteArrayList<>();
+    final List<String> threads = new CopyOnWriteArrayList<>();
+    final CountDownLatch release = new CountDownLatch(1);
+    volatile String blockOn;
+    volatile boolean blocked;
+
+    @Override
+    public void beforeInit(String model) {
+      record("beforeInit(" + model + ")");
+
+      if (model.equals(blockOn)) {
+        blocked = true;
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
+    @Override
+    public void afterInit(String model, First<String, String> result) {
+      record("afterInit(" + model + ", " + result.model() + ")");
+    }
+
+    @Override
+    public void exceptionDuringInit(String model, Throwable exception) {
+      record("exceptionDuringInit(" + model + ", " + exception.getMessage() + ")");
+    }
+
+    @Override
+    public void beforeUpdate(String model, Integer event) {
+      record("beforeUpdate(" + model + ", " + event + ")");
+    }
+
+    @Override
+    public void afterUpdate(String model, Integer event, Next<String, String> result) {
+      record("afterUpdate(" + model + ", " + event + ", " + result.modelUnsafe() + ")");
+    }
+
+    @Override
+    public void exceptionDuringUpdate(String model, Integer event, Throwable exception) {
+      record("exceptionDuringUpdate(" + model + ", " + event + ", " + exception.getMessage() + ")");
+    }
+
+    private void record(String call) {
+      calls.add(call);
+      threads.add(Thread.currentThread().getName());
+    }
+  }
+}
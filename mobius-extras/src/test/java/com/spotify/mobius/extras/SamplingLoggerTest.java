@@ -0,0 +1,191 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SamplingLoggerTest {
+
+  private RecordingLogger delegate;
+
+  @Before
+  public void setUp() throws Exception {
+    delegate = new RecordingLogger();
+  }
+
+  @Test
+  public void forwardsEveryUpdateWhenSamplingOneInOne() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest = SamplingLogger.sampled(delegate, 1);
+
+    update(underTest, 1);
+    update(underTest, 2);
+
+    assertThat(
+        delegate.calls,
+        contains(
+            "beforeUpdate(model, 1)",
+            "afterUpdate(model, 1)",
+            "beforeUpdate(model, 2)",
+            "afterUpdate(model, 2)"));
+  }
+
+  @Test
+  public void forwardsRandomSampleOfUpdates() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest = SamplingLogger.sampled(delegate, 4);
+
+    for (int i = 0; i < 4000; i++) {
+      update(underTest, i);
+    }
+
+    assertThat(delegate.beforeCount(), allOf(greaterThan(800), lessThan(1200)));
+  }
+
+  @Test
+  public void forwardsBeforeAndAfterForSameUpdates() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest = SamplingLogger.sampled(delegate, 3);
+
+    for (int i = 0; i < 1000; i++) {
+      update(underTest, i);
+    }
+
+    for (int i = 0; i < delegate.calls.size(); i += 2) {
+      String before = delegate.calls.get(i);
+      String after = delegate.calls.get(i + 1);
+
+      assertThat(after, is(before.replace("before", "after")));
+    }
+  }
+
+  @Test
+  public void limitsUpdatesPerSecond() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest = SamplingLogger.rateLimited(delegate, 10);
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 1000; i++) {
+      update(underTest, i);
+    }
+
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertThat(delegate.beforeCount(), greaterThan(9));
+    assertThat(delegate.beforeCount(), lessThanOrEqualTo(10 + (int) (elapsedMillis / 100) + 1));
+  }
+
+  @Test
+  public void alwaysForwardsExceptions() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest =
+        SamplingLogger.create(delegate, Integer.MAX_VALUE, 1);
+    RuntimeException exception = new RuntimeException("expected");
+
+    underTest.exceptionDuringInit("model", exception);
+    for (int i = 0; i < 10; i++) {
+      underTest.beforeUpdate("model", i);
+      underTest.exceptionDuringUpdate("model", i, exception);
+    }
+
+    assertThat(delegate.calls.get(0), is("exceptionDuringInit(model)"));
+    assertThat(delegate.calls.get(10), is("exceptionDuringUpdate(model, 9)"));
+    assertThat(delegate.beforeCount(), lessThanOrEqualTo(1));
+  }
+
+  @Test
+  public void alwaysForwardsInit() throws Exception {
+    MobiusLoop.Logger<String, Integer, String> underTest =
+        SamplingLogger.create(delegate, Integer.MAX_VALUE, 1);
+
+    underTest.beforeInit("model");
+    underTest.afterInit("model", First.first("model"));
+
+    assertThat(delegate.calls, contains("beforeInit(model)", "afterInit(model)"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroSamplingRate() throws Exception {
+    SamplingLogger.sampled(delegate, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroRateLimit() throws Exception {
+    SamplingLogger.rateLimited(delegate, 0);
+  }
+
+  private static void update(MobiusLoop.Logger<String, Integer, String> logger, int event) {
+    logger.beforeUpdate("model", event);
+    logger.afterUpdate("model", event, Next.noChange());
+  }
+
+  private static class RecordingLogger implements MobiusLoop.Logger<String, Integer, String> {
+    final List<String> calls = new ArrayList<>();
+
+    int beforeCount() {
+      int count = 0;
+      for (String call : calls) {
+        if (call.startsWith("beforeUpdate")) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    @Override
+    public void beforeInit(String model) {
+      calls.add("beforeInit(" + model + ")");
+    }
+
+    @Override
+    public void afterInit(String model, First<String, String> result) {
+      calls.add("afterInit(" + model + ")");
+    }
+
+    @Override
+    public void exceptionDuringInit(String model, Throwable exception) {
+      calls.add("exceptionDuringInit(" + model + ")");
+    }
+
+    @Override
+    public void beforeUpdate(String model, Integer event) {
+      calls.add("beforeUpdate(" + model + ", " + event + ")");
+    }
+
+    @Override
+    public void afterUpdate(String model, Integer event, Next<String, String> result) {
+      calls.add("afterUpdate(" + model + ", " + event + ")");
+    }
+
+    @Override
+    public void exceptionDuringUpdate(String model, Integer event, Throwable exception) {
+      calls.add("exceptionDuringUpdate(" + model + ", " + event + ")");
+    }
+  }
+}
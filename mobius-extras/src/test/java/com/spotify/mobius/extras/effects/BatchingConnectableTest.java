@@ -0,0 +1,288 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.awaitility.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingConnectableTest {
+
+  private static final Executor DIRECT = Runnable::run;
+
+  private RecordingBatchHandler handler;
+  private List<String> events;
+
+  @Before
+  public void setUp() throws Exception {
+    handler = new RecordingBatchHandler();
+    events = new CopyOnWriteArrayList<>();
+  }
+
+  @Test
+  public void handlesBatchWhenMaxSizeIsReached() throws Exception {
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT)
+            .maxBatchSize(3)
+            .maxDelay(1, TimeUnit.HOURS)
+            .connect(events::add);
+
+    connection.accept("a");
+    connection.accept("b");
+    assertThat(handler.batches, is(empty()));
+
+    connection.accept("c");
+
+    assertThat(handler.batches, is(singleBatch("a", "b", "c")));
+    assertThat(events, contains("handled a", "handled b", "handled c"));
+  }
+
+  @Test
+  public void handlesBatchWhenMaxDelayHasPassed() throws Exception {
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT)
+            .maxDelay(20, TimeUnit.MILLISECONDS)
+            .connect(events::add);
+
+    connection.accept("a");
+    connection.accept("b");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("handled a", "handled b"));
+    assertThat(handler.batches, is(singleBatch("a", "b")));
+  }
+
+  @Test
+  public void batchesEffectsFromAllConnectionsAndRoutesEventsBack() throws Exception {
+    BatchingConnectable<String, String> underTest =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(4).maxDelay(1, TimeUnit.HOURS);
+    List<String> otherEvents = new CopyOnWriteArrayList<>();
+
+    Connection<String> first = underTest.connect(events::add);
+    Connection<String> second = underTest.connect(otherEvents::add);
+
+    first.accept("a");
+    second.accept("b");
+    first.accept("c");
+    second.accept("d");
+
+    assertThat(handler.batches, is(singleBatch("a", "b", "c", "d")));
+    assertThat(events, contains("handled a", "handled c"));
+    assertThat(otherEvents, contains("handled b", "handled d"));
+  }
+
+  @Test
+  public void passesOtherEffectsToOtherConnectable() throws Exception {
+    List<Object> otherEffects = new ArrayList<>();
+    Connectable<Object, String> otherHandler =
+        new Connectable<Object, String>() {
+          @Nonnull
+          @Override
+          public Connection<Object> connect(Consumer<String> output) {
+            return new Connection<Object>() {
+              @Override
+              public void accept(Object effect) {
+                otherEffects.add(effect);
+                output.accept("other " + effect);
+              }
+
+              @Override
+              public void dispose() {}
+            };
+          }
+        };
+
+    Connection<Object> connection =
+        BatchingConnectable.create(String.class, handler, DIRECT, otherHandler)
+            .maxBatchSize(2)
+            .connect(events::add);
+
+    connection.accept("a");
+    connection.accept(1);
+    connection.accept("b");
+
+    assertThat(otherEffects, contains((Object) 1));
+    assertThat(handler.batches, is(singleBatch("a", "b")));
+    assertThat(events, contains("other 1", "handled a", "handled b"));
+  }
+
+  @Test
+  public void emitsNoEventForNullResults() throws Exception {
+    handler.results = effects -> Arrays.asList(null, "handled b");
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(2).connect(events::add);
+
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(events, contains("handled b"));
+  }
+
+  @Test
+  public void discardsResultsOfWrongSize() throws Exception {
+    handler.results = effects -> Arrays.asList("handled a");
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(2).connect(events::add);
+
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(events, is(empty()));
+  }
+
+  @Test
+  public void discardsNullResults() throws Exception {
+    handler.results = effects -> null;
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(1).connect(events::add);
+
+    connection.accept("a");
+    handler.results = null;
+    connection.accept("b");
+
+    assertThat(events, contains("handled b"));
+  }
+
+  @Test
+  public void survivesBatchHandlerThrowing() throws Exception {
+    handler.results =
+        effects -> {
+          throw new RuntimeException("expected");
+        };
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(1).connect(events::add);
+
+    connection.accept("a");
+    handler.results = null;
+    connection.accept("b");
+
+    assertThat(events, contains("handled b"));
+  }
+
+  @Test
+  public void leavesEffectsOfDisposedConnectionsOutOfBatch() throws Exception {
+    BatchingConnectable<String, String> underTest =
+        BatchingConnectable.create(handler, DIRECT).maxBatchSize(3);
+
+    Connection<String> disposed = underTest.connect(events::add);
+    Connection<String> live = underTest.connect(events::add);
+
+    disposed.accept("a");
+    live.accept("b");
+    disposed.dispose();
+    disposed.accept("c");
+    live.accept("d");
+    live.accept("e");
+
+    assertThat(handler.batches, is(singleBatch("b", "d")));
+    assertThat(events, contains("handled b", "handled d"));
+  }
+
+  @Test
+  public void rejectsInvalidConfiguration() throws Exception {
+    BatchingConnectable<String, String> underTest = BatchingConnectable.create(handler, DIRECT);
+
+    try {
+      underTest.maxBatchSize(0);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+
+    try {
+      underTest.maxDelay(-1, TimeUnit.MILLISECONDS);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void rejectsEffectsWhenTimerRejectsBatch() throws Exception {
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    timer.shutdown();
+    Connection<String> connection =
+        BatchingConnectable.create(handler, DIRECT)
+            .maxBatchSize(2)
+            .timer(timer)
+            .connect(events::add);
+
+    for (String effect : Arrays.asList("a", "b")) {
+      try {
+        connection.accept(effect);
+        fail("expected exception");
+      } catch (ConnectionException e) {
+        assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+      }
+    }
+
+    assertThat(handler.batches, is(empty()));
+  }
+
+  private static List<List<String>> singleBatch(String... effects) {
+    return Collections.singletonList(Arrays.asList(effects));
+  }
+
+  private interface Results {
+    List<String> apply(List<String> effects);
+  }
+
+  private static class RecordingBatchHandler implements BatchHandler<String, String> {
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private volatile Results results;
+
+    @Override
+    public List<String> handle(List<String> effects) {
+      batches.add(new ArrayList<>(effects));
+
+      if (results != null) {
+        return results.apply(effects);
+      }
+
+      List<String> events = new ArrayList<>();
+      for (String effect : effects) {
+        events.add("handled " + effect);
+      }
+      return events;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingConnectableTest {
+
+  private ExecutorService backend;
+  private RecordingPerformer performer;
+  private List<String> events;
+
+  @Before
+  public void setUp() throws Exception {
+    backend = Executors.newSingleThreadExecutor();
+    performer = new RecordingPerformer();
+    events = new ArrayList<>();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    backend.shutdownNow();
+  }
+
+  @Test
+  public void emitsCachedEventsWithoutExecutingEffectAgain() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("a");
+    connection.accept("a");
+
+    assertThat(performer.performed, contains("a"));
+    assertThat(events, contains("handled a", "again a", "handled a", "again a"));
+    assertThat(underTest.stats(), is(CacheStats.create(1, 1, 0, 1, 1)));
+  }
+
+  @Test
+  public void sharesCacheBetweenConnections() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS);
+    List<String> otherEvents = new ArrayList<>();
+
+    underTest.connect(events::add).accept("a");
+    underTest.connect(otherEvents::add).accept("a");
+
+    assertThat(performer.performed, contains("a"));
+    assertThat(otherEvents, contains("handled a", "again a"));
+  }
+
+  @Test
+  public void executesEffectAgainWhenEntryHasExpired() throws Exception {
+    AtomicLong now = new AtomicLong();
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.<String, String>create(performer, 10, 20, TimeUnit.NANOSECONDS)
+            .nanoTime(now::get);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("a");
+    now.set(19);
+    connection.accept("a");
+    now.set(20);
+    connection.accept("a");
+
+    assertThat(performer.performed, contains("a", "a"));
+    assertThat(underTest.stats().misses(), is(2L));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedEntries() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 2, 1, TimeUnit.HOURS);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("a");
+    connection.accept("b");
+    connection.accept("a");
+    connection.accept("c");
+    performer.performed.clear();
+
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(performer.performed, contains("b"));
+    assertThat(underTest.stats().evictions(), is(2L));
+  }
+
+  @Test
+  public void evictsByWeight() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS)
+            .weigher((effect, events) -> effect.length(), 4);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("aa");
+    connection.accept("b");
+    assertThat(underTest.stats().weight(), is(3L));
+
+    connection.accept("cc");
+    performer.performed.clear();
+
+    connection.accept("b");
+    connection.accept("cc");
+    connection.accept("aa");
+
+    assertThat(performer.performed, contains("aa"));
+  }
+
+  @Test
+  public void doesNotCacheEntriesHeavierThanMaxWeight() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS)
+            .weigher((effect, events) -> effect.length(), 2);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("aaa");
+    connection.accept("aaa");
+
+    assertThat(performer.performed, contains("aaa", "aaa"));
+    assertThat(underTest.stats().entries(), is(0));
+  }
+
+  @Test
+  public void doesNotCacheEffectThatThrew() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS);
+    Connection<String> connection = underTest.connect(events::add);
+
+    try {
+      connection.accept("throw");
+      fail("expected exception");
+    } catch (RuntimeException expected) {
+      // expected
+    }
+
+    assertThat(underTest.stats().entries(), is(0));
+  }
+
+  @Test
+  public void cachesEventsOfEffectCompletedByAsynchronousBackend() throws Exception {
+    List<String> backendThreads = new CopyOnWriteArrayList<>();
+    EffectPerformer<String, String> backendPerformer =
+        effect -> {
+          performer.performed.add(effect);
+
+          return CompletableFuture.supplyAsync(
+                  () -> {
+                    backendThreads.add(Thread.currentThread().getName());
+                    return Arrays.asList("loaded " + effect);
+                  },
+                  backend)
+              .join();
+        };
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(backendPerformer, 10, 1, TimeUnit.HOURS);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("a");
+    connection.accept("a");
+
+    assertThat(performer.performed, contains("a"));
+    assertThat(backendThreads.size(), is(1));
+    assertThat(backendThreads.get(0), is(not(Thread.currentThread().getName())));
+    assertThat(events, contains("loaded a", "loaded a"));
+    assertThat(underTest.stats(), is(CacheStats.create(1, 1, 0, 1, 1)));
+  }
+
+  @Test
+  public void emitsNoEventsAfterDispose() throws Exception {
+    CachingConnectable<String, String> underTest =
+        CachingConnectable.create(performer, 10, 1, TimeUnit.HOURS);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("a");
+    connection.dispose();
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(events, contains("handled a", "again a"));
+    assertThat(performer.performed, contains("a"));
+  }
+
+  @Test
+  public void rejectsInvalidConfiguration() throws Exception {
+    try {
+      CachingConnectable.create(performer, 0, 1, TimeUnit.HOURS);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+
+    try {
+      CachingConnectable.create(performer, 10, 0, TimeUnit.HOURS);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  private static class RecordingPerformer implements EffectPerformer<String, String> {
+    private final List<String> performed = new CopyOnWriteArrayList<>();
+
+    @Override
+    public List<String> perform(String effect) {
+      performed.add(effect);
+
+      if (effect.equals("throw")) {
+        throw new RuntimeException("expected");
+      }
+
+      return Arrays.asList("handled " + effect, "again " + effect);
+    }
+  }
+}
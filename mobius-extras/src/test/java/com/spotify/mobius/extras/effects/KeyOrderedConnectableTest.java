@@ -0,0 +1,260 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyOrderedConnectableTest {
+
+  private static final Function<String, String> KEY = effect -> effect.split(":")[0];
+
+  private ExecutorService executor;
+  private BlockingHandler handler;
+  private List<String> events;
+  private Connection<String> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newFixedThreadPool(4);
+    handler = new BlockingHandler();
+    events = new CopyOnWriteArrayList<>();
+    connection = connect(KeyOrderedConnectable.create(handler, KEY, executor, 16));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    handler.release.countDown();
+    connection.dispose();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void emitsEventsOfEffectsToOutput() throws Exception {
+    handler.release.countDown();
+
+    connection.accept("a:1");
+    connection.accept("b:1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, containsInAnyOrder("a:1", "b:1"));
+  }
+
+  @Test
+  public void executesEffectsWithSameKeyInOrder() throws Exception {
+    connection = connect(KeyOrderedConnectable.create(handler, KEY, executor, 200));
+    handler.release.countDown();
+    List<String> expected = new ArrayList<>();
+
+    for (int i = 0; i < 200; i++) {
+      String effect = "a:" + i;
+      connection.accept(effect);
+      expected.add(effect);
+    }
+
+    await().atMost(Duration.FIVE_SECONDS).until(() -> events, contains(expected.toArray()));
+    assertThat(handler.maxConcurrentForSameKey, is(1));
+  }
+
+  @Test
+  public void executesEffectsWithDifferentKeysInParallel() throws Exception {
+    connection.accept("a:1");
+    connection.accept("b:1");
+    connection.accept("c:1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> handler.running, is(3));
+  }
+
+  @Test
+  public void waitsForRunningEffectBeforeExecutingNextEffectWithSameKey() throws Exception {
+    connection.accept("a:1");
+    connection.accept("a:2");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> handler.running, is(1));
+
+    // the second effect isn't even handed to the executor until the first one has completed
+    assertThat(((ThreadPoolExecutor) executor).getTaskCount(), is(1L));
+    assertThat(handler.accepted, contains("a:1"));
+
+    handler.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("a:1", "a:2"));
+  }
+
+  @Test
+  public void rejectsEffectsWhenQueueForKeyIsFull() throws Exception {
+    connection = connect(KeyOrderedConnectable.create(handler, KEY, executor, 2));
+
+    connection.accept("a:1");
+    await().atMost(Duration.ONE_SECOND).until(() -> handler.running, is(1));
+    connection.accept("a:2");
+    connection.accept("a:3");
+    connection.accept("b:1");
+
+    try {
+      connection.accept("a:4");
+      fail("expected exception");
+    } catch (ConnectionException e) {
+      assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+
+    handler.release.countDown();
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> events, containsInAnyOrder("a:1", "a:2", "a:3", "b:1"));
+  }
+
+  @Test
+  public void releasesStateOfIdleKeys() throws Exception {
+    connection.accept("a:1");
+    connection.accept("b:1");
+    assertThat(activeKeys(), is(2));
+
+    handler.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(this::activeKeys, is(0));
+  }
+
+  @Test
+  public void keepsExecutingEffectsAfterEffectHandlerThrows() throws Exception {
+    handler.release.countDown();
+
+    connection.accept("a:throw");
+    connection.accept("a:1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("a:1"));
+  }
+
+  @Test
+  public void emitsNoEventsAfterDispose() throws Exception {
+    connection.accept("a:1");
+    await().atMost(Duration.ONE_SECOND).until(() -> handler.running, is(1));
+    connection.accept("a:2");
+
+    connection.dispose();
+    handler.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> handler.running, is(0));
+    assertThat(events.isEmpty(), is(true));
+    assertThat(handler.disposed, is(true));
+    assertThat(handler.accepted, contains("a:1"));
+  }
+
+  @Test
+  public void rejectsNonPositiveQueueSize() throws Exception {
+    try {
+      KeyOrderedConnectable.create(handler, KEY, executor, 0);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  private Connection<String> connect(Connectable<String, String> connectable) {
+    return connectable.connect(events::add);
+  }
+
+  private int activeKeys() {
+    return ((KeyOrderedConnection<?, ?>) connection).activeKeys();
+  }
+
+  private static class BlockingHandler implements Connectable<String, String> {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> accepted = new CopyOnWriteArrayList<>();
+    private final List<String> runningKeys = new ArrayList<>();
+    private volatile int running;
+    private volatile int maxConcurrentForSameKey;
+    private volatile boolean disposed;
+
+    @Nonnull
+    @Override
+    public Connection<String> connect(Consumer<String> output) {
+      return new Connection<String>() {
+        @Override
+        public void accept(String effect) {
+          accepted.add(effect);
+          enter(KEY.apply(effect));
+
+          try {
+            release.await(5, TimeUnit.SECONDS);
+
+            if (effect.endsWith("throw")) {
+              throw new RuntimeException("expected");
+            }
+
+            output.accept(effect);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          } finally {
+            exit(KEY.apply(effect));
+          }
+        }
+
+        @Override
+        public void dispose() {
+          disposed = true;
+        }
+      };
+    }
+
+    private synchronized void enter(String key) {
+      runningKeys.add(key);
+      running++;
+
+      int sameKey = 0;
+      for (String runningKey : runningKeys) {
+        if (runningKey.equals(key)) {
+          sameKey++;
+        }
+      }
+      maxConcurrentForSameKey = Math.max(maxConcurrentForSameKey, sameKey);
+    }
+
+    private synchronized void exit(String key) {
+      runningKeys.remove(key);
+      running--;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestWinsConnectableTest {
+
+  private static final Function<String, String> GROUP = effect -> effect.split(":")[0];
+
+  private WorkRunner workRunner;
+  private BlockingPerformer performer;
+  private List<String> events;
+  private Connection<String> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    workRunner = WorkRunners.cachedThreadPool();
+    performer = new BlockingPerformer();
+    events = new CopyOnWriteArrayList<>();
+    connection = LatestWinsConnectable.create(performer, GROUP, workRunner).connect(events::add);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    performer.release.countDown();
+    connection.dispose();
+    workRunner.dispose();
+  }
+
+  @Test
+  public void interruptsEffectSupersededByNewerEffectOfSameGroup() throws Exception {
+    connection.accept("search:a");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started, contains("search:a"));
+
+    connection.accept("search:ab");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.interrupted, contains("search:a"));
+
+    performer.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("done search:ab"));
+  }
+
+  @Test
+  public void suppressesEventsOfSupersededEffectThatIgnoresInterrupt() throws Exception {
+    performer.ignoreInterrupts = true;
+
+    connection.accept("search:a");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started, contains("search:a"));
+
+    connection.accept("search:ab");
+    performer.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.completed, is(2));
+    assertThat(events, contains("done search:ab"));
+  }
+
+  @Test
+  public void doesNotAffectEffectsOfOtherGroups() throws Exception {
+    connection.accept("search:a");
+    connection.accept("profile:1");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started.size(), is(2));
+
+    performer.release.countDown();
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> events, containsInAnyOrder("done search:a", "done profile:1"));
+  }
+
+  @Test
+  public void neverStartsEffectSupersededBeforeItStarted() throws Exception {
+    workRunner.dispose();
+    workRunner = WorkRunners.singleThread();
+    connection = LatestWinsConnectable.create(performer, GROUP, workRunner).connect(events::add);
+
+    connection.accept("profile:1");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started, contains("profile:1"));
+
+    connection.accept("search:a");
+    connection.accept("search:ab");
+    performer.release.countDown();
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> events, contains("done profile:1", "done search:ab"));
+    assertThat(performer.started, contains("profile:1", "search:ab"));
+  }
+
+  @Test
+  public void doesNotLeaveInterruptOnThreadAfterSupersededEffect() throws Exception {
+    workRunner.dispose();
+    workRunner = WorkRunners.singleThread();
+    connection = LatestWinsConnectable.create(performer, GROUP, workRunner).connect(events::add);
+
+    connection.accept("search:a");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started, contains("search:a"));
+
+    connection.accept("search:ab");
+    performer.release.countDown();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("done search:ab"));
+    assertThat(performer.interrupted, contains("search:a"));
+  }
+
+  @Test
+  public void cancelsEffectsOnDispose() throws Exception {
+    connection.accept("search:a");
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.started, contains("search:a"));
+
+    connection.dispose();
+
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.interrupted, contains("search:a"));
+    assertThat(events.isEmpty(), is(true));
+  }
+
+  @Test
+  public void keepsPerformingEffectsAfterPerformerThrows() throws Exception {
+    connection =
+        LatestWinsConnectable.<String, String>create(
+                effect -> {
+                  if (effect.startsWith("throw")) {
+                    throw new IllegalStateException("expected");
+                  }
+                  return Collections.singletonList("done " + effect);
+                },
+                GROUP,
+                workRunner)
+            .connect(events::add);
+
+    connection.accept("throw:a");
+    connection.accept("search:a");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> events, contains("done search:a"));
+  }
+
+  private static class BlockingPerformer implements EffectPerformer<String, String> {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final List<String> interrupted = new CopyOnWriteArrayList<>();
+    private volatile int completed;
+    private volatile boolean ignoreInterrupts;
+
+    @Override
+    public List<String> perform(String effect) {
+      started.add(effect);
+      String event;
+
+      try {
+        await();
+        event = "done " + effect;
+
+      } catch (InterruptedException e) {
+        interrupted.add(effect);
+        event = "interrupted " + effect;
+      }
+
+      synchronized (this) {
+        completed++;
+      }
+
+      return Collections.singletonList(event);
+    }
+
+    private void await() throws InterruptedException {
+      while (true) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+          return;
+        } catch (InterruptedException e) {
+          if (!ignoreInterrupts) {
+            throw e;
+          }
+        }
+      }
+    }
+  }
+}
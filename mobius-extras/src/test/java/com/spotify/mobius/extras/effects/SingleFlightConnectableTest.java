@@ -0,0 +1,230 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.effects;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightConnectableTest {
+
+  private ExecutorService executor;
+  private BlockingPerformer performer;
+  private List<String> events;
+  private List<String> otherEvents;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newCachedThreadPool();
+    performer = new BlockingPerformer();
+    events = new CopyOnWriteArrayList<>();
+    otherEvents = new CopyOnWriteArrayList<>();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    performer.release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void attachesDuplicateEffectToFlight() throws Exception {
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.perConnection(performer);
+    Connection<String> connection = underTest.connect(events::add);
+
+    Future<?> first = executor.submit(() -> connection.accept("x"));
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.performed, contains("x"));
+
+    connection.accept("x");
+    performer.release.countDown();
+    first.get(1, TimeUnit.SECONDS);
+
+    assertThat(performer.performed, contains("x"));
+    assertThat(events, contains("started x", "done x", "started x", "done x"));
+    assertThat(underTest.savedCalls(), is(1L));
+  }
+
+  @Test
+  public void sendsEventsToDuplicateEffectWhenFlightCompletes() throws Exception {
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.acrossConnections(performer);
+    Connection<String> first = underTest.connect(events::add);
+    Connection<String> second = underTest.connect(otherEvents::add);
+
+    Future<?> firstAccept = executor.submit(() -> first.accept("x"));
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.performed, contains("x"));
+
+    second.accept("x");
+    assertThat(otherEvents, is(empty()));
+
+    performer.release.countDown();
+    firstAccept.get(1, TimeUnit.SECONDS);
+
+    assertThat(otherEvents, contains("started x", "done x"));
+  }
+
+  @Test
+  public void performsDifferentEffectsSeparately() throws Exception {
+    performer.release.countDown();
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.perConnection(performer);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("x");
+    connection.accept("y");
+
+    assertThat(performer.performed, contains("x", "y"));
+    assertThat(underTest.savedCalls(), is(0L));
+  }
+
+  @Test
+  public void performsEffectAgainAfterFlightHasCompleted() throws Exception {
+    performer.release.countDown();
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.perConnection(performer);
+    Connection<String> connection = underTest.connect(events::add);
+
+    connection.accept("x");
+    connection.accept("x");
+
+    assertThat(performer.performed, contains("x", "x"));
+    assertThat(events, contains("started x", "done x", "started x", "done x"));
+  }
+
+  @Test
+  public void doesNotDeduplicateAcrossConnectionsByDefault() throws Exception {
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.perConnection(performer);
+    Connection<String> first = underTest.connect(events::add);
+    Connection<String> second = underTest.connect(otherEvents::add);
+
+    Future<?> firstAccept = executor.submit(() -> first.accept("x"));
+    Future<?> secondAccept = executor.submit(() -> second.accept("x"));
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.performed, contains("x", "x"));
+
+    performer.release.countDown();
+    firstAccept.get(1, TimeUnit.SECONDS);
+    secondAccept.get(1, TimeUnit.SECONDS);
+
+    assertThat(underTest.savedCalls(), is(0L));
+  }
+
+  @Test
+  public void deduplicatesAcrossConnectionsWhenShared() throws Exception {
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.acrossConnections(performer);
+    Connection<String> first = underTest.connect(events::add);
+    Connection<String> second = underTest.connect(otherEvents::add);
+
+    Future<?> firstAccept = executor.submit(() -> first.accept("x"));
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.performed, contains("x"));
+
+    second.accept("x");
+    performer.release.countDown();
+    firstAccept.get(1, TimeUnit.SECONDS);
+
+    assertThat(performer.performed, contains("x"));
+    assertThat(events, contains("started x", "done x"));
+    assertThat(otherEvents, contains("started x", "done x"));
+    assertThat(underTest.savedCalls(), is(1L));
+  }
+
+  @Test
+  public void throwsFromPerformingCallAndPerformsAgainWhenPerformerThrows() throws Exception {
+    performer.release.countDown();
+    performer.failing = true;
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.perConnection(performer);
+    Connection<String> connection = underTest.connect(events::add);
+
+    try {
+      connection.accept("x");
+      fail("expected exception");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+
+    performer.failing = false;
+    connection.accept("x");
+
+    assertThat(performer.performed, contains("x", "x"));
+    assertThat(events, contains("started x", "done x"));
+  }
+
+  @Test
+  public void stopsSendingEventsToDisposedConnection() throws Exception {
+    SingleFlightConnectable<String, String> underTest =
+        SingleFlightConnectable.acrossConnections(performer);
+    Connection<String> first = underTest.connect(events::add);
+    Connection<String> second = underTest.connect(otherEvents::add);
+
+    Future<?> firstAccept = executor.submit(() -> first.accept("x"));
+    await().atMost(Duration.ONE_SECOND).until(() -> performer.performed, contains("x"));
+
+    second.accept("x");
+    second.dispose();
+    performer.release.countDown();
+    firstAccept.get(1, TimeUnit.SECONDS);
+
+    assertThat(events, contains("started x", "done x"));
+    assertThat(otherEvents, is(empty()));
+  }
+
+  private static class BlockingPerformer implements EffectPerformer<String, String> {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> performed = new CopyOnWriteArrayList<>();
+    private volatile boolean failing;
+
+    @Override
+    public List<String> perform(String effect) {
+      performed.add(effect);
+
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+
+      if (failing) {
+        throw new IllegalStateException("failed " + effect);
+      }
+
+      return Arrays.asList("started " + effect, "done " + effect);
+    }
+  }
+}
@@ -0,0 +1,342 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.journal;
+
+import static com.spotify.mobius.Next.next;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Update;
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EventJournalTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final ModelSerializer<String> MODEL_SERIALIZER =
+      new ModelSerializer<String>() {
+        @Nonnull
+        @Override
+        public byte[] serialize(String model) {
+          return model.getBytes(UTF_8);
+        }
+
+        @Nonnull
+        @Override
+        public String deserialize(byte[] bytes) {
+          return new String(bytes, UTF_8);
+        }
+      };
+
+  private static final EventSerializer<Integer> EVENT_SERIALIZER =
+      new EventSerializer<Integer>() {
+        @Nonnull
+        @Override
+        public byte[] serialize(Integer event) {
+          return String.valueOf(event).getBytes(UTF_8);
+        }
+
+        @Nonnull
+        @Override
+        public Integer deserialize(byte[] bytes) {
+          return Integer.valueOf(new String(bytes, UTF_8));
+        }
+      };
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File directory;
+  private AtomicInteger updateCount;
+  private Update<String, Integer, String> update;
+  private EventJournal<String, Integer> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = new File(temporaryFolder.getRoot(), "journal");
+    updateCount = new AtomicInteger();
+    update =
+        (model, event) -> {
+          updateCount.incrementAndGet();
+          return next(model + "," + event);
+        };
+
+    underTest = open(JournalConfig.defaults());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.dispose();
+  }
+
+  @Test
+  public void shouldReplayToInitialModelWhenEmpty() throws Exception {
+    assertThat(underTest.replay("init", update), is("init"));
+  }
+
+  @Test
+  public void shouldReplayJournaledEvents() throws Exception {
+    String model = process("init", 1, 2, 3);
+    assertThat(model, is("init,1,2,3"));
+
+    reopen(JournalConfig.defaults());
+
+    assertThat(underTest.replay("init", update), is("init,1,2,3"));
+  }
+
+  @Test
+  public void shouldNotJournalEventsWhoseUpdateThrows() throws Exception {
+    Update<String, Integer, String> journaling =
+        underTest.journaling(
+            (model, event) -> {
+              if (event < 0) {
+                throw new IllegalArgumentException("expected");
+              }
+              return update.update(model, event);
+            });
+
+    String model = journaling.update("init", 1).modelUnsafe();
+    try {
+      journaling.update(model, -1);
+      fail("expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    journaling.update(model, 2);
+
+    reopen(JournalConfig.defaults());
+
+    assertThat(underTest.replay("init", update), is("init,1,2"));
+  }
+
+  @Test
+  public void shouldContinueJournalAfterReopening() throws Exception {
+    process("init", 1, 2);
+    reopen(JournalConfig.defaults());
+
+    String model = underTest.replay("init", update);
+    process(model, 3);
+    reopen(JournalConfig.defaults());
+
+    assertThat(underTest.replay("init", update), is("init,1,2,3"));
+  }
+
+  @Test
+  public void shouldDiscardPartiallyWrittenEvent() throws Exception {
+    process("init", 1, 2);
+    underTest.dispose();
+
+    File[] segments = directory.listFiles((dir, name) -> name.endsWith(".log"));
+    try (FileOutputStream output = new FileOutputStream(segments[0], true)) {
+      output.write(new byte[] {0, 0, 0, 5, 1, 2});
+    }
+
+    underTest = open(JournalConfig.defaults());
+    String model = underTest.replay("init", update);
+    assertThat(model, is("init,1,2"));
+
+    process(model, 3);
+    reopen(JournalConfig.defaults());
+
+    assertThat(underTest.replay("init", update), is("init,1,2,3"));
+  }
+
+  @Test
+  public void shouldSyncInBatchesOfEvents() throws Exception {
+    reopen(JournalConfig.defaults().syncEvery(10, 0, TimeUnit.MILLISECONDS));
+
+    for (int i = 0; i < 25; i++) {
+      underTest.append(i);
+    }
+
+    assertThat(underTest.syncCount(), is(2L));
+  }
+
+  @Test
+  public void shouldSyncEveryEventIfConfigured() throws Exception {
+    reopen(JournalConfig.defaults().syncEvery(1, 0, TimeUnit.MILLISECONDS));
+
+    underTest.append(1);
+    underTest.append(2);
+    underTest.append(3);
+
+    assertThat(underTest.syncCount(), is(3L));
+  }
+
+  @Test
+  public void shouldSyncPeriodically() throws Exception {
+    reopen(JournalConfig.defaults().syncEvery(0, 10, TimeUnit.MILLISECONDS));
+
+    underTest.append(1);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.syncCount(), is(1L));
+  }
+
+  @Test
+  public void shouldOnlyReplayEventsSinceLatestCheckpoint() throws Exception {
+    JournalConfig config = JournalConfig.defaults().checkpointEvery(5).segmentSize(16);
+    reopen(config);
+
+    process("init", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+    reopen(config);
+    updateCount.set(0);
+
+    assertThat(underTest.replay("init", update), is("init,1,2,3,4,5,6,7,8,9,10,11,12"));
+    assertThat(updateCount.get(), is(2));
+  }
+
+  @Test
+  public void shouldDeleteSegmentsCoveredByCheckpoint() throws Exception {
+    JournalConfig config = JournalConfig.defaults().checkpointEvery(5).segmentSize(16);
+    reopen(config);
+
+    process("init", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.segmentCount(), lessThanOrEqualTo(3));
+  }
+
+  @Test
+  public void shouldWriteCheckpointsOffTheEventThread() throws Exception {
+    Set<Thread> serializingThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    underTest.dispose();
+    underTest =
+        EventJournal.open(
+            directory,
+            new ModelSerializer<String>() {
+              @Nonnull
+              @Override
+              public byte[] serialize(String model) {
+                serializingThreads.add(Thread.currentThread());
+                return MODEL_SERIALIZER.serialize(model);
+              }
+
+              @Nonnull
+              @Override
+              public String deserialize(byte[] bytes) {
+                return MODEL_SERIALIZER.deserialize(bytes);
+              }
+            },
+            EVENT_SERIALIZER,
+            JournalConfig.defaults().checkpointEvery(2));
+
+    process("init", 1, 2, 3);
+    reopen(JournalConfig.defaults());
+    updateCount.set(0);
+
+    assertThat(underTest.replay("init", update), is("init,1,2,3"));
+    assertThat(updateCount.get(), is(1));
+    assertThat(serializingThreads, not(hasItem(Thread.currentThread())));
+  }
+
+  @Test
+  public void shouldIgnoreForeignFilesWhenOpening() throws Exception {
+    process("init", 1, 2);
+    underTest.dispose();
+
+    assertThat(new File(directory, "notes.log").createNewFile(), is(true));
+
+    underTest = open(JournalConfig.defaults());
+
+    assertThat(underTest.replay("init", update), is("init,1,2"));
+  }
+
+  @Test
+  public void shouldRejectEventsAfterDispose() throws Exception {
+    underTest.dispose();
+
+    try {
+      underTest.append(1);
+      fail("expected an exception");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void shouldFailReplayIfCheckpointCantBeRead() throws Exception {
+    underTest.append(1);
+    underTest.checkpoint("init,1");
+    underTest.dispose();
+
+    underTest =
+        EventJournal.open(
+            directory,
+            new ModelSerializer<String>() {
+              @Nonnull
+              @Override
+              public byte[] serialize(String model) {
+                throw new UnsupportedOperationException();
+              }
+
+              @Nonnull
+              @Override
+              public String deserialize(byte[] bytes) {
+                throw new IllegalArgumentException("unknown format");
+              }
+            },
+            EVENT_SERIALIZER,
+            JournalConfig.defaults());
+
+    try {
+      underTest.replay("init", update);
+      fail("expected an exception");
+    } catch (JournalException expected) {
+      // expected
+    }
+  }
+
+  private String process(String model, Integer... events) {
+    Update<String, Integer, String> journaling = underTest.journaling(update);
+
+    for (Integer event : events) {
+      model = journaling.update(model, event).modelUnsafe();
+    }
+
+    return model;
+  }
+
+  private EventJournal<String, Integer> open(JournalConfig config) {
+    return EventJournal.open(directory, MODEL_SERIALIZER, EVENT_SERIALIZER, config);
+  }
+
+  private void reopen(JournalConfig config) {
+    underTest.dispose();
+    underTest = open(config);
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.Effects;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.extras.snapshot.ModelSerializer;
+import com.spotify.mobius.runners.WorkRunners;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MobiusRuntimeTest {
+
+  private static final ModelSerializer<String> SERIALIZER =
+      new ModelSerializer<String>() {
+        @Override
+        public byte[] serialize(String model) {
+          return model.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] bytes) {
+          return new String(bytes, StandardCharsets.UTF_8);
+        }
+      };
+
+  private List<String> models;
+  private List<String> threads;
+  private MobiusRuntime<String, String, String, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    models = new CopyOnWriteArrayList<>();
+    threads = new CopyOnWriteArrayList<>();
+
+    underTest = MobiusRuntime.create(loopBuilder(), key -> key + ":", 4);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.dispose();
+    underTest.awaitTermination(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void startsLoopsLazilyFromKeyInitialModel() throws Exception {
+    assertThat(underTest.loopCount(), is(0));
+
+    underTest.dispatch("a", "1");
+    underTest.dispatch("b", "1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models, containsInAnyOrder("a:1", "b:1"));
+    assertThat(underTest.loopCount(), is(2));
+  }
+
+  @Test
+  public void processesEventsForSameKeyInOrder() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      underTest.dispatch("a", String.valueOf(i));
+    }
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> models, contains("a:0", "a:01", "a:012", "a:0123", "a:01234"));
+  }
+
+  @Test
+  public void processesEventsOnShardThreads() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      underTest.dispatch("key" + i, "x");
+    }
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models.size(), is(20));
+    assertThat(threads, everyItem(startsWith("mobius-runtime-")));
+  }
+
+  @Test
+  public void assignsKeysToShardsByHash() throws Exception {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      keys.add("key" + i);
+    }
+
+    for (String key : keys) {
+      assertThat(underTest.shardOf(key), is(underTest.shardOf(key)));
+      underTest.dispatch(key, "x");
+    }
+
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.loopCount(), is(100));
+
+    int[] expected = new int[underTest.shardCount()];
+    for (String key : keys) {
+      expected[underTest.shardOf(key)]++;
+    }
+
+    for (ShardStats stats : underTest.shardStats()) {
+      assertThat(stats.loopCount(), is(expected[stats.shard()]));
+      assertThat(stats.dispatchedEvents(), is((long) expected[stats.shard()]));
+    }
+  }
+
+  @Test
+  public void restartsLoopFromInitialModelAfterDisposingKey() throws Exception {
+    underTest.dispatch("a", "1");
+    underTest.dispose("a");
+    underTest.dispatch("a", "2");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models, contains("a:1", "a:2"));
+  }
+
+  @Test
+  public void keepsRunningWhenLoopCannotBeStarted() throws Exception {
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            loopBuilder(),
+            key -> {
+              if (key.equals("broken")) {
+                throw new IllegalArgumentException("expected");
+              }
+              return key + ":";
+            },
+            1);
+
+    underTest.dispatch("broken", "1");
+    underTest.dispatch("a", "1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models, contains("a:1"));
+    assertThat(underTest.loopCount(), is(1));
+  }
+
+  @Test
+  public void disposesAllLoopsAfterProcessingDispatchedEvents() throws Exception {
+    underTest.dispatch("a", "1");
+    underTest.dispatch("b", "1");
+
+    underTest.dispose();
+
+    assertThat(underTest.awaitTermination(1, TimeUnit.SECONDS), is(true));
+    assertThat(models, containsInAnyOrder("a:1", "b:1"));
+    assertThat(underTest.loopCount(), is(0));
+  }
+
+  @Test
+  public void rejectsEventsAfterDisposal() throws Exception {
+    underTest.dispose();
+
+    try {
+      underTest.dispatch("a", "1");
+      fail("expected an IllegalStateException");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void passivatesIdleLoopsAndRestoresTheirModel() throws Exception {
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            loopBuilder(),
+            key -> key + ":",
+            1,
+            Passivation.using(SERIALIZER).idleTimeout(50, TimeUnit.MILLISECONDS));
+
+    underTest.dispatch("a", "1");
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> underTest.shardStats().get(0).passivations(), is(1L));
+
+    ShardStats stats = underTest.shardStats().get(0);
+    assertThat(stats.loopCount(), is(0));
+    assertThat(stats.passivatedLoops(), is(1));
+    assertThat(stats.passivatedBytes(), is(3L));
+
+    underTest.dispatch("a", "2");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models, contains("a:1", "a:12"));
+    assertThat(underTest.shardStats().get(0).activations(), is(1L));
+    assertThat(underTest.activationLatency().count(), is(1L));
+  }
+
+  @Test
+  public void passivatesLeastRecentlyUsedLoopBeyondMaxActiveLoops() throws Exception {
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            loopBuilder(), key -> key + ":", 1, Passivation.using(SERIALIZER).maxActiveLoops(2));
+
+    underTest.dispatch("a", "1");
+    underTest.dispatch("b", "1");
+    underTest.dispatch("a", "2");
+    underTest.dispatch("c", "1");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models.size(), is(4));
+    ShardStats stats = underTest.shardStats().get(0);
+    assertThat(stats.loopCount(), is(2));
+    assertThat(stats.passivatedLoops(), is(1));
+
+    // b was the least recently used loop
+    underTest.dispatch("b", "2");
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> models, contains("a:1", "b:1", "a:12", "c:1", "b:12"));
+    assertThat(underTest.shardStats().get(0).activations(), is(1L));
+  }
+
+  @Test
+  public void storesPassivatedModelsOffHeap() throws Exception {
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            loopBuilder(),
+            key -> key + ":",
+            1,
+            Passivation.using(SERIALIZER).maxActiveLoops(1).offHeap(4));
+
+    for (int i = 0; i < 10; i++) {
+      underTest.dispatch("key" + i, "x");
+    }
+    for (int i = 0; i < 10; i++) {
+      underTest.dispatch("key" + i, "y");
+    }
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models.size(), is(20));
+    assertThat(models.subList(10, 20), everyItem(endsWith(":xy")));
+    assertThat(underTest.shardStats().get(0).passivatedLoops(), is(9));
+  }
+
+  @Test
+  public void discardsPassivatedModelWhenDisposingKey() throws Exception {
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            loopBuilder(), key -> key + ":", 1, Passivation.using(SERIALIZER).maxActiveLoops(1));
+
+    underTest.dispatch("a", "1");
+    underTest.dispatch("b", "1");
+    underTest.dispose("a");
+    underTest.dispatch("a", "2");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> models, contains("a:1", "b:1", "a:2"));
+  }
+
+  @Test
+  public void queuesEventsEmittedSynchronouslyByEffectHandlers() throws Exception {
+    List<String> calls = new CopyOnWriteArrayList<>();
+    Connectable<String, String> effectHandler =
+        output ->
+            new Connection<String>() {
+              @Override
+              public void accept(String effect) {
+                calls.add("effect " + effect + " start");
+                output.accept(effect + "!");
+                calls.add("effect " + effect + " end");
+              }
+
+              @Override
+              public void dispose() {}
+            };
+
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            Mobius.<String, String, String>loop(
+                    (model, event) -> {
+                      calls.add("update " + event);
+                      return event.endsWith("!")
+                          ? Next.<String, String>noChange()
+                          : Next.<String, String>dispatch(Effects.effects(event));
+                    },
+                    effectHandler)
+                .effectRunner(WorkRunners::immediate),
+            key -> key + ":",
+            1);
+
+    underTest.dispatch("a", "1");
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> calls, contains("update 1", "effect 1 start", "effect 1 end", "update 1!"));
+  }
+
+  @Test
+  public void countsEventsDroppedBecauseTheirLoopWasPassivated() throws Exception {
+    CountDownLatch passivating = new CountDownLatch(1);
+    Connectable<String, String> effectHandler =
+        output ->
+            new Connection<String>() {
+              @Override
+              public void accept(String effect) {
+                if (effect.equals("x")) {
+                  // wait until the event that passivates this loop is queued before emitting
+                  try {
+                    passivating.await();
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+                }
+                output.accept(effect + "!");
+              }
+
+              @Override
+              public void dispose() {}
+            };
+
+    underTest.dispose();
+    underTest =
+        MobiusRuntime.create(
+            Mobius.<String, String, String>loop(
+                    (model, event) ->
+                        event.endsWith("!")
+                            ? Next.<String, String>noChange()
+                            : Next.<String, String>dispatch(Effects.effects(event)),
+                    effectHandler)
+                .effectRunner(WorkRunners::immediate),
+            key -> key + ":",
+            1,
+            Passivation.using(SERIALIZER).maxActiveLoops(1));
+
+    underTest.dispatch("a", "x");
+    underTest.dispatch("b", "y");
+    passivating.countDown();
+
+    await()
+        .atMost(Duration.ONE_SECOND)
+        .until(() -> underTest.shardStats().get(0).droppedEvents(), is(1L));
+    assertThat(underTest.shardStats().get(0).passivations(), is(1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroShards() throws Exception {
+    MobiusRuntime.<String, String, String, String>create(
+        Mobius.loop((model, event) -> Next.noChange(), output -> null), key -> key, 0);
+  }
+
+  private MobiusLoop.Builder<String, String, String> loopBuilder() {
+    // every model is reported as an effect, and the thread the update ran on is recorded
+    Connectable<String, String> effectHandler =
+        output ->
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                models.add(value);
+              }
+
+              @Override
+              public void dispose() {}
+            };
+
+    return Mobius.<String, String, String>loop(
+            (model, event) -> {
+              threads.add(Thread.currentThread().getName());
+              String next = model + event;
+              return Next.next(next, Effects.effects(next));
+            },
+            effectHandler)
+        .effectRunner(WorkRunners::immediate);
+  }
+}
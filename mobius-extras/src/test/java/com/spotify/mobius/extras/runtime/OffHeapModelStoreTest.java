@@ -0,0 +1,100 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.runtime;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapModelStoreTest {
+
+  private OffHeapModelStore<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new OffHeapModelStore<>(8);
+  }
+
+  @Test
+  public void returnsStoredModelOnce() throws Exception {
+    underTest.put("a", bytes("hello"));
+
+    assertThat(string(underTest.remove("a")), is("hello"));
+    assertThat(underTest.remove("a"), is(nullValue()));
+  }
+
+  @Test
+  public void replacesModelForSameKey() throws Exception {
+    underTest.put("a", bytes("one"));
+    underTest.put("a", bytes("three"));
+
+    assertThat(underTest.size(), is(1));
+    assertThat(underTest.sizeInBytes(), is(5L));
+    assertThat(string(underTest.remove("a")), is("three"));
+  }
+
+  @Test
+  public void reclaimsSpaceOfRemovedModels() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      underTest.put("a", bytes("1234"));
+      underTest.put("b", bytes("5678"));
+      underTest.remove("a");
+    }
+
+    assertThat(underTest.capacity(), is(8));
+    assertThat(string(underTest.remove("b")), is("5678"));
+  }
+
+  @Test
+  public void growsWhenModelsDoNotFit() throws Exception {
+    underTest.put("a", bytes("12345"));
+    underTest.put("b", bytes("67890"));
+    underTest.put("c", bytes("abcdefghijklmnopq"));
+
+    assertThat(underTest.capacity(), is(greaterThan(8)));
+    assertThat(underTest.sizeInBytes(), is(27L));
+    assertThat(string(underTest.remove("a")), is("12345"));
+    assertThat(string(underTest.remove("b")), is("67890"));
+    assertThat(string(underTest.remove("c")), is("abcdefghijklmnopq"));
+  }
+
+  @Test
+  public void clearRemovesAllModels() throws Exception {
+    underTest.put("a", bytes("1234"));
+    underTest.clear();
+
+    assertThat(underTest.size(), is(0));
+    assertThat(underTest.sizeInBytes(), is(0L));
+    assertThat(underTest.remove("a"), is(nullValue()));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras.snapshot;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.extras.MobiusExtras;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SnapshotStoreTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final ModelSerializer<String> SERIALIZER =
+      new ModelSerializer<String>() {
+        @Nonnull
+        @Override
+        public byte[] serialize(String model) {
+          return model.getBytes(UTF_8);
+        }
+
+        @Nonnull
+        @Override
+        public String deserialize(byte[] bytes) {
+          String model = new String(bytes, UTF_8);
+          if (model.equals("unreadable")) {
+            throw new IllegalArgumentException("can't read this");
+          }
+          return model;
+        }
+      };
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private SnapshotStore<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    file = new File(temporaryFolder.getRoot(), "snapshot");
+    underTest = SnapshotStore.create(file, SERIALIZER, 0, TimeUnit.MILLISECONDS);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.dispose();
+  }
+
+  @Test
+  public void shouldLoadNothingWithoutSnapshot() throws Exception {
+    assertThat(underTest.load(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldWriteSavedModelInBackground() throws Exception {
+    underTest.save("hello");
+
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.load(), is("hello"));
+  }
+
+  @Test
+  public void shouldLoadSnapshotWrittenByEarlierStore() throws Exception {
+    underTest.save("hello");
+    underTest.dispose();
+
+    underTest = SnapshotStore.create(file, SERIALIZER, 0, TimeUnit.MILLISECONDS);
+
+    assertThat(underTest.load(), is("hello"));
+  }
+
+  @Test
+  public void shouldOverwriteLargerSnapshotWithSmallerOne() throws Exception {
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      large.append(i);
+    }
+
+    underTest.save(large.toString());
+    underTest.flush();
+    underTest.save("small");
+    underTest.flush();
+
+    assertThat(underTest.load(), is("small"));
+  }
+
+  @Test
+  public void shouldWriteAtMostOncePerInterval() throws Exception {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    underTest.dispose();
+    underTest = SnapshotStore.create(file, SERIALIZER, 1, TimeUnit.HOURS, executor);
+
+    underTest.save("first");
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.load(), is("first"));
+
+    underTest.save("second");
+    underTest.save("third");
+
+    // a single write is scheduled, and it waits for the interval to pass
+    assertThat(executor.getQueue().size(), is(1));
+    assertThat(underTest.load(), is("first"));
+
+    underTest.flush();
+    assertThat(underTest.load(), is("third"));
+
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldIgnoreCorruptSnapshot() throws Exception {
+    underTest.save("hello");
+    underTest.flush();
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(17);
+      raf.write('X');
+    }
+
+    assertThat(underTest.load(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldIgnoreSnapshotThatCantBeDeserialized() throws Exception {
+    underTest.save("unreadable");
+    underTest.flush();
+
+    assertThat(underTest.load(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldRestoreControllerFromSnapshot() throws Exception {
+    underTest.save("restored");
+    underTest.flush();
+
+    MobiusLoop.Controller<String, Integer> controller =
+        Mobius.controller(
+            MobiusExtras.beginnerLoop((String model, Integer event) -> model), "init");
+
+    assertThat(underTest.restoreInto(controller), is(true));
+    assertThat(controller.getModel(), is("restored"));
+  }
+
+  @Test
+  public void shouldNotRestoreControllerWithoutSnapshot() throws Exception {
+    MobiusLoop.Controller<String, Integer> controller =
+        Mobius.controller(
+            MobiusExtras.beginnerLoop((String model, Integer event) -> model), "init");
+
+    assertThat(underTest.restoreInto(controller), is(false));
+    assertThat(controller.getModel(), is("init"));
+  }
+
+  @Test
+  public void shouldSaveModelsOfDecoratedLoops() throws Exception {
+    MobiusLoop.Factory<String, Integer, ?> factory =
+        underTest.snapshotting(
+            MobiusExtras.beginnerLoop((String model, Integer event) -> model + event));
+
+    MobiusLoop<String, Integer, ?> loop = factory.startFrom("start");
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(2);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> underTest.load(), is("start12"));
+    loop.dispose();
+  }
+}